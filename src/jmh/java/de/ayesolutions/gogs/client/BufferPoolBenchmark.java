@@ -0,0 +1,92 @@
+package de.ayesolutions.gogs.client;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * allocation per read of response bodies with and without {@link BufferPool}. run with {@code gradle jmh}, the gc
+ * profiler reports the allocated bytes per read as {@code gc.alloc.rate.norm}.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BufferPoolBenchmark {
+
+    /**
+     * response size in bytes.
+     */
+    @Param({"1024", "12288", "131072"})
+    private int size;
+
+    private ByteArrayInputStream inputStream;
+
+    @Setup
+    public void setUp() {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        inputStream = new ByteArrayInputStream(data);
+    }
+
+    /**
+     * read body of unknown length through a pooled buffer, like cached responses.
+     */
+    @Benchmark
+    public byte[] pooledRead() throws IOException {
+        inputStream.reset();
+        return BufferPool.readBytes(inputStream, -1);
+    }
+
+    /**
+     * read body of known length through a pooled buffer, like raw files.
+     */
+    @Benchmark
+    public byte[] pooledReadWithLength() throws IOException {
+        inputStream.reset();
+        return BufferPool.readBytes(inputStream, size);
+    }
+
+    /**
+     * read body with a new buffer per read, as before the pool.
+     */
+    @Benchmark
+    public byte[] unpooledRead() throws IOException {
+        inputStream.reset();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, read);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * read error message of at most 64 KiB through a pooled buffer.
+     */
+    @Benchmark
+    public String pooledErrorMessage() throws IOException {
+        inputStream.reset();
+        return BufferPool.readString(inputStream, StandardCharsets.ISO_8859_1, 64 * 1024);
+    }
+}
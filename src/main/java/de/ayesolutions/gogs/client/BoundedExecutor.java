@@ -0,0 +1,78 @@
+package de.ayesolutions.gogs.client;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * executor which runs at most a fixed number of tasks at the same time on another executor. further tasks are
+ * queued until a running task has finished.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BoundedExecutor implements Executor {
+
+    private final Executor executor;
+
+    private final int limit;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * default constructor.
+     *
+     * @param executor executor running the tasks.
+     * @param limit    maximum number of tasks running at the same time.
+     */
+    public BoundedExecutor(final Executor executor, final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        this.executor = executor;
+        this.limit = limit;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        queue.add(command);
+        startWorker();
+    }
+
+    /**
+     * start a worker unless the limit is reached. a worker runs queued tasks in a loop until the queue is empty, so a
+     * direct or caller runs executor does not nest a call per queued task.
+     */
+    private void startWorker() {
+        while (!queue.isEmpty()) {
+            int current = active.get();
+            if (current >= limit) {
+                return;
+            }
+            if (active.compareAndSet(current, current + 1)) {
+                try {
+                    executor.execute(this::work);
+                } catch (RuntimeException e) {
+                    active.decrementAndGet();
+                    throw e;
+                }
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            Runnable task;
+            while ((task = queue.poll()) != null) {
+                task.run();
+            }
+        } finally {
+            active.decrementAndGet();
+            // tasks queued after the last poll or left behind by a failed task
+            startWorker();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.ayesolutions.gogs.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * thread local pool of byte buffers for stream copies and response bodies read as bytes.
+ * <p>
+ * every thread keeps at most one buffer. buffers larger than {@link #MAX_BUFFER_SIZE} are never kept, so the pool
+ * holds at most one small buffer per thread. json bodies read and written by jackson do not use this pool, jackson
+ * recycles its own buffers per thread.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class BufferPool {
+
+    /**
+     * default buffer size.
+     */
+    public static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * largest buffer kept for reuse.
+     */
+    public static final int MAX_BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * largest supported array size.
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+
+    private BufferPool() {
+    }
+
+    /**
+     * take buffer from pool or allocate new one.
+     *
+     * @param minimumSize minimum buffer size.
+     * @return buffer.
+     */
+    public static byte[] acquire(int minimumSize) {
+        byte[] buffer = BUFFERS.get();
+        if (buffer != null && buffer.length >= minimumSize) {
+            BUFFERS.remove();
+            return buffer;
+        }
+        return new byte[Math.max(minimumSize, BUFFER_SIZE)];
+    }
+
+    /**
+     * return buffer to pool.
+     *
+     * @param buffer buffer taken with {@link #acquire(int)}.
+     */
+    public static void release(byte[] buffer) {
+        if (buffer.length <= MAX_BUFFER_SIZE) {
+            byte[] current = BUFFERS.get();
+            if (current == null || current.length < buffer.length) {
+                BUFFERS.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * copy stream with pooled buffer.
+     *
+     * @param inputStream  source stream.
+     * @param outputStream target stream.
+     * @return number of copied bytes.
+     * @throws IOException if stream could not be read or written.
+     */
+    public static long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = acquire(BUFFER_SIZE);
+        try {
+            long count = 0;
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                outputStream.write(buffer, 0, read);
+                count += read;
+            }
+            return count;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * read stream into byte array with pooled buffer. only the returned array of exact size is allocated as long as
+     * the content fits into a pooled buffer.
+     *
+     * @param inputStream    source stream.
+     * @param expectedLength expected number of bytes or -1 if unknown.
+     * @return content.
+     * @throws IOException if stream could not be read or is too large for a byte array.
+     */
+    public static byte[] readBytes(InputStream inputStream, int expectedLength) throws IOException {
+        // one byte more than expected, so the end of stream is detected without growing the buffer
+        byte[] buffer = acquire(expectedLength >= 0 && expectedLength < MAX_ARRAY_SIZE ? expectedLength + 1 : 0);
+        try {
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) >= 0) {
+                length += read;
+                if (length == buffer.length) {
+                    if (length == MAX_ARRAY_SIZE) {
+                        throw new IOException("content too large for byte array");
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(2L * length, MAX_ARRAY_SIZE));
+                }
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * read stream into string with pooled buffer.
+     *
+     * @param inputStream source stream.
+     * @param charset     character set of stream.
+     * @param maxLength   maximum number of bytes to read.
+     * @return string.
+     * @throws IOException if stream could not be read.
+     */
+    public static String readString(InputStream inputStream, Charset charset, int maxLength) throws IOException {
+        byte[] buffer = acquire(Math.min(maxLength, MAX_BUFFER_SIZE));
+        try {
+            int limit = Math.min(buffer.length, maxLength);
+            int length = 0;
+            int read;
+            while (length < limit && (read = inputStream.read(buffer, length, limit - length)) >= 0) {
+                length += read;
+            }
+            return new String(buffer, 0, length, charset);
+        } finally {
+            release(buffer);
+        }
+    }
+}
@@ -0,0 +1,637 @@
+package de.ayesolutions.gogs.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import de.ayesolutions.gogs.client.cache.CacheKey;
+import de.ayesolutions.gogs.client.cache.CacheStats;
+import de.ayesolutions.gogs.client.cache.ExpiringCache;
+import de.ayesolutions.gogs.client.cache.NearCache;
+import de.ayesolutions.gogs.client.cache.PathQuery;
+import de.ayesolutions.gogs.client.cache.PersistentCacheStore;
+import de.ayesolutions.gogs.client.model.AccessToken;
+import de.ayesolutions.gogs.client.model.Organization;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gogs HTTP client which keeps GET responses in a {@link NearCache}.
+ * <p>
+ * responses of {@code get} calls with class or generic type are cached as raw json and deserialized on every hit, so
+ * callers can modify the returned objects. responses read as {@code String} are cached as text, an empty successful
+ * response (e.g. 204 of a following check) is cached as empty text and is not a not found result. text and empty
+ * responses are kept in memory only, the persistent store holds json. paginated lists and calls with a prepared object
+ * reader are not cached.
+ * <p>
+ * every other request through this client removes the cached responses of its path, of all paths above and below
+ * (e.g. PATCH repos/user/repo/issues/1 removes the issue, its comments, the issue list and the repository) and of
+ * related paths like the admin or organization variants. POST requests without side effects (markdown rendering) do
+ * not remove anything. cached responses, stored responses and not found results are indexed by path, so a write only
+ * visits the affected entries. only creating or deleting a repository additionally checks every cached path for
+ * repository lists.
+ * <p>
+ * optionally not found (404) results are remembered for a short time, so repeated existence checks do not reach the
+ * server. they are removed like cached responses and additionally when this client creates a repository, user or
+ * organization with the same name.
+ * <p>
+ * with a {@link PersistentCacheStore} responses survive a restart and are revalidated with their etag once the time
+ * to live has passed.
+ * <p>
+ * with {@link #setStaleWhileRevalidate(Executor, long, long, TimeUnit)} responses older than their time to live are
+ * still returned without waiting while a single background request per response refreshes them. only responses older
+ * than the time to live plus the maximum staleness block the caller. if the refresh fails the stale response is kept
+ * longer, up to the maximum staleness on error.
+ * <p>
+ * responses are cached per identity, an hmac of the authorization header with a random secret, so views for other
+ * users created with {@link #as(AccessToken)} share the caches without seeing responses of each other. the secret of
+ * a persistent store is kept in its file.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class CachingGogsClient extends GogsClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CachingGogsClient.class);
+
+    /**
+     * estimated memory of a cache entry besides the response.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * result type of not found cache keys. not found results do not depend on the requested type.
+     */
+    private static final String NOT_FOUND_TYPE = "";
+
+    private final Shared shared;
+
+    /**
+     * identity of the last used authorization header.
+     */
+    private volatile Identity identity;
+
+    /**
+     * default constructor.
+     *
+     * @param uri           uri to your gogs instance. (with /api/v1)
+     * @param accessToken   access token.
+     * @param maximumWeight maximum size of cached responses in bytes.
+     * @param timeToLive    default time to live of cached responses.
+     * @param unit          time unit of time to live.
+     */
+    public CachingGogsClient(final URI uri, final AccessToken accessToken, final long maximumWeight,
+                             final long timeToLive, final TimeUnit unit) {
+        super(uri, accessToken);
+        this.shared = new Shared(new NearCache<>(maximumWeight,
+                (key, value) -> value.length + key.getPath().length() + key.getQuery().length() + ENTRY_OVERHEAD,
+                CacheKey::getPath), unit.toNanos(timeToLive));
+    }
+
+    private CachingGogsClient(final CachingGogsClient parent, final AccessToken accessToken) {
+        super(parent, accessToken);
+        this.shared = parent.shared;
+    }
+
+    /**
+     * get view of this client with other credentials. the view shares the jersey client, the json provider and all
+     * caches and settings of this client. cached responses are kept per identity, writes of any view remove the
+     * cached responses of all identities.
+     *
+     * @param accessToken access token of view.
+     * @return client view.
+     */
+    @Override
+    public CachingGogsClient as(AccessToken accessToken) {
+        return new CachingGogsClient(this, accessToken);
+    }
+
+    /**
+     * set time to live for responses of an entity class. lists use the time to live of their items.
+     *
+     * @param entityClass entity class. (e.g. Repository.class)
+     * @param timeToLive  time to live.
+     * @param unit        time unit of time to live.
+     */
+    public void setTimeToLive(Class<?> entityClass, long timeToLive, TimeUnit unit) {
+        shared.timeToLive.put(entityClass, unit.toNanos(timeToLive));
+    }
+
+    /**
+     * remember not found (404) results. a time to live of 0 disables the not found cache.
+     *
+     * @param maximumSize maximum number of remembered paths.
+     * @param timeToLive  time to live.
+     * @param unit        time unit of time to live.
+     */
+    public void setNotFoundCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        shared.notFoundCache = timeToLive > 0 ? new ExpiringCache<>(timeToLive, unit, maximumSize, CacheKey::getPath)
+                : null;
+    }
+
+    /**
+     * return stale responses immediately and refresh them in the background. a time to live of a response is its
+     * refresh time then. a maximum staleness of 0 disables stale responses.
+     *
+     * @param executor                executor for background refreshes.
+     * @param maximumStaleness        time after the time to live a response is returned without waiting.
+     * @param maximumStalenessOnError time after the time to live a response is kept if its refresh failed.
+     * @param unit                    time unit of staleness.
+     */
+    public void setStaleWhileRevalidate(Executor executor, long maximumStaleness, long maximumStalenessOnError,
+                                        TimeUnit unit) {
+        shared.staleness = maximumStaleness > 0 ? new Staleness(executor, unit.toNanos(maximumStaleness),
+                unit.toNanos(Math.max(maximumStaleness, maximumStalenessOnError))) : null;
+    }
+
+    /**
+     * keep responses additionally in a persistent store, so they are available after a restart. the store is not
+     * closed by this client. identities are derived with the secret of the store from now on, so responses cached in
+     * memory and not found results are removed.
+     *
+     * @param persistentStore persistent store or null.
+     */
+    public void setPersistentStore(PersistentCacheStore persistentStore) {
+        if (persistentStore != null) {
+            shared.identitySecret = persistentStore.getIdentitySecret();
+            shared.cache.clear();
+            ExpiringCache<CacheKey, Boolean> notFound = shared.notFoundCache;
+            if (notFound != null) {
+                notFound.clear();
+            }
+        }
+        shared.persistentStore = persistentStore;
+    }
+
+    /**
+     * get cache statistics.
+     *
+     * @return statistics.
+     */
+    public CacheStats getCacheStats() {
+        return shared.cache.stats();
+    }
+
+    /**
+     * remove all cached responses including the persistent store.
+     */
+    public void clearCache() {
+        for (Refresh refresh : shared.refreshing.values()) {
+            refresh.invalidate();
+        }
+        shared.cache.clear();
+        PersistentCacheStore store = shared.persistentStore;
+        if (store != null) {
+            store.removeIf(key -> true);
+        }
+        ExpiringCache<CacheKey, Boolean> notFound = shared.notFoundCache;
+        if (notFound != null) {
+            notFound.clear();
+        }
+    }
+
+    /**
+     * remove cached responses of path and all paths above and below.
+     *
+     * @param path rest path.
+     */
+    public void invalidate(String... path) {
+        PathQuery query = new PathQuery();
+        for (String target : relatedPaths(path)) {
+            query.addBranch(target);
+        }
+        if (isRepositoryLifecycle(path)) {
+            query.addSuffix("/repos");
+            query.addPath("repos/search");
+        }
+        invalidate(query);
+    }
+
+    /**
+     * remove cached responses of exactly this path with all url parameters and result types.
+     *
+     * @param path rest path. (segments joined with /)
+     */
+    public void invalidatePath(String path) {
+        invalidate(PathQuery.path(path));
+    }
+
+    /**
+     * remove cached responses of path and all paths below.
+     *
+     * @param path rest path. (segments joined with /)
+     */
+    public void invalidateTree(String path) {
+        invalidate(PathQuery.tree(path));
+    }
+
+    /**
+     * replace cached response of GET request without url parameters, e.g. with an entity received from a web hook.
+     * the value is cached as response for its own class and the identity of this client, cached responses of the path
+     * for other identities or url parameters are removed.
+     *
+     * @param value entity.
+     * @param path  rest path.
+     */
+    public void put(Object value, String... path) {
+        JavaType type = getJsonProvider().getObjectMapper().constructType(value.getClass());
+        CacheKey key = new CacheKey(String.join("/", path), null, type.toCanonical(), identity());
+        invalidatePath(key.getPath());
+        try {
+            byte[] data = getJsonProvider().writer(type).writeValueAsBytes(value);
+            cache(key, data, timeToLive(type));
+            PersistentCacheStore store = shared.persistentStore;
+            if (store != null) {
+                store.put(key, null, System.currentTimeMillis(), data);
+            }
+        } catch (IOException e) {
+            shared.cache.invalidate(key);
+            throw new GogsClientException("could not write cache entry", e);
+        }
+    }
+
+    /**
+     * remove cached responses of the selected paths. running refreshes are few, so they are checked one by one.
+     */
+    private void invalidate(PathQuery query) {
+        for (Map.Entry<CacheKey, Refresh> refresh : shared.refreshing.entrySet()) {
+            if (query.matches(refresh.getKey().getPath())) {
+                refresh.getValue().invalidate();
+            }
+        }
+        shared.cache.invalidate(query);
+        PersistentCacheStore store = shared.persistentStore;
+        if (store != null) {
+            store.remove(query);
+        }
+        ExpiringCache<CacheKey, Boolean> notFound = shared.notFoundCache;
+        if (notFound != null) {
+            notFound.remove(query);
+        }
+    }
+
+    @Override
+    public <T> T request(String method, Class<T> clazz, Object data, Map<String, String> parameters,
+                         String... path) {
+        if ("GET".equals(method) && clazz != Void.class) {
+            return cachedGet(getJsonProvider().getObjectMapper().constructType(clazz), parameters, path);
+        }
+        if (isReadOnly(method, path)) {
+            return super.request(method, clazz, data, parameters, path);
+        }
+        T result = null;
+        try {
+            result = super.request(method, clazz, data, parameters, path);
+            return result;
+        } finally {
+            invalidate(path);
+            invalidateNotFound(result);
+        }
+    }
+
+    @Override
+    public <T> T request(String method, GenericType<T> clazz, Object data, Map<String, String> parameters,
+                         String... path) {
+        if ("GET".equals(method)) {
+            return cachedGet(getJsonProvider().getObjectMapper().constructType(clazz.getType()), parameters, path);
+        }
+        if (isReadOnly(method, path)) {
+            return super.request(method, clazz, data, parameters, path);
+        }
+        try {
+            return super.request(method, clazz, data, parameters, path);
+        } finally {
+            invalidate(path);
+        }
+    }
+
+    private <T> T cachedGet(JavaType type, Map<String, String> parameters, String... path) {
+        CacheKey key = new CacheKey(String.join("/", path), parameters, type.toCanonical(), identity());
+        NearCache.Entry<byte[]> entry = shared.cache.getEntry(key);
+        byte[] data = entry != null ? entry.getValue() : null;
+        if (entry != null && entry.isStale()) {
+            refresh(key, type, parameters, path);
+        }
+        if (data == null) {
+            ExpiringCache<CacheKey, Boolean> notFound = shared.notFoundCache;
+            CacheKey notFoundKey = new CacheKey(key.getPath(), parameters, NOT_FOUND_TYPE, key.getIdentity());
+            if (notFound != null && notFound.get(notFoundKey) != null) {
+                return null;
+            }
+
+            data = load(key, type, parameters, null, path);
+            if (data == null) {
+                if (notFound != null) {
+                    notFound.put(notFoundKey, Boolean.TRUE);
+                }
+                return null;
+            }
+        }
+
+        if (type.getRawClass() == String.class) {
+            @SuppressWarnings("unchecked")
+            T text = (T) new String(data, StandardCharsets.UTF_8);
+            return text;
+        }
+        if (data.length == 0) {
+            return null;
+        }
+        try {
+            return getJsonProvider().reader(type).readValue(data);
+        } catch (IOException e) {
+            shared.cache.invalidate(key);
+            throw new GogsClientException("could not read cached response", e);
+        }
+    }
+
+    /**
+     * load response from persistent store or server. a stored response is used without request while it is younger
+     * than the time to live, otherwise it is revalidated with its etag.
+     *
+     * @param refresh running background refresh or null.
+     * @return json response, empty if the server sent no body, or null if not found.
+     */
+    private byte[] load(CacheKey key, JavaType type, Map<String, String> parameters, Refresh refresh,
+                        String... path) {
+        long timeToLive = timeToLive(type);
+        long now = System.currentTimeMillis();
+        PersistentCacheStore store = shared.persistentStore;
+        PersistentCacheStore.Entry stored = store != null ? store.get(key) : null;
+
+        if (stored != null) {
+            long age = TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - stored.getTimestamp()));
+            if (age < timeToLive) {
+                update(refresh, () -> cache(key, stored.getData(), timeToLive - age));
+                return stored.getData();
+            }
+        }
+
+        Map<String, String> headers = null;
+        if (stored != null && stored.getEtag() != null) {
+            headers = Collections.singletonMap(HttpHeaders.IF_NONE_MATCH, stored.getEtag());
+        }
+        Response response = callRequest("GET", null, parameters, headers, path);
+        if (stored != null && response.getStatus() == HTTP_NOT_MODIFIED) {
+            response.close();
+            update(refresh, () -> {
+                store.touch(key, now);
+                cache(key, stored.getData(), timeToLive);
+            });
+            return stored.getData();
+        }
+
+        if (!handleStatusCode(response, key.getPath())) {
+            if (store != null) {
+                store.remove(key);
+            }
+            return null;
+        }
+        byte[] data = readBytes(response);
+        String etag = response.getHeaderString(HttpHeaders.ETAG);
+        update(refresh, () -> {
+            cache(key, data, timeToLive);
+            if (store != null && data.length > 0 && type.getRawClass() != String.class) {
+                store.put(key, etag, now, data);
+            }
+        });
+        return data;
+    }
+
+    /**
+     * apply update of a load, for a background refresh only if the response was not invalidated while it ran.
+     */
+    private static void update(Refresh refresh, Runnable update) {
+        if (refresh == null) {
+            update.run();
+            return;
+        }
+        synchronized (refresh) {
+            if (!refresh.invalidated) {
+                update.run();
+            }
+        }
+    }
+
+    /**
+     * put response into near cache, with stale while revalidate it expires after the maximum staleness.
+     */
+    private void cache(CacheKey key, byte[] data, long timeToLive) {
+        Staleness staleness = shared.staleness;
+        if (staleness == null) {
+            shared.cache.put(key, data, timeToLive);
+        } else {
+            shared.cache.put(key, data, timeToLive, timeToLive + staleness.maximum);
+        }
+    }
+
+    /**
+     * refresh stale response in the background unless a refresh of the response is already running. a refresh which
+     * is invalidated while it runs does not cache its response, it may have been read before the write.
+     */
+    private void refresh(CacheKey key, JavaType type, Map<String, String> parameters, String... path) {
+        Staleness staleness = shared.staleness;
+        Refresh refresh = new Refresh();
+        if (staleness == null || shared.refreshing.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+        try {
+            staleness.executor.execute(() -> {
+                try {
+                    if (load(key, type, parameters, refresh, path) == null) {
+                        shared.cache.invalidate(key);
+                    }
+                } catch (RuntimeException e) {
+                    long timeToLive = timeToLive(type);
+                    LOG.warn("could not refresh " + key + ", keep stale response", e);
+                    shared.cache.extend(key, Math.min(timeToLive, staleness.maximum),
+                            timeToLive + staleness.maximumOnError);
+                } finally {
+                    shared.refreshing.remove(key, refresh);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            shared.refreshing.remove(key, refresh);
+            LOG.debug("refresh of " + key + " rejected", e);
+        }
+    }
+
+    /**
+     * remove not found results of a created entity.
+     */
+    private void invalidateNotFound(Object entity) {
+        ExpiringCache<CacheKey, Boolean> notFound = shared.notFoundCache;
+        if (notFound == null || entity == null) {
+            return;
+        }
+
+        String path = null;
+        if (entity instanceof Repository) {
+            Repository repository = (Repository) entity;
+            if (repository.getFullName() != null) {
+                path = "repos/" + repository.getFullName();
+            } else if (repository.getOwner() != null) {
+                path = "repos/" + repository.getOwner().getUsername() + "/" + repository.getName();
+            }
+        } else if (entity instanceof User) {
+            path = "users/" + ((User) entity).getUsername();
+        } else if (entity instanceof Organization) {
+            path = "orgs/" + ((Organization) entity).getUsername();
+        }
+
+        if (path != null) {
+            notFound.remove(PathQuery.tree(path));
+        }
+    }
+
+    /**
+     * get identity of the current credentials, computed once per authorization header.
+     */
+    private String identity() {
+        AccessToken accessToken = getAccessToken();
+        if (accessToken == null) {
+            return "";
+        }
+        String authorization = accessToken.getAuthorization();
+        byte[] secret = shared.identitySecret;
+        Identity current = identity;
+        if (current == null || current.authorization != authorization || current.secret != secret) {
+            current = new Identity(authorization, secret, CacheKey.identityOf(secret, authorization));
+            identity = current;
+        }
+        return current.value;
+    }
+
+    private long timeToLive(JavaType type) {
+        Class<?> entityClass = type.isContainerType() ? type.getContentType().getRawClass() : type.getRawClass();
+        return shared.timeToLive.getOrDefault(entityClass, shared.defaultTimeToLive);
+    }
+
+    /**
+     * paths read by GET requests which show the result of a write to the specified path.
+     */
+    private static List<String> relatedPaths(String... path) {
+        List<String> paths = new ArrayList<>();
+        paths.add(String.join("/", path));
+        if (path.length > 2 && "admin".equals(path[0])) {
+            paths.add(String.join("/", Arrays.copyOfRange(path, 1, path.length)));
+            if ("users".equals(path[1])) {
+                paths.add("user");
+            }
+        }
+        if (path.length > 1 && "org".equals(path[0])) {
+            paths.add("orgs/" + String.join("/", Arrays.copyOfRange(path, 1, path.length)));
+        }
+        if (path.length == 3 && "user".equals(path[0]) && "following".equals(path[1])) {
+            paths.add("users/" + path[2] + "/followers");
+        }
+        return paths;
+    }
+
+    /**
+     * check if request creates or deletes a repository.
+     */
+    private static boolean isRepositoryLifecycle(String... path) {
+        return (path.length == 3 && "repos".equals(path[0]))
+                || (path.length > 0 && "repos".equals(path[path.length - 1]))
+                || (path.length == 2 && "repos".equals(path[0]) && "migrate".equals(path[1]));
+    }
+
+    /**
+     * check if request has no side effects, so no cached response has to be removed.
+     */
+    private static boolean isReadOnly(String method, String... path) {
+        return "POST".equals(method) && path.length > 0 && "markdown".equals(path[0]);
+    }
+
+    /**
+     * caches and settings shared by a client and its views.
+     */
+    private static final class Shared {
+
+        private final NearCache<CacheKey, byte[]> cache;
+
+        private final long defaultTimeToLive;
+
+        private final Map<Class<?>, Long> timeToLive = new ConcurrentHashMap<>();
+
+        private volatile ExpiringCache<CacheKey, Boolean> notFoundCache;
+
+        private volatile PersistentCacheStore persistentStore;
+
+        private volatile Staleness staleness;
+
+        private volatile byte[] identitySecret = CacheKey.newSecret();
+
+        private final Map<CacheKey, Refresh> refreshing = new ConcurrentHashMap<>();
+
+        private Shared(final NearCache<CacheKey, byte[]> cache, final long defaultTimeToLive) {
+            this.cache = cache;
+            this.defaultTimeToLive = defaultTimeToLive;
+        }
+    }
+
+    /**
+     * identity derived from an authorization header and secret.
+     */
+    private static final class Identity {
+
+        private final String authorization;
+
+        private final byte[] secret;
+
+        private final String value;
+
+        private Identity(final String authorization, final byte[] secret, final String value) {
+            this.authorization = authorization;
+            this.secret = secret;
+            this.value = value;
+        }
+    }
+
+    /**
+     * running background refresh of a response.
+     */
+    private static final class Refresh {
+
+        /**
+         * set when the response is invalidated, guarded by this refresh.
+         */
+        private boolean invalidated;
+
+        private synchronized void invalidate() {
+            invalidated = true;
+        }
+    }
+
+    /**
+     * stale while revalidate settings.
+     */
+    private static final class Staleness {
+
+        private final Executor executor;
+
+        private final long maximum;
+
+        private final long maximumOnError;
+
+        private Staleness(final Executor executor, final long maximum, final long maximumOnError) {
+            this.executor = executor;
+            this.maximum = maximum;
+            this.maximumOnError = maximumOnError;
+        }
+    }
+}
@@ -1,21 +1,32 @@
 package de.ayesolutions.gogs.client;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.ayesolutions.gogs.client.model.AccessToken;
+import de.ayesolutions.gogs.client.paging.Page;
+import org.glassfish.jersey.CommonProperties;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.client.HttpUrlConnectorProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Link;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Gogs HTTP client for Go Git Service.
@@ -32,14 +43,22 @@ public class GogsClient {
 
     public static final int HTTP_NO_CONTENT = 204;
 
+    public static final int HTTP_NOT_MODIFIED = 304;
+
     public static final int HTTP_NOT_FOUND = 404;
 
+    public static final String HEADER_TOTAL_COUNT = "X-Total-Count";
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 64 * 1024;
+
     private URI apiUri;
 
     private Client client;
 
     private AccessToken accessToken;
 
+    private JsonProvider jsonProvider;
+
     /**
      * default constructor.
      *
@@ -71,12 +90,39 @@ public class GogsClient {
         ClientConfig clientConfig = new ClientConfig();
         clientConfig
                 .property(ClientProperties.SUPPRESS_HTTP_COMPLIANCE_VALIDATION, true)
-                .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true);
+                .property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true)
+                .property(CommonProperties.FEATURE_AUTO_DISCOVERY_DISABLE_CLIENT, true)
+                .register(JsonProvider.getDefault());
         this.client = ClientBuilder.newClient(clientConfig);
+        this.jsonProvider = JsonProvider.getDefault();
         this.apiUri = uri;
         this.accessToken = accessToken;
     }
 
+    /**
+     * constructor for a view of another client with other credentials.
+     *
+     * @param parent      client with jersey client and json provider to share.
+     * @param accessToken access token of view.
+     */
+    protected GogsClient(final GogsClient parent, final AccessToken accessToken) {
+        this.client = parent.client;
+        this.jsonProvider = parent.jsonProvider;
+        this.apiUri = parent.apiUri;
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * get view of this client which sends requests with other credentials. the view shares the jersey client with
+     * its connections and the json provider, so creating it is cheap, e.g. once per user of a multi user service.
+     *
+     * @param accessToken access token of view.
+     * @return client view.
+     */
+    public GogsClient as(AccessToken accessToken) {
+        return new GogsClient(this, accessToken);
+    }
+
     /**
      * send GET request and deserialize result to type class.
      *
@@ -128,6 +174,92 @@ public class GogsClient {
         return request("GET", clazz, null, parameters, path);
     }
 
+    /**
+     * send GET request and deserialize result with specified object reader.
+     *
+     * @param reader     prepared object reader for json deserialization.
+     * @param parameters url parameters.
+     * @param path       rest path.
+     * @param <T>        type for result.
+     * @return result instance or null if not found (404)
+     */
+    public <T> T get(ObjectReader reader, Map<String, String> parameters, String... path) {
+        Response response = callRequest("GET", null, parameters, path);
+        if (!handleStatusCode(response, String.join("/", path))) {
+            return null;
+        }
+        return readEntity(response, reader);
+    }
+
+    /**
+     * send GET request for one page of a paginated list.
+     *
+     * @param clazz      list type for json deserialization.
+     * @param parameters url parameters.
+     * @param page       page number (starts with 1).
+     * @param path       rest path.
+     * @param <T>        type of list items.
+     * @return page or empty page if not found (404)
+     */
+    public <T> Page<T> getPage(GenericType<List<T>> clazz, Map<String, String> parameters, int page,
+                               String... path) {
+        return getPage(clazz, Function.identity(), parameters, page, path);
+    }
+
+    /**
+     * send GET request for one page of a paginated list which is wrapped in a result object.
+     *
+     * @param clazz      result type for json deserialization.
+     * @param items      function extracting list items from result.
+     * @param parameters url parameters.
+     * @param page       page number (starts with 1).
+     * @param path       rest path.
+     * @param <R>        type of result.
+     * @param <T>        type of list items.
+     * @return page or empty page if not found (404)
+     */
+    public <R, T> Page<T> getPage(GenericType<R> clazz, Function<R, List<T>> items, Map<String, String> parameters,
+                                  int page, String... path) {
+        return getPage(response -> response.readEntity(clazz), items, parameters, page, path);
+    }
+
+    /**
+     * send GET request for one page of a paginated list and deserialize it with specified object reader.
+     *
+     * @param reader     prepared object reader for the list.
+     * @param parameters url parameters.
+     * @param page       page number (starts with 1).
+     * @param path       rest path.
+     * @param <T>        type of list items.
+     * @return page or empty page if not found (404)
+     */
+    public <T> Page<T> getPage(ObjectReader reader, Map<String, String> parameters, int page, String... path) {
+        return getPage(response -> this.<List<T>>readEntity(response, reader), Function.identity(), parameters, page,
+                path);
+    }
+
+    private <R, T> Page<T> getPage(Function<Response, R> entity, Function<R, List<T>> items,
+                                   Map<String, String> parameters, int page, String... path) {
+        Map<String, String> pageParameters = new LinkedHashMap<>();
+        if (parameters != null) {
+            pageParameters.putAll(parameters);
+        }
+        pageParameters.put("page", String.valueOf(page));
+
+        Response response = callRequest("GET", null, pageParameters, path);
+        if (!handleStatusCode(response, String.join("/", path))) {
+            return Page.empty(page);
+        }
+
+        Link next = response.getLink("next");
+        Link last = response.getLink("last");
+        String totalCount = response.getHeaderString(HEADER_TOTAL_COUNT);
+
+        R result = entity.apply(response);
+        return new Page<>(page, result != null ? items.apply(result) : null, !response.getLinks().isEmpty(),
+                pageNumber(next), pageNumber(last), totalCount != null ? Long.valueOf(totalCount) : null);
+    }
+
     /**
      * send PUT request with data and deserialize result to type class.
      *
@@ -262,6 +394,21 @@ public class GogsClient {
      * @return response.
      */
     public Response callRequest(String method, Object data, Map<String, String> parameters, String... path) {
+        return callRequest(method, data, parameters, null, path);
+    }
+
+    /**
+     * build http call with java ws rs and additional request headers.
+     *
+     * @param method     http method.
+     * @param data       data to send.
+     * @param parameters url parameters.
+     * @param headers    request headers. (e.g. If-None-Match)
+     * @param path       rest path.
+     * @return response.
+     */
+    public Response callRequest(String method, Object data, Map<String, String> parameters,
+                                Map<String, String> headers, String... path) {
         WebTarget webTarget = client.target(apiUri);
 
         // set rest path
@@ -279,10 +426,12 @@ public class GogsClient {
         // set authorization token
         Invocation.Builder builder = webTarget.request();
         if (getAccessToken() != null) {
-            if (getAccessToken().getSha1() == null) {
-                builder = builder.header("Authorization", getAccessToken().getBasicAuthorization());
-            } else {
-                builder = builder.header("Authorization", getAccessToken().getTokenAuthorization());
+            builder = builder.header("Authorization", getAccessToken().getAuthorization());
+        }
+
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                builder = builder.header(header.getKey(), header.getValue());
             }
         }
 
@@ -336,19 +485,90 @@ public class GogsClient {
             case HTTP_NOT_FOUND:
                 return false;
             default:
-                String result = response.readEntity(String.class);
+                String result = readErrorMessage(response);
                 LOG.error("call service: " + apiUri.toString() + "/" + endpoint
                         + " failed " + response.getStatus());
                 if (!result.isEmpty()) {
                     LOG.error(result);
                 }
                 throw new GogsClientException("communication error " + response.getStatus() + System.lineSeparator()
-                        + response.readEntity(String.class));
+                        + result);
         }
 
         return true;
     }
 
+    /**
+     * deserialize response body with specified object reader.
+     *
+     * @param response response from server.
+     * @param reader   prepared object reader for json deserialization.
+     * @param <T>      type for result.
+     * @return result instance.
+     */
+    public <T> T readEntity(Response response, ObjectReader reader) {
+        try (InputStream inputStream = response.readEntity(InputStream.class)) {
+            return reader.readValue(inputStream);
+        } catch (IOException e) {
+            throw new GogsClientException("could not read response", e);
+        }
+    }
+
+    /**
+     * read response body into byte array with a pooled buffer.
+     *
+     * @param response response from server.
+     * @return response body, empty if there is none.
+     */
+    public byte[] readBytes(Response response) {
+        if (!response.hasEntity()) {
+            response.close();
+            return new byte[0];
+        }
+        int length = response.getLength();
+        try (InputStream inputStream = response.readEntity(InputStream.class)) {
+            return BufferPool.readBytes(inputStream, length);
+        } catch (IOException e) {
+            throw new GogsClientException("could not read response", e);
+        }
+    }
+
+    /**
+     * get page number from pagination link.
+     *
+     * @param link pagination link.
+     * @return page number or null.
+     */
+    private static Integer pageNumber(Link link) {
+        if (link == null || link.getUri().getRawQuery() == null) {
+            return null;
+        }
+        for (String parameter : link.getUri().getRawQuery().split("&")) {
+            if (parameter.startsWith("page=")) {
+                return Integer.valueOf(parameter.substring("page=".length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * read error message from response body.
+     *
+     * @param response response from server.
+     * @return error message or empty string.
+     */
+    private String readErrorMessage(Response response) {
+        if (!response.hasEntity()) {
+            return "";
+        }
+        try (InputStream inputStream = response.readEntity(InputStream.class)) {
+            return BufferPool.readString(inputStream, StandardCharsets.UTF_8, MAX_ERROR_MESSAGE_LENGTH);
+        } catch (IOException | ProcessingException e) {
+            LOG.debug("could not read error message", e);
+            return "";
+        }
+    }
+
     public AccessToken getAccessToken() {
         return accessToken;
     }
@@ -360,4 +580,8 @@ public class GogsClient {
     public URI getApiUri() {
         return apiUri;
     }
+
+    public JsonProvider getJsonProvider() {
+        return jsonProvider;
+    }
 }
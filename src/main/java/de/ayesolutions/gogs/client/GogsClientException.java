@@ -15,4 +15,14 @@ public class GogsClientException extends RuntimeException {
     public GogsClientException(final String message) {
         super(message);
     }
+
+    /**
+     * default constructor.
+     *
+     * @param message error message.
+     * @param cause   original exception.
+     */
+    public GogsClientException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
 }
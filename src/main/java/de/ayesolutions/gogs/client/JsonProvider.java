@@ -0,0 +1,100 @@
+package de.ayesolutions.gogs.client;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.jaxrs.json.JacksonJsonProvider;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * json message body reader and writer for all model classes.
+ * <p>
+ * readers and writers are created once per type on first use and reused for all further requests. the default
+ * instance is shared between all clients.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@Consumes(MediaType.WILDCARD)
+@Produces(MediaType.WILDCARD)
+public class JsonProvider extends JacksonJsonProvider {
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<JavaType, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * default constructor.
+     */
+    public JsonProvider() {
+        this(new ObjectMapper());
+    }
+
+    /**
+     * default constructor.
+     *
+     * @param objectMapper object mapper to use.
+     */
+    public JsonProvider(final ObjectMapper objectMapper) {
+        super(objectMapper);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * get shared default instance.
+     *
+     * @return json provider.
+     */
+    public static JsonProvider getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * get prepared reader for specified type.
+     *
+     * @param type java type.
+     * @return object reader.
+     */
+    public ObjectReader reader(JavaType type) {
+        return readers.computeIfAbsent(type, objectMapper::readerFor);
+    }
+
+    /**
+     * get prepared reader for specified type.
+     *
+     * @param type generic type.
+     * @return object reader.
+     */
+    public ObjectReader reader(GenericType<?> type) {
+        return reader(objectMapper.getTypeFactory().constructType(type.getType()));
+    }
+
+    /**
+     * get prepared writer for specified type.
+     *
+     * @param type java type.
+     * @return object writer.
+     */
+    public ObjectWriter writer(JavaType type) {
+        return writers.computeIfAbsent(type, objectMapper::writerFor);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * lazy holder for default instance.
+     */
+    private static final class DefaultHolder {
+        private static final JsonProvider INSTANCE = new JsonProvider();
+    }
+}
@@ -0,0 +1,21 @@
+package de.ayesolutions.gogs.client.cache;
+
+/**
+ * receives head changes detected by {@link BranchTracker}.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@FunctionalInterface
+public interface BranchListener {
+
+    /**
+     * head of a branch changed.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param branch         branch name.
+     * @param previousId     previous head commit id or null if branch was created.
+     * @param currentId      current head commit id or null if branch was deleted.
+     */
+    void onMoved(String username, String repositoryName, String branch, String previousId, String currentId);
+}
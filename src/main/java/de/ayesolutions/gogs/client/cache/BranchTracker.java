@@ -0,0 +1,345 @@
+package de.ayesolutions.gogs.client.cache;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.model.Branch;
+import de.ayesolutions.gogs.client.model.PayloadCommit;
+import de.ayesolutions.gogs.client.model.WebHookPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * tracks the head commits of branches.
+ * <p>
+ * heads are loaded per repository with a single branch list request, so all branches of a repository are refreshed
+ * together at most once per refresh interval. the list is requested with the etag of the last response and a not
+ * modified response keeps the known heads. push, create and delete web hook events update heads without any request,
+ * with a web hook the refresh interval can be long. listeners are called for every detected change, but not for the
+ * heads found when a repository is loaded the first time.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BranchTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BranchTracker.class);
+
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    private static final String EMPTY_COMMIT = "0000000000000000000000000000000000000000";
+
+    private final GogsClient client;
+
+    private final long refreshInterval;
+
+    private final LongSupplier ticker;
+
+    private final ObjectReader reader;
+
+    private final ConcurrentMap<String, Heads> repositories = new ConcurrentHashMap<>();
+
+    private final List<BranchListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * default constructor.
+     *
+     * @param client          gogs client.
+     * @param refreshInterval time after which heads of a repository are requested again.
+     * @param unit            unit of refresh interval.
+     */
+    public BranchTracker(final GogsClient client, final long refreshInterval, final TimeUnit unit) {
+        this(client, refreshInterval, unit, System::nanoTime);
+    }
+
+    BranchTracker(final GogsClient client, final long refreshInterval, final TimeUnit unit,
+                  final LongSupplier ticker) {
+        this.client = client;
+        this.refreshInterval = unit.toNanos(refreshInterval);
+        this.ticker = ticker;
+        this.reader = client.getJsonProvider().reader(new GenericType<List<Branch>>() {
+        });
+    }
+
+    /**
+     * register listener for head changes.
+     *
+     * @param listener listener.
+     */
+    public void addListener(BranchListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * remove registered listener.
+     *
+     * @param listener listener.
+     */
+    public void removeListener(BranchListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * get branch with its head commit.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param branch         branch name.
+     * @return branch or null if not found.
+     */
+    public Branch getBranch(String username, String repositoryName, String branch) {
+        return heads(username, repositoryName, false).branches.get(branch);
+    }
+
+    /**
+     * get id of head commit.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param branch         branch name.
+     * @return commit id or null if branch not found.
+     */
+    public String getHead(String username, String repositoryName, String branch) {
+        return commitId(getBranch(username, repositoryName, branch));
+    }
+
+    /**
+     * check if branch head differs from a known commit. only requests the server if the heads of the repository are
+     * older than the refresh interval.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param branch         branch name.
+     * @param knownId        known commit id or null for an unknown branch.
+     * @return true if head is another commit or the branch was created or deleted.
+     */
+    public boolean hasMoved(String username, String repositoryName, String branch, String knownId) {
+        return !Objects.equals(getHead(username, repositoryName, branch), knownId);
+    }
+
+    /**
+     * request heads of a repository regardless of the refresh interval.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @return all branches of the repository.
+     */
+    public List<Branch> refresh(String username, String repositoryName) {
+        return new ArrayList<>(heads(username, repositoryName, true).branches.values());
+    }
+
+    /**
+     * update heads from web hook event. without event name the heads of the repository are requested again with the
+     * next access.
+     *
+     * @param event   event name from {@link WebHookInvalidator#EVENT_HEADER} or null.
+     * @param payload payload.
+     */
+    public void handle(String event, WebHookPayload payload) {
+        if (payload.getRepository() == null || payload.getRepository().getOwner() == null
+                || payload.getRef() == null) {
+            return;
+        }
+        String username = payload.getRepository().getOwner().getUsername();
+        String repositoryName = payload.getRepository().getName();
+        Heads heads = repositories.get(key(username, repositoryName));
+        if (heads == null) {
+            return;
+        }
+        if (event == null) {
+            heads.checked = ticker.getAsLong() - refreshInterval;
+            return;
+        }
+
+        switch (event) {
+            case "push":
+                if (payload.getRef().startsWith(BRANCH_PREFIX)) {
+                    String branch = payload.getRef().substring(BRANCH_PREFIX.length());
+                    pushed(username, repositoryName, heads, branch, payload);
+                }
+                break;
+            case "delete":
+                if ("branch".equals(payload.getRefType())) {
+                    update(username, repositoryName, heads, payload.getRef(), null);
+                }
+                break;
+            case "create":
+                if ("branch".equals(payload.getRefType())) {
+                    // create events carry no commit, load the new head with the next access
+                    heads.checked = ticker.getAsLong() - refreshInterval;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void pushed(String username, String repositoryName, Heads heads, String branch,
+                        WebHookPayload payload) {
+        String after = payload.getAfter();
+        if (after == null || EMPTY_COMMIT.equals(after)) {
+            update(username, repositoryName, heads, branch, null);
+            return;
+        }
+
+        PayloadCommit commit = null;
+        if (payload.getCommits() != null) {
+            for (PayloadCommit pushed : payload.getCommits()) {
+                if (after.equals(pushed.getId())) {
+                    commit = pushed;
+                }
+            }
+        }
+        if (commit == null) {
+            commit = new PayloadCommit();
+            commit.setId(after);
+        }
+        Branch head = new Branch();
+        head.setName(branch);
+        head.setCommit(commit);
+        update(username, repositoryName, heads, branch, head);
+    }
+
+    private void update(String username, String repositoryName, Heads heads, String branch, Branch head) {
+        String previous;
+        synchronized (heads) {
+            Map<String, Branch> branches = new HashMap<>(heads.branches);
+            Branch old = head != null ? branches.put(branch, head) : branches.remove(branch);
+            heads.branches = Collections.unmodifiableMap(branches);
+            // the cached list response does not contain this change anymore
+            heads.etag = null;
+            previous = commitId(old);
+        }
+        if (!Objects.equals(previous, commitId(head))) {
+            notify(username, repositoryName, branch, previous, commitId(head));
+        }
+    }
+
+    /**
+     * get heads of repository, request them if they are older than the refresh interval. concurrent callers wait for
+     * a single request.
+     */
+    private Heads heads(String username, String repositoryName, boolean force) {
+        Heads heads = repositories.computeIfAbsent(key(username, repositoryName),
+                key -> new Heads(username, repositoryName));
+        if (!force && heads.loaded && ticker.getAsLong() - heads.checked < refreshInterval) {
+            return heads;
+        }
+
+        List<String[]> changes = new ArrayList<>();
+        synchronized (heads) {
+            long now = ticker.getAsLong();
+            if (force || !heads.loaded || now - heads.checked >= refreshInterval) {
+                load(heads, changes);
+                heads.checked = now;
+            }
+        }
+        for (String[] change : changes) {
+            notify(username, repositoryName, change[0], change[1], change[2]);
+        }
+        return heads;
+    }
+
+    private void load(Heads heads, List<String[]> changes) {
+        Map<String, String> headers = null;
+        if (heads.etag != null) {
+            headers = Collections.singletonMap(HttpHeaders.IF_NONE_MATCH, heads.etag);
+        }
+        String[] path = heads.path();
+        Response response = client.callRequest("GET", null, null, headers, path);
+        if (heads.etag != null && response.getStatus() == GogsClient.HTTP_NOT_MODIFIED) {
+            response.close();
+            return;
+        }
+
+        Map<String, Branch> branches = new HashMap<>();
+        String etag = null;
+        if (client.handleStatusCode(response, String.join("/", path))) {
+            List<Branch> list = client.readEntity(response, reader);
+            if (list != null) {
+                for (Branch branch : list) {
+                    branches.put(branch.getName(), branch);
+                }
+            }
+            etag = response.getHeaderString(HttpHeaders.ETAG);
+        } else {
+            response.close();
+        }
+
+        if (heads.loaded) {
+            for (Map.Entry<String, Branch> entry : branches.entrySet()) {
+                String previous = commitId(heads.branches.get(entry.getKey()));
+                String current = commitId(entry.getValue());
+                if (!Objects.equals(previous, current)) {
+                    changes.add(new String[]{entry.getKey(), previous, current});
+                }
+            }
+            for (Map.Entry<String, Branch> entry : heads.branches.entrySet()) {
+                if (!branches.containsKey(entry.getKey())) {
+                    changes.add(new String[]{entry.getKey(), commitId(entry.getValue()), null});
+                }
+            }
+        }
+        heads.branches = Collections.unmodifiableMap(branches);
+        heads.etag = etag;
+        heads.loaded = true;
+    }
+
+    private void notify(String username, String repositoryName, String branch, String previous, String current) {
+        for (BranchListener listener : listeners) {
+            try {
+                listener.onMoved(username, repositoryName, branch, previous, current);
+            } catch (RuntimeException e) {
+                LOG.warn("branch listener failed for " + username + "/" + repositoryName + " " + branch, e);
+            }
+        }
+    }
+
+    private static String commitId(Branch branch) {
+        return branch != null && branch.getCommit() != null ? branch.getCommit().getId() : null;
+    }
+
+    private static String key(String username, String repositoryName) {
+        return username + "/" + repositoryName;
+    }
+
+    /**
+     * known heads of a repository.
+     */
+    private static final class Heads {
+
+        private volatile Map<String, Branch> branches = Collections.emptyMap();
+
+        private volatile boolean loaded;
+
+        private volatile long checked;
+
+        private String etag;
+
+        private final String username;
+
+        private final String repositoryName;
+
+        private Heads(final String username, final String repositoryName) {
+            this.username = username;
+            this.repositoryName = repositoryName;
+        }
+
+        private String[] path() {
+            return new String[]{"repos", username, repositoryName, "branches"};
+        }
+    }
+}
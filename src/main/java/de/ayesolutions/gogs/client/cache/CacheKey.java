@@ -0,0 +1,174 @@
+package de.ayesolutions.gogs.client.cache;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * key of a cached GET response: rest path, url parameters, result type and identity of the caller.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class CacheKey {
+
+    private static final int IDENTITY_LENGTH = 16;
+
+    /**
+     * length of identity secrets in bytes.
+     */
+    public static final int SECRET_LENGTH = 32;
+
+    private static final String IDENTITY_ALGORITHM = "HmacSHA256";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String path;
+
+    private final String query;
+
+    private final String type;
+
+    private final String identity;
+
+    private final int hashCode;
+
+    /**
+     * default constructor.
+     *
+     * @param path       rest path. (segments joined with /)
+     * @param parameters url parameters or null.
+     * @param type       canonical name of result type.
+     */
+    public CacheKey(final String path, final Map<String, String> parameters, final String type) {
+        this(path, parameters, type, "");
+    }
+
+    /**
+     * constructor for responses which depend on the caller.
+     *
+     * @param path       rest path. (segments joined with /)
+     * @param parameters url parameters or null.
+     * @param type       canonical name of result type.
+     * @param identity   identity of caller, e.g. a hash of its credentials.
+     */
+    public CacheKey(final String path, final Map<String, String> parameters, final String type,
+                    final String identity) {
+        this(path, parameters == null || parameters.isEmpty() ? "" : new TreeMap<>(parameters).toString(), type,
+                identity);
+    }
+
+    private CacheKey(final String path, final String query, final String type, final String identity) {
+        this.path = path;
+        this.query = query;
+        this.type = type;
+        this.identity = identity != null ? identity : "";
+        this.hashCode = 31 * (31 * (31 * path.hashCode() + query.hashCode()) + type.hashCode())
+                + this.identity.hashCode();
+    }
+
+    /**
+     * create key from its parts, e.g. when read from a persistent store.
+     *
+     * @param path     rest path.
+     * @param query    normalized url parameters from {@link #getQuery()}.
+     * @param type     canonical name of result type.
+     * @param identity identity of caller from {@link #getIdentity()}.
+     * @return cache key.
+     */
+    public static CacheKey of(String path, String query, String type, String identity) {
+        return new CacheKey(path, query != null ? query : "", type, identity);
+    }
+
+    /**
+     * derive identity from credentials with an hmac of a secret. without the secret the credentials can not be guessed
+     * from the identity, so it can be stored.
+     *
+     * @param secret      secret, e.g. from {@link #newSecret()}.
+     * @param credentials credentials, e.g. an authorization header value.
+     * @return hex encoded identity.
+     */
+    public static String identityOf(byte[] secret, String credentials) {
+        byte[] hash;
+        try {
+            Mac mac = Mac.getInstance(IDENTITY_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, IDENTITY_ALGORITHM));
+            hash = mac.doFinal(credentials.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new GogsClientException("hmac-sha256 not available", e);
+        }
+        char[] hex = new char[IDENTITY_LENGTH * 2];
+        for (int i = 0; i < IDENTITY_LENGTH; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * create random secret for {@link #identityOf(byte[], String)}.
+     *
+     * @return secret of {@link #SECRET_LENGTH} bytes.
+     */
+    public static byte[] newSecret() {
+        byte[] secret = new byte[SECRET_LENGTH];
+        RANDOM.nextBytes(secret);
+        return secret;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    /**
+     * get key of the same response for another caller.
+     *
+     * @param otherIdentity identity of caller.
+     * @return cache key.
+     */
+    public CacheKey withIdentity(String otherIdentity) {
+        return new CacheKey(path, query, type, otherIdentity);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        return hashCode == other.hashCode && path.equals(other.path) && query.equals(other.query)
+                && type.equals(other.type) && identity.equals(other.identity);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return path + (query.isEmpty() ? "" : query) + " as " + type + (identity.isEmpty() ? "" : " for " + identity);
+    }
+}
@@ -0,0 +1,77 @@
+package de.ayesolutions.gogs.client.cache;
+
+/**
+ * snapshot of cache statistics.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long evictionWeight;
+
+    private final long expirationCount;
+
+    /**
+     * default constructor.
+     *
+     * @param hitCount        number of lookups returning a value.
+     * @param missCount       number of lookups without value.
+     * @param evictionCount   number of entries removed because of size.
+     * @param evictionWeight  weight of entries removed because of size.
+     * @param expirationCount number of entries removed because of time to live.
+     */
+    public CacheStats(final long hitCount, final long missCount, final long evictionCount, final long evictionWeight,
+                      final long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.evictionWeight = evictionWeight;
+        this.expirationCount = expirationCount;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * get ratio of lookups returning a value.
+     *
+     * @return hit ratio between 0 and 1. (1 if there was no lookup)
+     */
+    public double getHitRatio() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getEvictionWeight() {
+        return evictionWeight;
+    }
+
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+                + ", evictionWeight=" + evictionWeight + ", expirationCount=" + expirationCount + "}";
+    }
+}
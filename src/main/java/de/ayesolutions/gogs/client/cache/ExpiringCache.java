@@ -0,0 +1,178 @@
+package de.ayesolutions.gogs.client.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * small thread safe cache with a fixed time to live and least recently used eviction. with a path function the keys
+ * are indexed by rest path for {@link #remove(PathQuery)}.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class ExpiringCache<K, V> {
+
+    private final long timeToLiveNanos;
+
+    private final int maximumSize;
+
+    private final LinkedHashMap<K, Item<V>> entries;
+
+    private final PathIndex<K> paths;
+
+    /**
+     * default constructor.
+     *
+     * @param timeToLive  time to live of entries.
+     * @param unit        time unit of time to live.
+     * @param maximumSize maximum number of entries.
+     */
+    public ExpiringCache(final long timeToLive, final TimeUnit unit, final int maximumSize) {
+        this(timeToLive, unit, maximumSize, null);
+    }
+
+    /**
+     * constructor for a cache with keys indexed by rest path.
+     *
+     * @param timeToLive  time to live of entries.
+     * @param unit        time unit of time to live.
+     * @param maximumSize maximum number of entries.
+     * @param pathOf      rest path of a key or null.
+     */
+    public ExpiringCache(final long timeToLive, final TimeUnit unit, final int maximumSize,
+                         final Function<? super K, String> pathOf) {
+        this.paths = pathOf != null ? new PathIndex<>(pathOf) : null;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.maximumSize = maximumSize;
+        this.entries = new LinkedHashMap<K, Item<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Item<V>> eldest) {
+                if (size() > ExpiringCache.this.maximumSize) {
+                    unindex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * get value if present and not expired.
+     *
+     * @param key key.
+     * @return value or null.
+     */
+    public synchronized V get(K key) {
+        Item<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.created > timeToLiveNanos) {
+            entries.remove(key);
+            unindex(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * add or replace value.
+     *
+     * @param key   key.
+     * @param value value.
+     */
+    public synchronized void put(K key, V value) {
+        if (entries.put(key, new Item<>(value, System.nanoTime())) == null && paths != null) {
+            paths.add(key);
+        }
+    }
+
+    /**
+     * remove value.
+     *
+     * @param key key.
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+        unindex(key);
+    }
+
+    /**
+     * remove all values with matching key.
+     *
+     * @param predicate key filter.
+     */
+    public synchronized void removeIf(Predicate<? super K> predicate) {
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            K key = iterator.next();
+            if (predicate.test(key)) {
+                iterator.remove();
+                unindex(key);
+            }
+        }
+    }
+
+    /**
+     * remove all values with a key of the selected paths. only the keys of these paths are visited.
+     *
+     * @param query path query.
+     * @throws IllegalStateException if the cache has no path function.
+     */
+    public synchronized void remove(PathQuery query) {
+        if (paths == null) {
+            throw new IllegalStateException("cache keys are not indexed by path");
+        }
+        for (K key : paths.select(query)) {
+            entries.remove(key);
+            paths.remove(key);
+        }
+    }
+
+    /**
+     * remove all values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        if (paths != null) {
+            paths.clear();
+        }
+    }
+
+    /**
+     * get number of entries including expired ones not yet removed.
+     *
+     * @return number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void unindex(K key) {
+        if (paths != null) {
+            paths.remove(key);
+        }
+    }
+
+    /**
+     * cached value with creation time.
+     *
+     * @param <V> value type.
+     */
+    private static final class Item<V> {
+
+        private final V value;
+
+        private final long created;
+
+        private Item(final V value, final long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package de.ayesolutions.gogs.client.cache;
+
+/**
+ * count-min sketch with 4 bit counters to estimate how often a key was requested.
+ * <p>
+ * every key maps to four counters in one {@code long} word per hash function, the estimate is the minimum of the
+ * counters. after a sample period all counters are halved, so the estimate reflects recent usage.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final int MAXIMUM_COUNT = 15;
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    private long[] table;
+
+    private int tableMask;
+
+    private int sampleSize;
+
+    private int size;
+
+    FrequencySketch() {
+        ensureCapacity(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * grow table for expected number of keys. counters are reset if the table grows.
+     *
+     * @param maximumSize expected number of keys.
+     */
+    void ensureCapacity(int maximumSize) {
+        int capacity = Integer.highestOneBit(Math.max(maximumSize, MINIMUM_CAPACITY) - 1) << 1;
+        if (table != null && table.length >= capacity) {
+            return;
+        }
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = 10 * capacity;
+        size = 0;
+    }
+
+    int tableSize() {
+        return table.length;
+    }
+
+    /**
+     * estimated number of requests of key.
+     *
+     * @param key key.
+     * @return frequency between 0 and 15.
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAXIMUM_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * record request of key.
+     *
+     * @param key key.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size >>>= 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long value = (hash + SEEDS[i]) * SEEDS[i];
+        value += value >>> 32;
+        return ((int) value) & tableMask;
+    }
+
+    private static int spread(int hash) {
+        int value = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        value = ((value >>> 16) ^ value) * 0x45d9f3b;
+        return (value >>> 16) ^ value;
+    }
+}
@@ -0,0 +1,326 @@
+package de.ayesolutions.gogs.client.cache;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Markdown;
+import de.ayesolutions.gogs.client.service.MiscellaneousService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * cache for markdown rendered by the server.
+ * <p>
+ * rendered html is stored under the sha-256 hash of mode, context and text, so the cache needs no invalidation and
+ * equal texts of different issues share one entry. entries are kept in a weight bounded {@link NearCache} and
+ * optionally as files in a directory. the files are limited by their total size, when the limit is exceeded the least
+ * recently used files are deleted down to three quarters of the limit. concurrent requests for the same text wait for
+ * a single server request.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class MarkdownCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MarkdownCache.class);
+
+    private static final String RAW_MODE = "raw";
+
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * default maximum size of html files in bytes.
+     */
+    public static final long DEFAULT_DIRECTORY_SIZE = 64L * 1024 * 1024;
+
+    private static final String FILE_SUFFIX = ".html";
+
+    private final MiscellaneousService service;
+
+    private final NearCache<String, String> cache;
+
+    private final Path directory;
+
+    private final long maximumDirectorySize;
+
+    /**
+     * size of html files in bytes, computed on first write.
+     */
+    private final AtomicLong directorySize = new AtomicLong(-1);
+
+    private final ConcurrentMap<String, CompletableFuture<String>> rendering = new ConcurrentHashMap<>();
+
+    /**
+     * default constructor.
+     *
+     * @param service       service for server side rendering.
+     * @param maximumWeight maximum size of cached html in bytes.
+     */
+    public MarkdownCache(final MiscellaneousService service, final long maximumWeight) {
+        this(service, maximumWeight, null);
+    }
+
+    /**
+     * constructor with directory for rendered html of at most {@link #DEFAULT_DIRECTORY_SIZE} bytes.
+     *
+     * @param service       service for server side rendering.
+     * @param maximumWeight maximum size of html kept in memory in bytes.
+     * @param directory     directory for html files or null.
+     */
+    public MarkdownCache(final MiscellaneousService service, final long maximumWeight, final Path directory) {
+        this(service, maximumWeight, directory, DEFAULT_DIRECTORY_SIZE);
+    }
+
+    /**
+     * constructor with directory for rendered html.
+     *
+     * @param service              service for server side rendering.
+     * @param maximumWeight        maximum size of html kept in memory in bytes.
+     * @param directory            directory for html files or null.
+     * @param maximumDirectorySize maximum size of html files in bytes.
+     */
+    public MarkdownCache(final MiscellaneousService service, final long maximumWeight, final Path directory,
+                         final long maximumDirectorySize) {
+        this.service = service;
+        this.cache = new NearCache<>(maximumWeight, (key, value) -> value.length() * 2 + ENTRY_OVERHEAD);
+        this.directory = directory;
+        this.maximumDirectorySize = maximumDirectorySize;
+    }
+
+    /**
+     * render markdown to html.
+     *
+     * @param markdown markdown definition.
+     * @return html rendered markdown.
+     */
+    public String render(Markdown markdown) {
+        return render(hash(markdown.getMode(), markdown.getContext(), markdown.getText()),
+                () -> service.renderMarkdown(markdown));
+    }
+
+    /**
+     * render raw markdown text to html.
+     *
+     * @param text markdown text.
+     * @return html rendered markdown.
+     */
+    public String renderRaw(String text) {
+        return render(hash(RAW_MODE, null, text), () -> service.renderMarkdownRaw(text));
+    }
+
+    /**
+     * get cache statistics.
+     *
+     * @return statistics of in memory cache.
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * render with cached html of hash.
+     *
+     * @param hash     content hash.
+     * @param renderer server side rendering.
+     * @return html.
+     */
+    String render(String hash, Renderer renderer) {
+        String html = lookup(hash);
+        if (html != null) {
+            return html;
+        }
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> running = rendering.putIfAbsent(hash, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            html = lookup(hash);
+            if (html == null) {
+                html = renderer.render();
+                if (html != null) {
+                    cache.put(hash, html, NO_EXPIRY);
+                    store(hash, html);
+                }
+            }
+            future.complete(html);
+            return html;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(hash, future);
+        }
+    }
+
+    private String lookup(String hash) {
+        String html = cache.get(hash);
+        if (html == null && directory != null) {
+            html = load(hash);
+            if (html != null) {
+                cache.put(hash, html, NO_EXPIRY);
+            }
+        }
+        return html;
+    }
+
+    private String load(String hash) {
+        Path file = file(hash);
+        try {
+            String html = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return html;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("could not read rendered markdown " + hash, e);
+            return null;
+        }
+    }
+
+    private void store(String hash, String html) {
+        if (directory == null) {
+            return;
+        }
+        Path file = file(hash);
+        byte[] data = html.getBytes(StandardCharsets.UTF_8);
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), hash, ".tmp");
+            Files.write(temporary, data);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("could not write rendered markdown " + hash, e);
+            return;
+        }
+
+        long size = directorySize.get() < 0 ? -1 : directorySize.addAndGet(data.length);
+        if (size < 0 || size > maximumDirectorySize) {
+            trim();
+        }
+    }
+
+    /**
+     * compute size of html files and delete least recently used files if the size exceeds the maximum.
+     */
+    private synchronized void trim() {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(directory, 2)) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            LOG.warn("could not list rendered markdown in " + directory, e);
+            return;
+        }
+
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        long size = 0;
+        for (Path file : files) {
+            try {
+                BasicFileAttributes fileAttributes = Files.readAttributes(file, BasicFileAttributes.class);
+                attributes.put(file, fileAttributes);
+                size += fileAttributes.size();
+            } catch (NoSuchFileException e) {
+                LOG.debug("rendered markdown " + file + " deleted while trimming", e);
+            } catch (IOException e) {
+                LOG.warn("could not read size of rendered markdown " + file, e);
+            }
+        }
+
+        if (size > maximumDirectorySize) {
+            List<Path> leastRecentlyUsed = new ArrayList<>(attributes.keySet());
+            leastRecentlyUsed.sort(Comparator.comparing(file -> attributes.get(file).lastModifiedTime()));
+            long target = maximumDirectorySize / 4 * 3;
+            for (Path file : leastRecentlyUsed) {
+                if (size <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(file);
+                    size -= attributes.get(file).size();
+                } catch (IOException e) {
+                    LOG.warn("could not delete rendered markdown " + file, e);
+                }
+            }
+        }
+        directorySize.set(size);
+    }
+
+    private Path file(String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + FILE_SUFFIX);
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GogsClientException("could not render markdown", e.getCause());
+        }
+    }
+
+    /**
+     * sha-256 of length prefixed parts.
+     *
+     * @param parts parts, null is different from an empty string.
+     * @return hex encoded hash.
+     */
+    static String hash(String... parts) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new GogsClientException("sha-256 not available", e);
+        }
+        for (String part : parts) {
+            byte[] bytes = part != null ? part.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            digest.update(ByteBuffer.allocate(4).putInt(part != null ? bytes.length : -1).array());
+            digest.update(bytes);
+        }
+
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * server side rendering.
+     */
+    @FunctionalInterface
+    interface Renderer {
+        String render();
+    }
+}
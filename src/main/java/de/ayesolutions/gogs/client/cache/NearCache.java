@@ -0,0 +1,529 @@
+package de.ayesolutions.gogs.client.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * weight bounded in memory cache with frequency based admission (W-TinyLFU).
+ * <p>
+ * new entries are added to a small admission window (1% of the maximum weight). entries leaving the window only
+ * replace an entry of the main area if their key was requested more often, the request frequency is estimated with
+ * a {@link FrequencySketch}. the main area is a segmented lru: entries start in the probation segment and are moved
+ * to the protected segment (80% of the main area) on their next hit. so keys requested once, e.g. by a scan over all
+ * repositories, do not replace the keys requested over and over.
+ * <p>
+ * every entry has its own time to live. expired entries are removed on access or preferred for eviction. entries can
+ * additionally have an earlier refresh time, after which {@link #getEntry(Object)} still returns them but marks them
+ * as stale.
+ * <p>
+ * with a path function the keys are indexed by rest path, so {@link #invalidate(PathQuery)} only visits the keys of
+ * the selected paths.
+ *
+ * @param <K> key type.
+ * @param <V> value type.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class NearCache<K, V> {
+
+    private static final int WINDOW = 0;
+
+    private static final int PROBATION = 1;
+
+    private static final int PROTECTED = 2;
+
+    private final long maximumWeight;
+
+    private final long windowMaximum;
+
+    private final long protectedMaximum;
+
+    private final ToIntBiFunction<K, V> weigher;
+
+    private final LongSupplier ticker;
+
+    private final PathIndex<K> paths;
+
+    private final Map<K, Node<K, V>> nodes = new HashMap<>();
+
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Queue<K, V>[] queues = new Queue[]{new Queue<>(), new Queue<>(), new Queue<>()};
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long evictionWeight;
+
+    private long expirationCount;
+
+    /**
+     * default constructor.
+     *
+     * @param maximumWeight maximum sum of entry weights.
+     * @param weigher       weight of an entry. (e.g. size in bytes)
+     */
+    public NearCache(final long maximumWeight, final ToIntBiFunction<K, V> weigher) {
+        this(maximumWeight, weigher, null, System::nanoTime);
+    }
+
+    /**
+     * constructor for a cache with keys indexed by rest path.
+     *
+     * @param maximumWeight maximum sum of entry weights.
+     * @param weigher       weight of an entry. (e.g. size in bytes)
+     * @param pathOf        rest path of a key.
+     */
+    public NearCache(final long maximumWeight, final ToIntBiFunction<K, V> weigher,
+                     final Function<? super K, String> pathOf) {
+        this(maximumWeight, weigher, pathOf, System::nanoTime);
+    }
+
+    NearCache(final long maximumWeight, final ToIntBiFunction<K, V> weigher, final LongSupplier ticker) {
+        this(maximumWeight, weigher, null, ticker);
+    }
+
+    NearCache(final long maximumWeight, final ToIntBiFunction<K, V> weigher, final Function<? super K, String> pathOf,
+              final LongSupplier ticker) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("maximum weight must be at least 1");
+        }
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 8 / 10;
+        this.weigher = weigher;
+        this.ticker = ticker;
+        this.paths = pathOf != null ? new PathIndex<>(pathOf) : null;
+    }
+
+    /**
+     * get value if present and not expired.
+     *
+     * @param key key.
+     * @return value or null.
+     */
+    public synchronized V get(K key) {
+        Node<K, V> node = lookup(key, ticker.getAsLong());
+        return node != null ? node.value : null;
+    }
+
+    /**
+     * get value with its refresh state if present and not expired.
+     *
+     * @param key key.
+     * @return entry or null.
+     */
+    public synchronized Entry<V> getEntry(K key) {
+        long now = ticker.getAsLong();
+        Node<K, V> node = lookup(key, now);
+        return node != null ? new Entry<>(node.value, now - node.refreshAt >= 0, now - node.written) : null;
+    }
+
+    /**
+     * add or replace value. values heavier than the maximum weight are not cached.
+     *
+     * @param key        key.
+     * @param value      value.
+     * @param timeToLive time to live in nanoseconds.
+     */
+    public void put(K key, V value, long timeToLive) {
+        put(key, value, timeToLive, timeToLive);
+    }
+
+    /**
+     * add or replace value which becomes stale before it expires. values heavier than the maximum weight are not
+     * cached.
+     *
+     * @param key          key.
+     * @param value        value.
+     * @param refreshAfter time in nanoseconds after which the value is stale.
+     * @param timeToLive   time to live in nanoseconds.
+     */
+    public synchronized void put(K key, V value, long refreshAfter, long timeToLive) {
+        int weight = weigher.applyAsInt(key, value);
+        long now = ticker.getAsLong();
+        long expires = now + timeToLive;
+        long refreshAt = now + Math.min(refreshAfter, timeToLive);
+
+        Node<K, V> node = nodes.get(key);
+        if (node != null) {
+            queues[node.queue].weight += weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            node.expires = expires;
+            node.refreshAt = refreshAt;
+            node.written = now;
+            onHit(node);
+        } else {
+            if (weight > maximumWeight) {
+                return;
+            }
+            node = new Node<>(key, value, weight, expires);
+            node.refreshAt = refreshAt;
+            node.written = now;
+            nodes.put(key, node);
+            if (paths != null) {
+                paths.add(key);
+            }
+            queues[WINDOW].addLast(node, WINDOW);
+            sketch.ensureCapacity(nodes.size());
+        }
+        evict();
+    }
+
+    /**
+     * keep a stale value longer, e.g. when it could not be refreshed. the value is stale again after the refresh
+     * time and expires not before the specified age.
+     *
+     * @param key          key.
+     * @param refreshAfter time in nanoseconds after which the value is stale again.
+     * @param maximumAge   age of the value in nanoseconds up to which it is kept.
+     * @return true if value is present and not expired.
+     */
+    public synchronized boolean extend(K key, long refreshAfter, long maximumAge) {
+        long now = ticker.getAsLong();
+        Node<K, V> node = nodes.get(key);
+        if (node == null || node.isExpired(now)) {
+            return false;
+        }
+        node.expires = Math.max(node.expires, node.written + maximumAge);
+        node.refreshAt = now + refreshAfter;
+        if (node.refreshAt - node.expires > 0) {
+            node.refreshAt = node.expires;
+        }
+        return true;
+    }
+
+    /**
+     * remove value.
+     *
+     * @param key key.
+     */
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = nodes.get(key);
+        if (node != null) {
+            remove(node);
+        }
+    }
+
+    /**
+     * remove all values with matching key.
+     *
+     * @param predicate key filter.
+     * @return number of removed values.
+     */
+    public synchronized int invalidateIf(Predicate<? super K> predicate) {
+        List<Node<K, V>> matches = new ArrayList<>();
+        for (Node<K, V> node : nodes.values()) {
+            if (predicate.test(node.key)) {
+                matches.add(node);
+            }
+        }
+        for (Node<K, V> node : matches) {
+            remove(node);
+        }
+        return matches.size();
+    }
+
+    /**
+     * remove all values with a key of the selected paths. only the keys of these paths are visited.
+     *
+     * @param query path query.
+     * @return number of removed values.
+     * @throws IllegalStateException if the cache has no path function.
+     */
+    public synchronized int invalidate(PathQuery query) {
+        if (paths == null) {
+            throw new IllegalStateException("cache keys are not indexed by path");
+        }
+        int count = 0;
+        for (K key : paths.select(query)) {
+            Node<K, V> node = nodes.get(key);
+            if (node != null) {
+                remove(node);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * remove all values.
+     */
+    public synchronized void clear() {
+        nodes.clear();
+        if (paths != null) {
+            paths.clear();
+        }
+        for (Queue<K, V> queue : queues) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * get number of entries including expired ones not yet removed.
+     *
+     * @return number of entries.
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * get sum of entry weights.
+     *
+     * @return weight.
+     */
+    public synchronized long weightedSize() {
+        return queues[WINDOW].weight + queues[PROBATION].weight + queues[PROTECTED].weight;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * get statistics since creation.
+     *
+     * @return statistics.
+     */
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, evictionWeight, expirationCount);
+    }
+
+    private Node<K, V> lookup(K key, long now) {
+        sketch.increment(key);
+        Node<K, V> node = nodes.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        if (node.isExpired(now)) {
+            remove(node);
+            expirationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        onHit(node);
+        return node;
+    }
+
+    private void onHit(Node<K, V> node) {
+        if (node.queue == PROBATION) {
+            queues[PROBATION].remove(node);
+            queues[PROTECTED].addLast(node, PROTECTED);
+            while (queues[PROTECTED].weight > protectedMaximum && queues[PROTECTED].head != node) {
+                Node<K, V> demoted = queues[PROTECTED].head;
+                queues[PROTECTED].remove(demoted);
+                queues[PROBATION].addLast(demoted, PROBATION);
+            }
+        } else {
+            queues[node.queue].moveToLast(node);
+        }
+    }
+
+    private void evict() {
+        List<Node<K, V>> candidates = new ArrayList<>();
+        while (queues[WINDOW].weight > windowMaximum && queues[WINDOW].head != null) {
+            Node<K, V> candidate = queues[WINDOW].head;
+            queues[WINDOW].remove(candidate);
+            queues[PROBATION].addLast(candidate, PROBATION);
+            candidates.add(candidate);
+        }
+
+        long now = ticker.getAsLong();
+        for (Node<K, V> candidate : candidates) {
+            while (weightedSize() > maximumWeight && candidate.queue >= 0) {
+                Node<K, V> victim = victim(candidate);
+                if (victim == null || candidate.isExpired(now)) {
+                    evict(candidate, now);
+                } else if (victim.isExpired(now) || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                    evict(victim, now);
+                } else {
+                    evict(candidate, now);
+                }
+            }
+        }
+
+        while (weightedSize() > maximumWeight) {
+            Node<K, V> victim = queues[PROBATION].head != null ? queues[PROBATION].head
+                    : queues[PROTECTED].head != null ? queues[PROTECTED].head : queues[WINDOW].head;
+            evict(victim, now);
+        }
+    }
+
+    /**
+     * least recently used entry of the main area other than the candidate.
+     */
+    private Node<K, V> victim(Node<K, V> candidate) {
+        Node<K, V> victim = queues[PROBATION].head;
+        if (victim == candidate) {
+            victim = victim.next;
+        }
+        if (victim == null) {
+            victim = queues[PROTECTED].head;
+        }
+        return victim;
+    }
+
+    private void evict(Node<K, V> node, long now) {
+        if (node.isExpired(now)) {
+            expirationCount++;
+        } else {
+            evictionCount++;
+            evictionWeight += node.weight;
+        }
+        remove(node);
+    }
+
+    private void remove(Node<K, V> node) {
+        nodes.remove(node.key);
+        if (paths != null) {
+            paths.remove(node.key);
+        }
+        queues[node.queue].remove(node);
+        node.queue = -1;
+    }
+
+    /**
+     * cache entry as node of a doubly linked queue.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private V value;
+
+        private int weight;
+
+        private long expires;
+
+        private long refreshAt;
+
+        private long written;
+
+        private int queue;
+
+        private Node<K, V> previous;
+
+        private Node<K, V> next;
+
+        private Node(final K key, final V value, final int weight, final long expires) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expires = expires;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expires >= 0;
+        }
+    }
+
+    /**
+     * cached value with its refresh state.
+     *
+     * @param <V> value type.
+     */
+    public static final class Entry<V> {
+
+        private final V value;
+
+        private final boolean stale;
+
+        private final long age;
+
+        private Entry(final V value, final boolean stale, final long age) {
+            this.value = value;
+            this.stale = stale;
+            this.age = age;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        /**
+         * check if the refresh time has passed.
+         *
+         * @return true if value should be refreshed.
+         */
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * get time since the value was added or replaced.
+         *
+         * @return age in nanoseconds.
+         */
+        public long getAge() {
+            return age;
+        }
+    }
+
+    /**
+     * lru ordered queue, head is the least recently used entry.
+     */
+    private static final class Queue<K, V> {
+
+        private Node<K, V> head;
+
+        private Node<K, V> tail;
+
+        private long weight;
+
+        private void addLast(Node<K, V> node, int queue) {
+            node.queue = queue;
+            node.previous = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        private void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                head = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        private void moveToLast(Node<K, V> node) {
+            if (tail != node) {
+                int queue = node.queue;
+                remove(node);
+                addLast(node, queue);
+            }
+        }
+
+        private void clear() {
+            head = null;
+            tail = null;
+            weight = 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package de.ayesolutions.gogs.client.cache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * index of cache keys by rest path. paths are sorted, so the keys of a path and of all paths below are one range
+ * and the paths above are looked up segment by segment. not thread safe, the owning cache guards it with its lock.
+ *
+ * @param <K> key type.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+final class PathIndex<K> {
+
+    /**
+     * next character after the path separator.
+     */
+    private static final char AFTER_SEPARATOR = '/' + 1;
+
+    private final Function<? super K, String> pathOf;
+
+    private final TreeMap<String, Set<K>> keys = new TreeMap<>();
+
+    PathIndex(final Function<? super K, String> pathOf) {
+        this.pathOf = pathOf;
+    }
+
+    void add(K key) {
+        keys.computeIfAbsent(pathOf.apply(key), path -> new HashSet<>()).add(key);
+    }
+
+    void remove(K key) {
+        String path = pathOf.apply(key);
+        Set<K> pathKeys = keys.get(path);
+        if (pathKeys != null && pathKeys.remove(key) && pathKeys.isEmpty()) {
+            keys.remove(path);
+        }
+    }
+
+    void clear() {
+        keys.clear();
+    }
+
+    /**
+     * get keys of all selected paths.
+     *
+     * @param query path query.
+     * @return keys.
+     */
+    Set<K> select(PathQuery query) {
+        Set<K> result = new LinkedHashSet<>();
+        for (String path : query.getPaths()) {
+            addKeys(path, result);
+        }
+        for (String path : query.getTrees()) {
+            addTree(path, result);
+        }
+        for (String path : query.getBranches()) {
+            addTree(path, result);
+            for (int i = path.indexOf('/'); i > 0; i = path.indexOf('/', i + 1)) {
+                addKeys(path.substring(0, i), result);
+            }
+        }
+        if (!query.getSuffixes().isEmpty()) {
+            for (Map.Entry<String, Set<K>> entry : keys.entrySet()) {
+                for (String suffix : query.getSuffixes()) {
+                    if (entry.getKey().endsWith(suffix)) {
+                        result.addAll(entry.getValue());
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addTree(String path, Collection<K> result) {
+        addKeys(path, result);
+        for (Set<K> below : keys.subMap(path + '/', true, path + AFTER_SEPARATOR, false).values()) {
+            result.addAll(below);
+        }
+    }
+
+    private void addKeys(String path, Collection<K> result) {
+        Set<K> pathKeys = keys.get(path);
+        if (pathKeys != null) {
+            result.addAll(pathKeys);
+        }
+    }
+}
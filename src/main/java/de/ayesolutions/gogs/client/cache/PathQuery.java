@@ -0,0 +1,135 @@
+package de.ayesolutions.gogs.client.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * selection of rest paths to invalidate. caches with a path index look up the selected keys instead of checking all
+ * keys.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class PathQuery {
+
+    private final Set<String> paths = new LinkedHashSet<>();
+
+    private final Set<String> trees = new LinkedHashSet<>();
+
+    private final Set<String> branches = new LinkedHashSet<>();
+
+    private final Set<String> suffixes = new LinkedHashSet<>();
+
+    /**
+     * create query for exactly one path.
+     *
+     * @param path rest path. (segments joined with /)
+     * @return path query.
+     */
+    public static PathQuery path(String path) {
+        PathQuery query = new PathQuery();
+        query.addPath(path);
+        return query;
+    }
+
+    /**
+     * create query for a path and all paths below.
+     *
+     * @param path rest path. (segments joined with /)
+     * @return path query.
+     */
+    public static PathQuery tree(String path) {
+        PathQuery query = new PathQuery();
+        query.addTree(path);
+        return query;
+    }
+
+    /**
+     * select exactly this path.
+     *
+     * @param path rest path.
+     */
+    public void addPath(String path) {
+        paths.add(path);
+    }
+
+    /**
+     * select path and all paths below.
+     *
+     * @param path rest path.
+     */
+    public void addTree(String path) {
+        trees.add(path);
+    }
+
+    /**
+     * select path, all paths below and all paths above.
+     *
+     * @param path rest path.
+     */
+    public void addBranch(String path) {
+        branches.add(path);
+    }
+
+    /**
+     * select all paths ending with suffix. an index checks every indexed path for a suffix, so suffixes should only
+     * be used for rare requests.
+     *
+     * @param suffix path suffix. (e.g. /repos)
+     */
+    public void addSuffix(String suffix) {
+        suffixes.add(suffix);
+    }
+
+    /**
+     * check if path is selected.
+     *
+     * @param path rest path.
+     * @return true if selected.
+     */
+    public boolean matches(String path) {
+        if (paths.contains(path)) {
+            return true;
+        }
+        for (String tree : trees) {
+            if (isAtOrBelow(path, tree)) {
+                return true;
+            }
+        }
+        for (String branch : branches) {
+            if (isAtOrBelow(path, branch) || isAtOrBelow(branch, path)) {
+                return true;
+            }
+        }
+        for (String suffix : suffixes) {
+            if (path.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<String> getPaths() {
+        return paths;
+    }
+
+    Set<String> getTrees() {
+        return trees;
+    }
+
+    Set<String> getBranches() {
+        return branches;
+    }
+
+    Set<String> getSuffixes() {
+        return suffixes;
+    }
+
+    private static boolean isAtOrBelow(String path, String other) {
+        return path.startsWith(other) && (path.length() == other.length() || path.charAt(other.length()) == '/');
+    }
+
+    @Override
+    public String toString() {
+        return "paths " + paths + ", trees " + trees + ", branches " + branches + ", suffixes " + suffixes;
+    }
+}
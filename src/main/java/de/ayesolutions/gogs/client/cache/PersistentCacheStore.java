@@ -0,0 +1,505 @@
+package de.ayesolutions.gogs.client.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.snapshot.SnapshotCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * persistent store for cached GET responses in a memory mapped file of fixed size.
+ * <p>
+ * responses are stored smile encoded (see {@link SnapshotCodec}) with their etag and the time of the last
+ * validation. the file is an append only log of records, each with length, generation and crc32. when the file is
+ * opened the records are read up to the first incomplete or damaged record, so a crash loses at most the last
+ * records. if the file is full the live records are rewritten to the start of the file with a new generation and the
+ * oldest records are dropped until a quarter of the file is free. records of an interrupted rewrite are recognized
+ * by their old generation.
+ * <p>
+ * the header holds a random secret for the identities of stored responses (see
+ * {@link CacheKey#identityOf(byte[], String)}), so they stay valid after a restart but can not be matched with
+ * precomputed hashes of credentials or identities of other stores. the file should still be readable by its owner
+ * only.
+ * <p>
+ * only the keys and record positions are kept on the heap. the keys are indexed by rest path for
+ * {@link #remove(PathQuery)}.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PersistentCacheStore implements Closeable {
+
+    private static final int MAGIC = 0x47474353;
+
+    private static final int VERSION = 3;
+
+    /**
+     * magic, version, generation, reserved int and identity secret.
+     */
+    private static final int HEADER_LENGTH = 16 + CacheKey.SECRET_LENGTH;
+
+    /**
+     * payload length, generation and crc of payload.
+     */
+    private static final int RECORD_HEADER_LENGTH = 12;
+
+    private static final int MINIMUM_CAPACITY = 4096;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final int capacity;
+
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    private final JavaType nodeType;
+
+    private final Map<CacheKey, Integer> index = new HashMap<>();
+
+    private final PathIndex<CacheKey> paths = new PathIndex<>(CacheKey::getPath);
+
+    private final byte[] secret;
+
+    private int generation;
+
+    private int position;
+
+    /**
+     * open or create store.
+     *
+     * @param path     file path.
+     * @param capacity file size in bytes.
+     * @throws IOException if file could not be opened.
+     */
+    public PersistentCacheStore(final Path path, final int capacity) throws IOException {
+        if (capacity < MINIMUM_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be at least " + MINIMUM_CAPACITY);
+        }
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.nodeType = codec.getObjectMapper().constructType(JsonNode.class);
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION) {
+            generation = buffer.getInt(8);
+            secret = new byte[CacheKey.SECRET_LENGTH];
+            ByteBuffer header = buffer.duplicate();
+            header.position(16);
+            header.get(secret);
+            recover();
+        } else {
+            generation = 1;
+            secret = CacheKey.newSecret();
+            writeHeader();
+            position = HEADER_LENGTH;
+            buffer.putInt(position, 0);
+        }
+    }
+
+    /**
+     * get secret for identities of stored responses.
+     *
+     * @return secret.
+     */
+    public byte[] getIdentitySecret() {
+        return secret.clone();
+    }
+
+    /**
+     * get stored response.
+     *
+     * @param key cache key.
+     * @return entry or null.
+     */
+    public synchronized Entry get(CacheKey key) {
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return null;
+        }
+
+        ByteBuffer record = payload(offset);
+        record.get();
+        readString(record);
+        readString(record);
+        readString(record);
+        readString(record);
+        String etag = readString(record);
+        long timestamp = record.getLong();
+        byte[] data = new byte[record.getInt()];
+        record.get(data);
+
+        try {
+            return new Entry(etag, timestamp, JSON.writeValueAsBytes(codec.<JsonNode>decode(data, nodeType)));
+        } catch (IOException | GogsClientException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * store json response. responses larger than half of the file are not stored.
+     *
+     * @param key       cache key.
+     * @param etag      etag of response or null.
+     * @param timestamp time of validation in milliseconds.
+     * @param json      json response.
+     */
+    public synchronized void put(CacheKey key, String etag, long timestamp, byte[] json) {
+        byte[] data;
+        try {
+            data = codec.encode(JSON.readTree(json));
+        } catch (IOException | GogsClientException e) {
+            remove(key);
+            return;
+        }
+
+        byte[][] strings = {utf8(key.getPath()), utf8(key.getQuery()), utf8(key.getType()), utf8(key.getIdentity()),
+                utf8(etag)};
+        int length = 1 + 8 + 4 + data.length;
+        for (byte[] string : strings) {
+            length += 4 + (string != null ? string.length : 0);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.put(PUT);
+        for (byte[] string : strings) {
+            writeString(payload, string);
+        }
+        payload.putLong(timestamp);
+        payload.putInt(data.length);
+        payload.put(data);
+
+        Integer offset = append(payload.array());
+        if (offset == null) {
+            remove(key);
+        } else if (index.put(key, offset) == null) {
+            paths.add(key);
+        }
+    }
+
+    /**
+     * update validation time of stored response.
+     *
+     * @param key       cache key.
+     * @param timestamp time of validation in milliseconds.
+     */
+    public synchronized void touch(CacheKey key, long timestamp) {
+        Integer offset = index.get(key);
+        if (offset == null) {
+            return;
+        }
+        ByteBuffer record = payload(offset);
+        byte[] data = new byte[record.remaining()];
+        record.get(data);
+
+        ByteBuffer payload = ByteBuffer.wrap(data);
+        payload.get();
+        readString(payload);
+        readString(payload);
+        readString(payload);
+        readString(payload);
+        readString(payload);
+        payload.putLong(timestamp);
+
+        Integer moved = append(data);
+        if (moved == null) {
+            remove(key);
+        } else {
+            index.put(key, moved);
+        }
+    }
+
+    /**
+     * remove stored response.
+     *
+     * @param key cache key.
+     */
+    public synchronized void remove(CacheKey key) {
+        if (!index.containsKey(key)) {
+            return;
+        }
+        byte[][] strings = {utf8(key.getPath()), utf8(key.getQuery()), utf8(key.getType()), utf8(key.getIdentity())};
+        int length = 1;
+        for (byte[] string : strings) {
+            length += 4 + string.length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        payload.put(REMOVE);
+        for (byte[] string : strings) {
+            writeString(payload, string);
+        }
+        index.remove(key);
+        paths.remove(key);
+        append(payload.array());
+    }
+
+    /**
+     * remove all stored responses with matching key.
+     *
+     * @param predicate key filter.
+     * @return number of removed responses.
+     */
+    public synchronized int removeIf(Predicate<? super CacheKey> predicate) {
+        List<CacheKey> matches = new ArrayList<>();
+        for (CacheKey key : index.keySet()) {
+            if (predicate.test(key)) {
+                matches.add(key);
+            }
+        }
+        for (CacheKey key : matches) {
+            remove(key);
+        }
+        return matches.size();
+    }
+
+    /**
+     * remove all stored responses with a key of the selected paths. only the keys of these paths are visited.
+     *
+     * @param query path query.
+     * @return number of removed responses.
+     */
+    public synchronized int remove(PathQuery query) {
+        int count = 0;
+        for (CacheKey key : paths.select(query)) {
+            remove(key);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * get number of stored responses.
+     *
+     * @return number of responses.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * write changes to disk and close file.
+     *
+     * @throws IOException if file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * append record, rewrite file if it is full.
+     *
+     * @return offset of record or null if record does not fit.
+     */
+    private Integer append(byte[] payload) {
+        int recordLength = RECORD_HEADER_LENGTH + payload.length;
+        if (recordLength > (capacity - HEADER_LENGTH) / 2) {
+            return null;
+        }
+        if (position + recordLength + 4 > capacity) {
+            compact(recordLength);
+        }
+
+        int offset = position;
+        write(offset, payload);
+        position += recordLength;
+        return offset;
+    }
+
+    private void write(int offset, byte[] payload) {
+        int next = offset + RECORD_HEADER_LENGTH + payload.length;
+        if (next + 4 <= capacity) {
+            buffer.putInt(next, 0);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer target = buffer.duplicate();
+        target.position(offset + RECORD_HEADER_LENGTH);
+        target.put(payload);
+        buffer.putInt(offset + 4, generation);
+        buffer.putInt(offset + 8, (int) crc.getValue());
+        buffer.putInt(offset, payload.length);
+    }
+
+    /**
+     * rewrite live records to start of file with new generation. oldest records are dropped until a quarter of the
+     * file is free besides the required space.
+     */
+    private void compact(int required) {
+        TreeMap<Integer, CacheKey> live = new TreeMap<>();
+        for (Map.Entry<CacheKey, Integer> entry : index.entrySet()) {
+            live.put(entry.getValue(), entry.getKey());
+        }
+
+        long total = 0;
+        for (Integer offset : live.keySet()) {
+            total += recordLength(offset);
+        }
+        long limit = (capacity - HEADER_LENGTH) * 3L / 4 - required;
+        while (total > limit && !live.isEmpty()) {
+            Map.Entry<Integer, CacheKey> oldest = live.pollFirstEntry();
+            total -= recordLength(oldest.getKey());
+            index.remove(oldest.getValue());
+            paths.remove(oldest.getValue());
+        }
+
+        List<byte[]> payloads = new ArrayList<>();
+        for (Integer offset : live.keySet()) {
+            ByteBuffer record = payload(offset);
+            byte[] payload = new byte[record.remaining()];
+            record.get(payload);
+            payloads.add(payload);
+        }
+
+        generation++;
+        writeHeader();
+        position = HEADER_LENGTH;
+        buffer.putInt(position, 0);
+        int i = 0;
+        for (CacheKey key : live.values()) {
+            byte[] payload = payloads.get(i++);
+            write(position, payload);
+            index.put(key, position);
+            position += RECORD_HEADER_LENGTH + payload.length;
+        }
+    }
+
+    /**
+     * read all valid records of current generation.
+     */
+    private void recover() {
+        position = HEADER_LENGTH;
+        while (position + RECORD_HEADER_LENGTH <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_LENGTH + length > capacity
+                    || buffer.getInt(position + 4) != generation) {
+                break;
+            }
+
+            ByteBuffer record = payload(position);
+            CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 8)) {
+                break;
+            }
+
+            byte kind = record.get();
+            CacheKey key = CacheKey.of(readString(record), readString(record), readString(record),
+                    readString(record));
+            if (kind == PUT) {
+                if (index.put(key, position) == null) {
+                    paths.add(key);
+                }
+            } else if (index.remove(key) != null) {
+                paths.remove(key);
+            }
+            position += RECORD_HEADER_LENGTH + length;
+        }
+        if (position + 4 <= capacity) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, generation);
+        buffer.putInt(12, 0);
+        ByteBuffer header = buffer.duplicate();
+        header.position(16);
+        header.put(secret);
+    }
+
+    private int recordLength(int offset) {
+        return RECORD_HEADER_LENGTH + buffer.getInt(offset);
+    }
+
+    private ByteBuffer payload(int offset) {
+        ByteBuffer record = buffer.duplicate();
+        record.limit(offset + RECORD_HEADER_LENGTH + buffer.getInt(offset));
+        record.position(offset + RECORD_HEADER_LENGTH);
+        return record.slice();
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeString(ByteBuffer target, byte[] value) {
+        if (value == null) {
+            target.putInt(-1);
+        } else {
+            target.putInt(value.length);
+            target.put(value);
+        }
+    }
+
+    private static String readString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        source.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * stored response.
+     */
+    public static final class Entry {
+
+        private final String etag;
+
+        private final long timestamp;
+
+        private final byte[] data;
+
+        private Entry(final String etag, final long timestamp, final byte[] data) {
+            this.etag = etag;
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * get json response.
+         *
+         * @return json bytes.
+         */
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package de.ayesolutions.gogs.client.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import de.ayesolutions.gogs.client.CachingGogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.WebHookPayload;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * keeps the cache of a {@link CachingGogsClient} up to date with gogs web hook events.
+ * <p>
+ * only the entries changed by an event are removed, e.g. a push removes the branch, raw files and the repository but
+ * keeps issues. issues sent with issue events replace the cached issue directly. events without a specific rule
+ * remove everything cached for the repository. with a web hook for all events cached responses can be kept much
+ * longer than without.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class WebHookInvalidator {
+
+    /**
+     * http header with the event name.
+     */
+    public static final String EVENT_HEADER = "X-Gogs-Event";
+
+    private static final String BRANCH_PREFIX = "refs/heads/";
+
+    private final CachingGogsClient client;
+
+    private final ObjectReader reader;
+
+    /**
+     * default constructor.
+     *
+     * @param client caching client.
+     */
+    public WebHookInvalidator(final CachingGogsClient client) {
+        this.client = client;
+        this.reader = client.getJsonProvider().reader(client.getJsonProvider().getObjectMapper()
+                .constructType(WebHookPayload.class)).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * read web hook request body and update cache.
+     *
+     * @param event event name from {@link #EVENT_HEADER}.
+     * @param body  request body.
+     * @return payload.
+     */
+    public WebHookPayload handle(String event, InputStream body) {
+        WebHookPayload payload;
+        try {
+            payload = reader.readValue(body);
+        } catch (IOException e) {
+            throw new GogsClientException("could not read web hook payload", e);
+        }
+        handle(event, payload);
+        return payload;
+    }
+
+    /**
+     * update cache for web hook event. without event name everything cached for the repository is removed.
+     *
+     * @param event   event name from {@link #EVENT_HEADER} or null.
+     * @param payload payload.
+     */
+    public void handle(String event, WebHookPayload payload) {
+        String repository = repositoryPath(payload.getRepository());
+        if (repository == null) {
+            return;
+        }
+        if (event == null) {
+            client.invalidateTree(repository);
+            return;
+        }
+
+        switch (event) {
+            case "push":
+                pushed(repository, payload);
+                break;
+            case "create":
+            case "delete":
+                referenceChanged(repository, payload);
+                break;
+            case "issues":
+                issueChanged(repository, payload);
+                break;
+            case "issue_comment":
+                issueChanged(repository, payload);
+                client.invalidatePath(repository + "/issues/comments");
+                if (issueNumber(payload) != null) {
+                    client.invalidatePath(repository + "/issues/" + issueNumber(payload) + "/comments");
+                }
+                break;
+            case "pull_request":
+                issueChanged(repository, payload);
+                client.invalidateTree(repository + "/pulls");
+                break;
+            case "release":
+                client.invalidateTree(repository + "/releases");
+                client.invalidatePath(repository);
+                break;
+            case "fork":
+                client.invalidatePath(repository);
+                Repository forkee = payload.getForkee();
+                if (forkee != null && forkee.getOwner() != null) {
+                    client.invalidate("repos", forkee.getOwner().getUsername(), forkee.getName());
+                }
+                break;
+            case "repository":
+                client.invalidate(repository.split("/"));
+                break;
+            default:
+                client.invalidateTree(repository);
+                break;
+        }
+    }
+
+    private void pushed(String repository, WebHookPayload payload) {
+        String ref = payload.getRef();
+        if (ref != null && ref.startsWith(BRANCH_PREFIX)) {
+            client.invalidatePath(repository + "/branches");
+            client.invalidatePath(repository + "/branches/" + ref.substring(BRANCH_PREFIX.length()));
+            client.invalidateTree(repository + "/raw");
+            client.invalidateTree(repository + "/editorconfig");
+            client.invalidateTree(repository + "/archive");
+        } else {
+            client.invalidateTree(repository + "/releases");
+        }
+        client.invalidatePath(repository);
+    }
+
+    private void referenceChanged(String repository, WebHookPayload payload) {
+        if ("branch".equals(payload.getRefType())) {
+            client.invalidatePath(repository + "/branches");
+            if (payload.getRef() != null) {
+                client.invalidateTree(repository + "/branches/" + payload.getRef());
+            }
+        } else {
+            client.invalidateTree(repository + "/releases");
+        }
+        client.invalidatePath(repository);
+    }
+
+    private void issueChanged(String repository, WebHookPayload payload) {
+        Long number = issueNumber(payload);
+        client.invalidatePath(repository + "/issues");
+        client.invalidatePath(repository);
+        if (number == null) {
+            return;
+        }
+
+        String path = repository + "/issues/" + number;
+        client.invalidateTree(path + "/labels");
+        Issue issue = payload.getIssue();
+        if (issue != null && issue.getId() != null) {
+            issue.setIndex(number);
+            client.put(issue, path);
+        } else {
+            client.invalidatePath(path);
+        }
+    }
+
+    private static Long issueNumber(WebHookPayload payload) {
+        if (payload.getNumber() != null) {
+            return payload.getNumber();
+        }
+        return payload.getIssue() != null ? payload.getIssue().getIndex() : null;
+    }
+
+    private static String repositoryPath(Repository repository) {
+        if (repository == null) {
+            return null;
+        }
+        if (repository.getFullName() != null) {
+            return "repos/" + repository.getFullName();
+        }
+        if (repository.getOwner() != null && repository.getName() != null) {
+            return "repos/" + repository.getOwner().getUsername() + "/" + repository.getName();
+        }
+        return null;
+    }
+}
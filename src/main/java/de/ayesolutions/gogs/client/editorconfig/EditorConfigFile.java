@@ -0,0 +1,105 @@
+package de.ayesolutions.gogs.client.editorconfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * parsed .editorconfig file.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+final class EditorConfigFile {
+
+    /**
+     * directory without editorconfig file.
+     */
+    static final EditorConfigFile ABSENT = new EditorConfigFile(false, Collections.emptyList());
+
+    private final boolean root;
+
+    private final List<Section> sections;
+
+    private EditorConfigFile(final boolean root, final List<Section> sections) {
+        this.root = root;
+        this.sections = sections;
+    }
+
+    /**
+     * parse editorconfig file. invalid lines are ignored like editors do.
+     *
+     * @param content file content.
+     * @return parsed file.
+     */
+    static EditorConfigFile parse(String content) {
+        boolean root = false;
+        List<Section> sections = new ArrayList<>();
+        Section section = null;
+
+        for (String line : content.split("\r?\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.startsWith(";")) {
+                continue;
+            }
+            if (trimmed.startsWith("[") && trimmed.endsWith("]")) {
+                section = new Section(trimmed.substring(1, trimmed.length() - 1));
+                sections.add(section);
+                continue;
+            }
+
+            int separator = trimmed.indexOf('=');
+            if (separator < 0) {
+                separator = trimmed.indexOf(':');
+            }
+            if (separator <= 0) {
+                continue;
+            }
+            String key = trimmed.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            String value = trimmed.substring(separator + 1).trim().toLowerCase(Locale.ROOT);
+            if (section == null) {
+                if ("root".equals(key)) {
+                    root = "true".equals(value);
+                }
+            } else {
+                section.properties.put(key, value);
+            }
+        }
+        return new EditorConfigFile(root, sections);
+    }
+
+    boolean isRoot() {
+        return root;
+    }
+
+    /**
+     * apply properties of all sections matching a path. later sections override earlier ones.
+     *
+     * @param path       path relative to the directory of this file.
+     * @param properties properties to update.
+     */
+    void apply(String path, Map<String, String> properties) {
+        for (Section section : sections) {
+            if (section.pattern.matcher(path).matches()) {
+                properties.putAll(section.properties);
+            }
+        }
+    }
+
+    /**
+     * section with glob and properties.
+     */
+    private static final class Section {
+
+        private final Pattern pattern;
+
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        private Section(final String glob) {
+            this.pattern = Glob.compile(glob);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package de.ayesolutions.gogs.client.editorconfig;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.cache.ExpiringCache;
+import de.ayesolutions.gogs.client.model.EditorDefinition;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * resolves editor definitions of files from the .editorconfig files of a repository.
+ * <p>
+ * instead of one editorconfig request per file the .editorconfig files are loaded once as raw files and cached per
+ * repository, ref and directory, all files of a batch are resolved locally. by default only the .editorconfig file
+ * in the repository root is used like the gogs editorconfig api does. with hierarchical resolution the files of all
+ * parent directories are used up to a file with root = true, like editors do.
+ * <p>
+ * equal definitions are returned as the same instance, so they must not be modified.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class EditorConfigResolver {
+
+    private static final String FILE_NAME = ".editorconfig";
+
+    private static final int MAXIMUM_FILES = 4096;
+
+    private static final int MAXIMUM_DEFINITIONS = 1024;
+
+    private static final List<String> PROPERTIES = Collections.unmodifiableList(Arrays.asList("charset",
+            "indent_style", "indent_size", "tab_width", "end_of_line", "trim_trailing_whitespace",
+            "insert_final_newline"));
+
+    private final GogsClient client;
+
+    private final boolean hierarchical;
+
+    private final ExpiringCache<String, EditorConfigFile> files;
+
+    private final ConcurrentMap<List<String>, EditorDefinition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * default constructor. uses the .editorconfig file in the repository root only.
+     *
+     * @param client     gogs client.
+     * @param timeToLive time to keep loaded editorconfig files, should be short for branches.
+     * @param unit       unit of time to live.
+     */
+    public EditorConfigResolver(final GogsClient client, final long timeToLive, final TimeUnit unit) {
+        this(client, timeToLive, unit, false);
+    }
+
+    /**
+     * constructor with hierarchical resolution.
+     *
+     * @param client       gogs client.
+     * @param timeToLive   time to keep loaded editorconfig files, should be short for branches.
+     * @param unit         unit of time to live.
+     * @param hierarchical true to use .editorconfig files of all parent directories.
+     */
+    public EditorConfigResolver(final GogsClient client, final long timeToLive, final TimeUnit unit,
+                                final boolean hierarchical) {
+        this.client = client;
+        this.hierarchical = hierarchical;
+        this.files = new ExpiringCache<>(timeToLive, unit, MAXIMUM_FILES);
+    }
+
+    /**
+     * resolve editor definition of a file.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param ref            branch, tag or commit id.
+     * @param path           file path in repository.
+     * @return definition or null if no section matches.
+     */
+    public EditorDefinition resolve(String username, String repositoryName, String ref, String path) {
+        return resolve(username, repositoryName, ref, Collections.singletonList(path)).get(path);
+    }
+
+    /**
+     * resolve editor definitions of many files. every .editorconfig file is requested at most once.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param ref            branch, tag or commit id.
+     * @param paths          file paths in repository.
+     * @return definitions by path, files without matching section are missing.
+     */
+    public Map<String, EditorDefinition> resolve(String username, String repositoryName, String ref,
+                                                 Collection<String> paths) {
+        Map<String, List<Applied>> chains = new HashMap<>();
+        Map<String, EditorDefinition> result = new LinkedHashMap<>();
+
+        for (String path : paths) {
+            String normalized = path.startsWith("/") ? path.substring(1) : path;
+            int slash = normalized.lastIndexOf('/');
+            String directory = slash < 0 ? "" : normalized.substring(0, slash);
+            List<Applied> chain = chains.computeIfAbsent(directory,
+                    key -> chain(username, repositoryName, ref, key));
+
+            Map<String, String> properties = new HashMap<>();
+            for (Applied applied : chain) {
+                applied.file.apply(normalized.substring(applied.prefix), properties);
+            }
+            EditorDefinition definition = definition(properties);
+            if (definition != null) {
+                result.put(path, definition);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * remove cached editorconfig files of a repository.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     */
+    public void invalidate(String username, String repositoryName) {
+        String prefix = username + "/" + repositoryName + "@";
+        files.removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * editorconfig files of a directory in order of application, from the outermost to the nearest.
+     */
+    private List<Applied> chain(String username, String repositoryName, String ref, String directory) {
+        List<Applied> chain = new ArrayList<>();
+        String current = hierarchical ? directory : "";
+        while (true) {
+            EditorConfigFile file = file(username, repositoryName, ref, current);
+            if (file != EditorConfigFile.ABSENT) {
+                chain.add(new Applied(file, current.isEmpty() ? 0 : current.length() + 1));
+                if (file.isRoot()) {
+                    break;
+                }
+            }
+            if (current.isEmpty()) {
+                break;
+            }
+            int slash = current.lastIndexOf('/');
+            current = slash < 0 ? "" : current.substring(0, slash);
+        }
+        Collections.reverse(chain);
+        return chain;
+    }
+
+    private EditorConfigFile file(String username, String repositoryName, String ref, String directory) {
+        String key = username + "/" + repositoryName + "@" + ref + ":" + directory;
+        EditorConfigFile file = files.get(key);
+        if (file != null) {
+            return file;
+        }
+
+        List<String> path = new ArrayList<>(Arrays.asList("repos", username, repositoryName, "raw", ref));
+        if (!directory.isEmpty()) {
+            path.addAll(Arrays.asList(directory.split("/")));
+        }
+        path.add(FILE_NAME);
+        String[] segments = path.toArray(new String[0]);
+
+        Response response = client.callRequest("GET", null, null, segments);
+        if (client.handleStatusCode(response, String.join("/", segments))) {
+            file = EditorConfigFile.parse(response.readEntity(String.class));
+        } else {
+            response.close();
+            file = EditorConfigFile.ABSENT;
+        }
+        files.put(key, file);
+        return file;
+    }
+
+    /**
+     * create definition like the gogs api and share equal definitions.
+     */
+    private EditorDefinition definition(Map<String, String> properties) {
+        if ("tab".equals(properties.get("indent_style")) && !properties.containsKey("indent_size")) {
+            properties.put("indent_size", "tab");
+        }
+        String indentSize = properties.get("indent_size");
+        if (indentSize != null && !properties.containsKey("tab_width") && indentSize.matches("[0-9]+")) {
+            properties.put("tab_width", indentSize);
+        }
+
+        List<String> values = new ArrayList<>(PROPERTIES.size());
+        boolean empty = true;
+        for (String property : PROPERTIES) {
+            String value = properties.get(property);
+            values.add(value);
+            empty &= value == null;
+        }
+        if (empty) {
+            return null;
+        }
+
+        EditorDefinition definition = definitions.get(values);
+        if (definition != null) {
+            return definition;
+        }
+        definition = new EditorDefinition();
+        definition.setCharset(values.get(0));
+        definition.setIndentStyle(values.get(1));
+        definition.setIndentSize(values.get(2));
+        definition.setTabWidth(values.get(3) != null && values.get(3).matches("[0-9]+")
+                ? Integer.parseInt(values.get(3)) : 0);
+        definition.setEndOfLine(values.get(4));
+        definition.setTrimTrailingWhitespace("true".equals(values.get(5)));
+        definition.setInsertFinalNewLine("true".equals(values.get(6)));
+
+        if (definitions.size() >= MAXIMUM_DEFINITIONS) {
+            definitions.clear();
+        }
+        EditorDefinition existing = definitions.putIfAbsent(values, definition);
+        return existing != null ? existing : definition;
+    }
+
+    /**
+     * editorconfig file with length of its directory prefix in file paths.
+     */
+    private static final class Applied {
+
+        private final EditorConfigFile file;
+
+        private final int prefix;
+
+        private Applied(final EditorConfigFile file, final int prefix) {
+            this.file = file;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package de.ayesolutions.gogs.client.editorconfig;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * converts editorconfig section globs to regular expressions.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+final class Glob {
+
+    private static final Pattern NUMERIC_RANGE = Pattern.compile("([+-]?[0-9]+)\\.\\.([+-]?[0-9]+)");
+
+    private static final int MAXIMUM_RANGE = 256;
+
+    private Glob() {
+    }
+
+    /**
+     * compile section glob. globs without slash match files in any directory below the editorconfig file, others
+     * match paths relative to it.
+     *
+     * @param glob section name.
+     * @return pattern for paths relative to the directory of the editorconfig file.
+     */
+    static Pattern compile(String glob) {
+        String relative = glob;
+        StringBuilder regex = new StringBuilder();
+        if (relative.indexOf('/') < 0) {
+            regex.append("(?:.*/)?");
+        } else if (relative.startsWith("/")) {
+            relative = relative.substring(1);
+        }
+        convert(relative, 0, relative.length(), regex);
+        return Pattern.compile(regex.toString());
+    }
+
+    private static void convert(String glob, int from, int to, StringBuilder regex) {
+        int i = from;
+        while (i < to) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '\\':
+                    if (i + 1 < to) {
+                        i++;
+                    }
+                    regex.append(Pattern.quote(String.valueOf(glob.charAt(i))));
+                    break;
+                case '*':
+                    if (i + 1 < to && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                case '[':
+                    int classEnd = glob.indexOf(']', i + 2);
+                    if (classEnd < 0 || classEnd >= to || glob.substring(i, classEnd).indexOf('/') >= 0) {
+                        regex.append("\\[");
+                        break;
+                    }
+                    regex.append('[');
+                    int start = i + 1;
+                    if (glob.charAt(start) == '!' || glob.charAt(start) == '^') {
+                        regex.append('^');
+                        start++;
+                    }
+                    for (int j = start; j < classEnd; j++) {
+                        char member = glob.charAt(j);
+                        if (member == '\\' || member == '[' || member == '&' || member == '^') {
+                            regex.append('\\');
+                        }
+                        regex.append(member);
+                    }
+                    regex.append(']');
+                    i = classEnd;
+                    break;
+                case '{':
+                    int braceEnd = closingBrace(glob, i, to);
+                    if (braceEnd < 0) {
+                        regex.append("\\{");
+                        break;
+                    }
+                    alternatives(glob, i + 1, braceEnd, regex);
+                    i = braceEnd;
+                    break;
+                default:
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                    break;
+            }
+            i++;
+        }
+    }
+
+    private static void alternatives(String glob, int from, int to, StringBuilder regex) {
+        String content = glob.substring(from, to);
+        Matcher range = NUMERIC_RANGE.matcher(content);
+        if (range.matches()) {
+            long first = Long.parseLong(range.group(1));
+            long last = Long.parseLong(range.group(2));
+            if (Math.abs(last - first) > MAXIMUM_RANGE) {
+                regex.append("[+-]?[0-9]+");
+                return;
+            }
+            regex.append("(?:");
+            for (long n = Math.min(first, last); n <= Math.max(first, last); n++) {
+                regex.append(n).append(n < Math.max(first, last) ? "|" : "");
+            }
+            regex.append(')');
+            return;
+        }
+
+        int depth = 0;
+        int start = from;
+        boolean alternative = false;
+        StringBuilder group = new StringBuilder("(?:");
+        for (int i = from; i < to; i++) {
+            char c = glob.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                convert(glob, start, i, group);
+                group.append('|');
+                start = i + 1;
+                alternative = true;
+            }
+        }
+        if (!alternative) {
+            // a single word in braces is no alternative
+            regex.append("\\{");
+            convert(glob, from, to, regex);
+            regex.append("\\}");
+            return;
+        }
+        convert(glob, start, to, group);
+        regex.append(group).append(')');
+    }
+
+    private static int closingBrace(String glob, int from, int to) {
+        int depth = 0;
+        for (int i = from; i < to; i++) {
+            char c = glob.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,159 @@
+package de.ayesolutions.gogs.client.graph;
+
+import java.util.Arrays;
+
+/**
+ * immutable follower graph with edges in compressed sparse row layout.
+ * <p>
+ * users are stored as sorted array of ids, a user is addressed by its position in that array. for every user the
+ * positions of followed users are stored in one shared {@code int} array, {@code offsets[i]} to
+ * {@code offsets[i + 1]} is the range of user {@code i}. the same layout is kept for the reverse direction, so one
+ * edge costs 8 bytes and one user 20 bytes plus its name.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FollowGraph {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final long[] userIds;
+
+    private final String[] usernames;
+
+    private final int[] followingOffsets;
+
+    private final int[] following;
+
+    private final int[] followerOffsets;
+
+    private final int[] followers;
+
+    FollowGraph(final long[] userIds, final String[] usernames, final int[] followingOffsets, final int[] following,
+                final int[] followerOffsets, final int[] followers) {
+        this.userIds = userIds;
+        this.usernames = usernames;
+        this.followingOffsets = followingOffsets;
+        this.following = following;
+        this.followerOffsets = followerOffsets;
+        this.followers = followers;
+    }
+
+    /**
+     * get number of users.
+     *
+     * @return number of users.
+     */
+    public int getUserCount() {
+        return userIds.length;
+    }
+
+    /**
+     * get number of follow relations.
+     *
+     * @return number of edges.
+     */
+    public int getEdgeCount() {
+        return following.length;
+    }
+
+    /**
+     * get position of user.
+     *
+     * @param userId user id.
+     * @return position or -1 if user is not part of graph.
+     */
+    public int indexOf(long userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * get user id at position.
+     *
+     * @param index position.
+     * @return user id.
+     */
+    public long getUserId(int index) {
+        return userIds[index];
+    }
+
+    /**
+     * get username at position.
+     *
+     * @param index position.
+     * @return username or null if unknown.
+     */
+    public String getUsername(int index) {
+        return usernames[index];
+    }
+
+    /**
+     * get ids of users followed by user.
+     *
+     * @param userId user id.
+     * @return sorted user ids.
+     */
+    public long[] getFollowing(long userId) {
+        return neighbours(userId, followingOffsets, following);
+    }
+
+    /**
+     * get ids of users following user.
+     *
+     * @param userId user id.
+     * @return sorted user ids.
+     */
+    public long[] getFollowers(long userId) {
+        return neighbours(userId, followerOffsets, followers);
+    }
+
+    /**
+     * get number of users followed by user.
+     *
+     * @param userId user id.
+     * @return number of users.
+     */
+    public int getFollowingCount(long userId) {
+        int index = indexOf(userId);
+        return index < 0 ? 0 : followingOffsets[index + 1] - followingOffsets[index];
+    }
+
+    /**
+     * get number of users following user.
+     *
+     * @param userId user id.
+     * @return number of users.
+     */
+    public int getFollowerCount(long userId) {
+        int index = indexOf(userId);
+        return index < 0 ? 0 : followerOffsets[index + 1] - followerOffsets[index];
+    }
+
+    /**
+     * check if one user follows another user.
+     *
+     * @param followerId user id of follower.
+     * @param userId     user id of followed user.
+     * @return true if follower follows user.
+     */
+    public boolean isFollowing(long followerId, long userId) {
+        int source = indexOf(followerId);
+        int target = indexOf(userId);
+        if (source < 0 || target < 0) {
+            return false;
+        }
+        return Arrays.binarySearch(following, followingOffsets[source], followingOffsets[source + 1], target) >= 0;
+    }
+
+    private long[] neighbours(long userId, int[] offsets, int[] targets) {
+        int index = indexOf(userId);
+        if (index < 0 || offsets[index] == offsets[index + 1]) {
+            return NO_IDS;
+        }
+        long[] result = new long[offsets[index + 1] - offsets[index]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = userIds[targets[offsets[index] + i]];
+        }
+        return result;
+    }
+}
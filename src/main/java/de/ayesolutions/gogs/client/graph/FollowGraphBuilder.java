@@ -0,0 +1,179 @@
+package de.ayesolutions.gogs.client.graph;
+
+import de.ayesolutions.gogs.client.model.User;
+import de.ayesolutions.gogs.client.service.UserService;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * collects follow relations and builds a {@link FollowGraph}.
+ * <p>
+ * edges are kept as pairs of user ids in a growing {@code long} array, user objects are not retained. duplicate
+ * edges (e.g. one relation seen as follower and as following) are removed when the graph is built.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FollowGraphBuilder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] edges = new long[INITIAL_CAPACITY * 2];
+
+    private int edgeCount;
+
+    private final Map<Long, String> usernames = new HashMap<>();
+
+    /**
+     * add user without relations.
+     *
+     * @param userId   user id.
+     * @param username username.
+     * @return this builder.
+     */
+    public FollowGraphBuilder addUser(long userId, String username) {
+        usernames.put(userId, username);
+        return this;
+    }
+
+    /**
+     * add follow relation.
+     *
+     * @param followerId user id of follower.
+     * @param userId     user id of followed user.
+     * @return this builder.
+     */
+    public FollowGraphBuilder addEdge(long followerId, long userId) {
+        if (edgeCount * 2 == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[edgeCount * 2] = followerId;
+        edges[edgeCount * 2 + 1] = userId;
+        edgeCount++;
+        return this;
+    }
+
+    /**
+     * load users followed by user and their followers and add all relations. every reached user is loaded as well
+     * until the maximum distance from the start users is reached. users of the last level keep their names but
+     * their relations are not loaded.
+     *
+     * @param userService user service.
+     * @param users       start users.
+     * @param depth       maximum distance from start users. (0 loads only the start users)
+     * @return this builder.
+     */
+    public FollowGraphBuilder crawl(UserService userService, Collection<User> users, int depth) {
+        Set<Long> visited = new HashSet<>();
+        Deque<User> queue = new ArrayDeque<>();
+        for (User user : users) {
+            if (visited.add(user.getId())) {
+                queue.add(user);
+            }
+        }
+
+        for (int level = 0; level <= depth && !queue.isEmpty(); level++) {
+            Deque<User> next = new ArrayDeque<>();
+            while (!queue.isEmpty()) {
+                User user = queue.poll();
+                addUser(user.getId(), user.getUsername());
+
+                boolean expand = level < depth;
+                userService.streamFollowing(user.getUsername()).forEach(followed -> {
+                    addEdge(user.getId(), followed.getId());
+                    reach(followed, expand, visited, next);
+                });
+                userService.streamFollowers(user.getUsername()).forEach(follower -> {
+                    addEdge(follower.getId(), user.getId());
+                    reach(follower, expand, visited, next);
+                });
+            }
+            queue = next;
+        }
+        return this;
+    }
+
+    /**
+     * build immutable graph.
+     *
+     * @return follower graph.
+     */
+    public FollowGraph build() {
+        long[] userIds = new long[edgeCount * 2 + usernames.size()];
+        System.arraycopy(edges, 0, userIds, 0, edgeCount * 2);
+        int position = edgeCount * 2;
+        for (Long userId : usernames.keySet()) {
+            userIds[position++] = userId;
+        }
+        userIds = unique(userIds, userIds.length);
+
+        String[] names = new String[userIds.length];
+        for (int i = 0; i < userIds.length; i++) {
+            names[i] = usernames.get(userIds[i]);
+        }
+
+        long[] forward = new long[edgeCount];
+        long[] backward = new long[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            long source = Arrays.binarySearch(userIds, edges[i * 2]);
+            long target = Arrays.binarySearch(userIds, edges[i * 2 + 1]);
+            forward[i] = source << 32 | target;
+            backward[i] = target << 32 | source;
+        }
+        forward = unique(forward, forward.length);
+        backward = unique(backward, backward.length);
+
+        int[] followingOffsets = new int[userIds.length + 1];
+        int[] following = new int[forward.length];
+        fill(forward, followingOffsets, following);
+
+        int[] followerOffsets = new int[userIds.length + 1];
+        int[] followers = new int[backward.length];
+        fill(backward, followerOffsets, followers);
+
+        return new FollowGraph(userIds, names, followingOffsets, following, followerOffsets, followers);
+    }
+
+    /**
+     * keep username of reached user and queue it for the next level if it was not visited yet.
+     */
+    private void reach(User user, boolean expand, Set<Long> visited, Deque<User> queue) {
+        addUser(user.getId(), user.getUsername());
+        if (expand && visited.add(user.getId())) {
+            queue.add(user);
+        }
+    }
+
+    /**
+     * sort and remove duplicates.
+     */
+    private static long[] unique(long[] values, int length) {
+        Arrays.sort(values, 0, length);
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (count == 0 || values[count - 1] != values[i]) {
+                values[count++] = values[i];
+            }
+        }
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    /**
+     * fill row offsets and column indices from sorted (row, column) pairs.
+     */
+    private static void fill(long[] pairs, int[] offsets, int[] columns) {
+        for (int i = 0; i < pairs.length; i++) {
+            offsets[(int) (pairs[i] >>> 32) + 1]++;
+            columns[i] = (int) pairs[i];
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+    }
+}
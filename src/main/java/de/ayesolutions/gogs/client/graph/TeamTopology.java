@@ -0,0 +1,607 @@
+package de.ayesolutions.gogs.client.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * immutable snapshot of organizations, their teams, team members and repositories.
+ * <p>
+ * organizations, teams and users are stored as sorted arrays of ids and addressed by their position. relations are
+ * kept in compressed sparse row layout like in {@link FollowGraph}: team positions per organization, member positions
+ * per team and the reverse team positions per user. lookups by name use arrays of positions sorted by name. a
+ * snapshot is never changed after it was built, so it can be read from any thread without locking.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class TeamTopology {
+
+    /**
+     * team permissions in ascending order.
+     */
+    private static final List<String> PERMISSIONS = Collections.unmodifiableList(Arrays.asList("read", "write",
+            "admin", "owner"));
+
+    private static final long[] NO_IDS = new long[0];
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private static final TeamTopology EMPTY = build(Collections.emptyList());
+
+    private final long[] organizationIds;
+
+    private final String[] organizationNames;
+
+    private final int[] organizationsByName;
+
+    private final int[] teamOffsets;
+
+    private final int[] teams;
+
+    private final int[] repositoryOffsets;
+
+    private final long[] repositoryIds;
+
+    private final String[] repositoryNames;
+
+    private final long[] teamIds;
+
+    private final String[] teamNames;
+
+    private final String[] teamPermissions;
+
+    private final int[] teamOrganizations;
+
+    private final int[] memberOffsets;
+
+    private final int[] members;
+
+    private final long[] userIds;
+
+    private final String[] usernames;
+
+    private final int[] usersByName;
+
+    private final int[] membershipOffsets;
+
+    private final int[] memberships;
+
+    private TeamTopology(final Builder builder) {
+        this.organizationIds = builder.organizationIds;
+        this.organizationNames = builder.organizationNames;
+        this.organizationsByName = sortByName(organizationNames);
+        this.teamOffsets = builder.teamOffsets;
+        this.teams = builder.teams;
+        this.repositoryOffsets = builder.repositoryOffsets;
+        this.repositoryIds = builder.repositoryIds;
+        this.repositoryNames = builder.repositoryNames;
+        this.teamIds = builder.teamIds;
+        this.teamNames = builder.teamNames;
+        this.teamPermissions = builder.teamPermissions;
+        this.teamOrganizations = builder.teamOrganizations;
+        this.memberOffsets = builder.memberOffsets;
+        this.members = builder.members;
+        this.userIds = builder.userIds;
+        this.usernames = builder.usernames;
+        this.usersByName = sortByName(usernames);
+        this.membershipOffsets = builder.membershipOffsets;
+        this.memberships = builder.memberships;
+    }
+
+    /**
+     * get snapshot without organizations.
+     *
+     * @return empty snapshot.
+     */
+    public static TeamTopology empty() {
+        return EMPTY;
+    }
+
+    /**
+     * get number of organizations.
+     *
+     * @return number of organizations.
+     */
+    public int getOrganizationCount() {
+        return organizationIds.length;
+    }
+
+    /**
+     * get number of teams of all organizations.
+     *
+     * @return number of teams.
+     */
+    public int getTeamCount() {
+        return teamIds.length;
+    }
+
+    /**
+     * get number of distinct users which are member of at least one team.
+     *
+     * @return number of users.
+     */
+    public int getUserCount() {
+        return userIds.length;
+    }
+
+    /**
+     * get names of all organizations.
+     *
+     * @return organization names in order of their ids.
+     */
+    public List<String> getOrganizationNames() {
+        return Collections.unmodifiableList(Arrays.asList(organizationNames));
+    }
+
+    /**
+     * get id of organization.
+     *
+     * @param organizationName organization name.
+     * @return organization id or -1 if organization is not part of snapshot.
+     */
+    public long getOrganizationId(String organizationName) {
+        int organization = find(organizationNames, organizationsByName, organizationName);
+        return organization >= 0 ? organizationIds[organization] : -1;
+    }
+
+    /**
+     * get teams of organization.
+     *
+     * @param organizationName organization name.
+     * @return team ids in ascending order.
+     */
+    public long[] getTeams(String organizationName) {
+        int organization = find(organizationNames, organizationsByName, organizationName);
+        return organization >= 0 ? ids(teamOffsets, teams, organization, teamIds) : NO_IDS;
+    }
+
+    /**
+     * get repositories of organization.
+     *
+     * @param organizationName organization name.
+     * @return repository names.
+     */
+    public String[] getRepositories(String organizationName) {
+        int organization = find(organizationNames, organizationsByName, organizationName);
+        if (organization < 0) {
+            return NO_NAMES;
+        }
+        return Arrays.copyOfRange(repositoryNames, repositoryOffsets[organization],
+                repositoryOffsets[organization + 1]);
+    }
+
+    /**
+     * get name of team.
+     *
+     * @param teamId team id.
+     * @return team name or null if team is not part of snapshot.
+     */
+    public String getTeamName(long teamId) {
+        int team = Arrays.binarySearch(teamIds, teamId);
+        return team >= 0 ? teamNames[team] : null;
+    }
+
+    /**
+     * get permission of team.
+     *
+     * @param teamId team id.
+     * @return permission (read, write, admin or owner) or null if team is not part of snapshot.
+     */
+    public String getTeamPermission(long teamId) {
+        int team = Arrays.binarySearch(teamIds, teamId);
+        return team >= 0 ? teamPermissions[team] : null;
+    }
+
+    /**
+     * get organization of team.
+     *
+     * @param teamId team id.
+     * @return organization name or null if team is not part of snapshot.
+     */
+    public String getTeamOrganization(long teamId) {
+        int team = Arrays.binarySearch(teamIds, teamId);
+        return team >= 0 ? organizationNames[teamOrganizations[team]] : null;
+    }
+
+    /**
+     * get members of team.
+     *
+     * @param teamId team id.
+     * @return user ids in ascending order.
+     */
+    public long[] getMembers(long teamId) {
+        int team = Arrays.binarySearch(teamIds, teamId);
+        return team >= 0 ? ids(memberOffsets, members, team, userIds) : NO_IDS;
+    }
+
+    /**
+     * get id of user.
+     *
+     * @param username username.
+     * @return user id or -1 if user is no member of any team.
+     */
+    public long getUserId(String username) {
+        int user = find(usernames, usersByName, username);
+        return user >= 0 ? userIds[user] : -1;
+    }
+
+    /**
+     * get name of user.
+     *
+     * @param userId user id.
+     * @return username or null if user is no member of any team.
+     */
+    public String getUsername(long userId) {
+        int user = Arrays.binarySearch(userIds, userId);
+        return user >= 0 ? usernames[user] : null;
+    }
+
+    /**
+     * get teams of user.
+     *
+     * @param userId user id.
+     * @return team ids in ascending order.
+     */
+    public long[] getTeamsOfUser(long userId) {
+        int user = Arrays.binarySearch(userIds, userId);
+        return user >= 0 ? ids(membershipOffsets, memberships, user, teamIds) : NO_IDS;
+    }
+
+    /**
+     * check if user is member of team.
+     *
+     * @param teamId team id.
+     * @param userId user id.
+     * @return true if user is member.
+     */
+    public boolean isMember(long teamId, long userId) {
+        int team = Arrays.binarySearch(teamIds, teamId);
+        int user = Arrays.binarySearch(userIds, userId);
+        return team >= 0 && user >= 0
+                && Arrays.binarySearch(members, memberOffsets[team], memberOffsets[team + 1], user) >= 0;
+    }
+
+    /**
+     * get highest permission of user in organization over all of its teams.
+     *
+     * @param organizationName organization name.
+     * @param username         username.
+     * @return permission (read, write, admin or owner) or null if user is in no team of the organization.
+     */
+    public String getPermission(String organizationName, String username) {
+        int organization = find(organizationNames, organizationsByName, organizationName);
+        int user = find(usernames, usersByName, username);
+        if (organization < 0 || user < 0) {
+            return null;
+        }
+
+        String permission = null;
+        for (int i = membershipOffsets[user]; i < membershipOffsets[user + 1]; i++) {
+            int team = memberships[i];
+            if (teamOrganizations[team] == organization && (permission == null
+                    || PERMISSIONS.indexOf(teamPermissions[team]) > PERMISSIONS.indexOf(permission))) {
+                permission = teamPermissions[team];
+            }
+        }
+        return permission;
+    }
+
+    /**
+     * get data of organization for a partial rebuild.
+     *
+     * @param organizationName organization name.
+     * @return organization data or null if organization is not part of snapshot.
+     */
+    OrganizationNode organization(String organizationName) {
+        int organization = find(organizationNames, organizationsByName, organizationName);
+        if (organization < 0) {
+            return null;
+        }
+
+        List<TeamNode> teamList = new ArrayList<>();
+        for (int i = teamOffsets[organization]; i < teamOffsets[organization + 1]; i++) {
+            int team = teams[i];
+            int count = memberOffsets[team + 1] - memberOffsets[team];
+            long[] memberIds = new long[count];
+            String[] memberNames = new String[count];
+            for (int j = 0; j < count; j++) {
+                int user = members[memberOffsets[team] + j];
+                memberIds[j] = userIds[user];
+                memberNames[j] = usernames[user];
+            }
+            teamList.add(new TeamNode(teamIds[team], teamNames[team], teamPermissions[team], memberIds,
+                    memberNames));
+        }
+        int from = repositoryOffsets[organization];
+        int to = repositoryOffsets[organization + 1];
+        return new OrganizationNode(organizationIds[organization], organizationNames[organization], teamList,
+                Arrays.copyOfRange(repositoryIds, from, to), Arrays.copyOfRange(repositoryNames, from, to));
+    }
+
+    /**
+     * build snapshot from organization data.
+     *
+     * @param organizationList organizations.
+     * @return snapshot.
+     */
+    static TeamTopology build(Collection<OrganizationNode> organizationList) {
+        return new TeamTopology(new Builder(organizationList));
+    }
+
+    private static long[] ids(int[] offsets, int[] targets, int index, long[] ids) {
+        long[] result = new long[offsets[index + 1] - offsets[index]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[targets[offsets[index] + i]];
+        }
+        return result;
+    }
+
+    private static int[] sortByName(String[] names) {
+        Integer[] order = new Integer[names.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(index -> names[index]));
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    private static int find(String[] names, int[] order, String name) {
+        if (name == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = order.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = names[order[middle]].compareTo(name);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return order[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * crawled organization.
+     */
+    static final class OrganizationNode {
+
+        private final long id;
+
+        private final String name;
+
+        private final List<TeamNode> teams;
+
+        private final long[] repositoryIds;
+
+        private final String[] repositoryNames;
+
+        OrganizationNode(final long id, final String name, final List<TeamNode> teams,
+                         final long[] repositoryIds, final String[] repositoryNames) {
+            this.id = id;
+            this.name = name;
+            this.teams = teams;
+            this.repositoryIds = repositoryIds;
+            this.repositoryNames = repositoryNames;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<TeamNode> getTeams() {
+            return teams;
+        }
+
+        /**
+         * copy with other teams.
+         */
+        OrganizationNode withTeams(List<TeamNode> newTeams) {
+            return new OrganizationNode(id, name, newTeams, repositoryIds, repositoryNames);
+        }
+    }
+
+    /**
+     * crawled team with its members.
+     */
+    static final class TeamNode {
+
+        private final long id;
+
+        private final String name;
+
+        private final String permission;
+
+        private final long[] memberIds;
+
+        private final String[] memberNames;
+
+        TeamNode(final long id, final String name, final String permission, final long[] memberIds,
+             final String[] memberNames) {
+            this.id = id;
+            this.name = name;
+            this.permission = permission != null ? permission.intern() : null;
+            this.memberIds = memberIds;
+            this.memberNames = memberNames;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        /**
+         * copy with members of other team data.
+         */
+        TeamNode withMembers(TeamNode other) {
+            return new TeamNode(id, name, permission, other.memberIds, other.memberNames);
+        }
+    }
+
+    /**
+     * converts organization data to arrays.
+     */
+    private static final class Builder {
+
+        private long[] organizationIds;
+
+        private String[] organizationNames;
+
+        private int[] teamOffsets;
+
+        private int[] teams;
+
+        private int[] repositoryOffsets;
+
+        private long[] repositoryIds;
+
+        private String[] repositoryNames;
+
+        private long[] teamIds;
+
+        private String[] teamNames;
+
+        private String[] teamPermissions;
+
+        private int[] teamOrganizations;
+
+        private int[] memberOffsets;
+
+        private int[] members;
+
+        private long[] userIds;
+
+        private String[] usernames;
+
+        private int[] membershipOffsets;
+
+        private int[] memberships;
+
+        private Builder(final Collection<OrganizationNode> organizationList) {
+            List<OrganizationNode> organizations = new ArrayList<>(organizationList);
+            organizations.sort(Comparator.comparingLong(organization -> organization.id));
+            buildOrganizations(organizations);
+            List<TeamNode> teamList = buildTeams(organizations);
+            buildUsers(teamList);
+            buildMembers(teamList);
+        }
+
+        private void buildOrganizations(List<OrganizationNode> organizations) {
+            organizationIds = new long[organizations.size()];
+            organizationNames = new String[organizations.size()];
+            repositoryOffsets = new int[organizations.size() + 1];
+            for (int i = 0; i < organizations.size(); i++) {
+                organizationIds[i] = organizations.get(i).id;
+                organizationNames[i] = organizations.get(i).name;
+                repositoryOffsets[i + 1] = repositoryOffsets[i] + organizations.get(i).repositoryIds.length;
+            }
+
+            repositoryIds = new long[repositoryOffsets[organizations.size()]];
+            repositoryNames = new String[repositoryIds.length];
+            for (int i = 0; i < organizations.size(); i++) {
+                OrganizationNode organization = organizations.get(i);
+                System.arraycopy(organization.repositoryIds, 0, repositoryIds, repositoryOffsets[i],
+                        organization.repositoryIds.length);
+                System.arraycopy(organization.repositoryNames, 0, repositoryNames, repositoryOffsets[i],
+                        organization.repositoryNames.length);
+            }
+        }
+
+        private List<TeamNode> buildTeams(List<OrganizationNode> organizations) {
+            List<TeamNode> teamList = new ArrayList<>();
+            Map<Long, Integer> organizationOfTeam = new HashMap<>();
+            for (int i = 0; i < organizations.size(); i++) {
+                for (TeamNode team : organizations.get(i).teams) {
+                    teamList.add(team);
+                    organizationOfTeam.put(team.id, i);
+                }
+            }
+            teamList.sort(Comparator.comparingLong(team -> team.id));
+
+            teamIds = new long[teamList.size()];
+            teamNames = new String[teamList.size()];
+            teamPermissions = new String[teamList.size()];
+            teamOrganizations = new int[teamList.size()];
+            teamOffsets = new int[organizations.size() + 1];
+            for (int i = 0; i < teamList.size(); i++) {
+                TeamNode team = teamList.get(i);
+                teamIds[i] = team.id;
+                teamNames[i] = team.name;
+                teamPermissions[i] = team.permission;
+                teamOrganizations[i] = organizationOfTeam.get(team.id);
+                teamOffsets[teamOrganizations[i] + 1]++;
+            }
+            for (int i = 0; i < organizations.size(); i++) {
+                teamOffsets[i + 1] += teamOffsets[i];
+            }
+
+            teams = new int[teamList.size()];
+            int[] position = Arrays.copyOf(teamOffsets, organizations.size());
+            for (int i = 0; i < teamList.size(); i++) {
+                teams[position[teamOrganizations[i]]++] = i;
+            }
+            return teamList;
+        }
+
+        private void buildUsers(List<TeamNode> teamList) {
+            Map<Long, String> names = new HashMap<>();
+            for (TeamNode team : teamList) {
+                for (int i = 0; i < team.memberIds.length; i++) {
+                    names.put(team.memberIds[i], team.memberNames[i]);
+                }
+            }
+            userIds = new long[names.size()];
+            int i = 0;
+            for (Long id : names.keySet()) {
+                userIds[i++] = id;
+            }
+            Arrays.sort(userIds);
+            usernames = new String[userIds.length];
+            for (i = 0; i < userIds.length; i++) {
+                usernames[i] = names.get(userIds[i]);
+            }
+        }
+
+        private void buildMembers(List<TeamNode> teamList) {
+            memberOffsets = new int[teamList.size() + 1];
+            membershipOffsets = new int[userIds.length + 1];
+            int[][] teamMembers = new int[teamList.size()][];
+            for (int i = 0; i < teamList.size(); i++) {
+                long[] ids = teamList.get(i).memberIds;
+                int[] positions = new int[ids.length];
+                for (int j = 0; j < ids.length; j++) {
+                    positions[j] = Arrays.binarySearch(userIds, ids[j]);
+                    membershipOffsets[positions[j] + 1]++;
+                }
+                Arrays.sort(positions);
+                teamMembers[i] = positions;
+                memberOffsets[i + 1] = memberOffsets[i] + positions.length;
+            }
+            for (int i = 0; i < userIds.length; i++) {
+                membershipOffsets[i + 1] += membershipOffsets[i];
+            }
+
+            members = new int[memberOffsets[teamList.size()]];
+            memberships = new int[members.length];
+            int[] position = Arrays.copyOf(membershipOffsets, userIds.length);
+            for (int i = 0; i < teamList.size(); i++) {
+                System.arraycopy(teamMembers[i], 0, members, memberOffsets[i], teamMembers[i].length);
+                for (int user : teamMembers[i]) {
+                    memberships[position[user]++] = i;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package de.ayesolutions.gogs.client.graph;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Organization;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.Team;
+import de.ayesolutions.gogs.client.model.User;
+import de.ayesolutions.gogs.client.service.AdminService;
+import de.ayesolutions.gogs.client.service.OrganizationService;
+import de.ayesolutions.gogs.client.service.RepositoryService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * crawls organizations, teams, team members and organization repositories into a {@link TeamTopology}.
+ * <p>
+ * organizations and teams are requested in parallel with a limited number of requests at the same time. a refresh
+ * crawls only the specified organizations or teams again and takes everything else from the current snapshot. the
+ * current snapshot is replaced atomically after a crawl has completed, readers of {@link #getTopology()} never wait
+ * and never see a partial crawl. a failed crawl keeps the current snapshot.
+ * <p>
+ * team members are listed with the admin api, so the client needs a site administrator token. gogs has no api to list
+ * the repositories of a team, the repositories of the organization are crawled instead.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class TeamTopologyLoader {
+
+    private final OrganizationService organizationService;
+
+    private final RepositoryService repositoryService;
+
+    private final AdminService adminService;
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    private final AtomicReference<TeamTopology> topology = new AtomicReference<>(TeamTopology.empty());
+
+    /**
+     * default constructor.
+     *
+     * @param client      gogs client.
+     * @param executor    executor for requests.
+     * @param parallelism maximum number of requests at the same time.
+     */
+    public TeamTopologyLoader(final GogsClient client, final Executor executor, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.organizationService = new OrganizationService(client);
+        this.repositoryService = new RepositoryService(client);
+        this.adminService = new AdminService(client);
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * get current snapshot without locking.
+     *
+     * @return current snapshot, empty before the first crawl.
+     */
+    public TeamTopology getTopology() {
+        return topology.get();
+    }
+
+    /**
+     * crawl all organizations of the authenticated user.
+     *
+     * @return new snapshot.
+     */
+    public synchronized TeamTopology load() {
+        List<String> names = organizationService.listOrganisations().stream().map(Organization::getUsername)
+                .collect(Collectors.toList());
+        return load(names);
+    }
+
+    /**
+     * crawl specified organizations. organizations of the current snapshot which are not specified are dropped.
+     *
+     * @param organizationNames organization names.
+     * @return new snapshot.
+     */
+    public synchronized TeamTopology load(Collection<String> organizationNames) {
+        return swap(crawlOrganizations(organizationNames).values());
+    }
+
+    /**
+     * crawl specified organizations again and keep all other organizations of the current snapshot. organizations
+     * which do not exist anymore are removed.
+     *
+     * @param organizationNames changed organizations.
+     * @return new snapshot.
+     */
+    public synchronized TeamTopology refreshOrganizations(Collection<String> organizationNames) {
+        TeamTopology current = topology.get();
+        Map<String, TeamTopology.OrganizationNode> organizations = new LinkedHashMap<>();
+        for (String name : current.getOrganizationNames()) {
+            organizations.put(name, current.organization(name));
+        }
+        Map<String, TeamTopology.OrganizationNode> crawled = crawlOrganizations(organizationNames);
+        for (String name : organizationNames) {
+            TeamTopology.OrganizationNode organization = crawled.get(name);
+            if (organization != null) {
+                organizations.put(name, organization);
+            } else {
+                organizations.remove(name);
+            }
+        }
+        return swap(organizations.values());
+    }
+
+    /**
+     * list members of specified teams again and keep everything else of the current snapshot. teams which are not
+     * part of the current snapshot are ignored, their organization must be refreshed instead.
+     *
+     * @param teamIds changed teams.
+     * @return new snapshot.
+     */
+    public synchronized TeamTopology refreshTeams(Collection<Long> teamIds) {
+        TeamTopology current = topology.get();
+        Set<String> changedOrganizations = new HashSet<>();
+        List<Long> crawledTeams = new ArrayList<>();
+        for (Long teamId : teamIds) {
+            String organization = current.getTeamOrganization(teamId);
+            if (organization != null) {
+                changedOrganizations.add(organization);
+                crawledTeams.add(teamId);
+            }
+        }
+        List<TeamTopology.TeamNode> members = runAll(crawledTeams.stream()
+                .map(teamId -> (Supplier<TeamTopology.TeamNode>) () -> crawlTeam(teamId, null, null))
+                .collect(Collectors.toList()));
+        Map<Long, TeamTopology.TeamNode> crawled = new HashMap<>();
+        for (TeamTopology.TeamNode team : members) {
+            crawled.put(team.getId(), team);
+        }
+
+        List<TeamTopology.OrganizationNode> organizations = new ArrayList<>();
+        for (String name : current.getOrganizationNames()) {
+            TeamTopology.OrganizationNode organization = current.organization(name);
+            if (changedOrganizations.contains(name)) {
+                List<TeamTopology.TeamNode> teams = new ArrayList<>();
+                for (TeamTopology.TeamNode team : organization.getTeams()) {
+                    TeamTopology.TeamNode changed = crawled.get(team.getId());
+                    teams.add(changed != null ? team.withMembers(changed) : team);
+                }
+                organization = organization.withTeams(teams);
+            }
+            organizations.add(organization);
+        }
+        return swap(organizations);
+    }
+
+    private TeamTopology swap(Collection<TeamTopology.OrganizationNode> organizations) {
+        TeamTopology snapshot = TeamTopology.build(organizations);
+        topology.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * crawl organizations in two parallel phases: organization, teams and repositories first, team members second.
+     *
+     * @return organizations by name, missing organizations are left out.
+     */
+    private Map<String, TeamTopology.OrganizationNode> crawlOrganizations(Collection<String> organizationNames) {
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(organizationNames));
+
+        List<Organization> organizations = runAll(names.stream()
+                .map(name -> (Supplier<Organization>) () -> organizationService.getOrganization(name))
+                .collect(Collectors.toList()));
+        List<List<Team>> teamLists = runAll(names.stream()
+                .map(name -> (Supplier<List<Team>>) () -> organizationService.listTeams(name))
+                .collect(Collectors.toList()));
+        List<List<Repository>> repositoryLists = runAll(names.stream()
+                .map(name -> (Supplier<List<Repository>>) () -> repositoryService
+                        .streamOrganizationRepositories(name).collect(Collectors.toList()))
+                .collect(Collectors.toList()));
+
+        List<Team> allTeams = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (organizations.get(i) != null) {
+                allTeams.addAll(teamLists.get(i));
+            }
+        }
+        List<TeamTopology.TeamNode> crawledTeams = runAll(allTeams.stream()
+                .map(team -> (Supplier<TeamTopology.TeamNode>) () -> crawlTeam(team.getId(), team.getName(),
+                        team.getPermission()))
+                .collect(Collectors.toList()));
+
+        Map<String, TeamTopology.OrganizationNode> result = new LinkedHashMap<>();
+        int teamIndex = 0;
+        for (int i = 0; i < names.size(); i++) {
+            Organization organization = organizations.get(i);
+            if (organization == null) {
+                continue;
+            }
+            List<TeamTopology.TeamNode> teams = new ArrayList<>(crawledTeams.subList(teamIndex,
+                    teamIndex + teamLists.get(i).size()));
+            teamIndex += teamLists.get(i).size();
+
+            List<Repository> repositories = repositoryLists.get(i);
+            long[] repositoryIds = new long[repositories.size()];
+            String[] repositoryNames = new String[repositories.size()];
+            for (int j = 0; j < repositories.size(); j++) {
+                repositoryIds[j] = repositories.get(j).getId();
+                repositoryNames[j] = repositories.get(j).getName();
+            }
+            result.put(names.get(i), new TeamTopology.OrganizationNode(organization.getId(), names.get(i), teams,
+                    repositoryIds, repositoryNames));
+        }
+        return result;
+    }
+
+    private TeamTopology.TeamNode crawlTeam(long teamId, String name, String permission) {
+        List<User> users = adminService.listTeamMembers(String.valueOf(teamId));
+        long[] memberIds = new long[users.size()];
+        String[] memberNames = new String[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            memberIds[i] = users.get(i).getId();
+            memberNames[i] = users.get(i).getUsername();
+        }
+        return new TeamTopology.TeamNode(teamId, name, permission, memberIds, memberNames);
+    }
+
+    /**
+     * run tasks with limited parallelism and wait for all of them.
+     *
+     * @return results in order of tasks.
+     * @throws GogsClientException if any task failed.
+     */
+    private <T> List<T> runAll(List<Supplier<T>> tasks) {
+        Object[] results = new Object[tasks.size()];
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Semaphore slots = new Semaphore(parallelism);
+        try {
+            for (int i = 0; i < tasks.size() && failure.get() == null; i++) {
+                int index = i;
+                slots.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results[index] = tasks.get(index).get();
+                        } catch (RuntimeException e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    failure.compareAndSet(null, e);
+                }
+            }
+            slots.acquire(parallelism);
+            slots.release(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GogsClientException("interrupted while crawling teams", e);
+        }
+
+        if (failure.get() != null) {
+            throw new GogsClientException("could not crawl teams", failure.get());
+        }
+        List<T> list = new ArrayList<>(results.length);
+        for (Object result : results) {
+            @SuppressWarnings("unchecked")
+            T value = (T) result;
+            list.add(value);
+        }
+        return list;
+    }
+}
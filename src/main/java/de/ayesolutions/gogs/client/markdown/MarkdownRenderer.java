@@ -0,0 +1,488 @@
+package de.ayesolutions.gogs.client.markdown;
+
+import de.ayesolutions.gogs.client.model.Markdown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * in process markdown renderer with the output of the gogs markdown api.
+ * <p>
+ * supported are paragraphs, atx headings, fenced code, horizontal rules, block quotes, tight single level lists,
+ * code spans, emphasis, strike through and absolute links. in gfm mode mentions, issue references and commit hashes
+ * are linked and the output is escaped like the gogs sanitizer does (quotes as numeric references, rel="nofollow" on
+ * links). other constructs like html, tables, images, nested or loose lists, autolinks and relative links are not
+ * rendered but rejected with {@link UnsupportedMarkdownException}, so callers can ask the server instead.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class MarkdownRenderer {
+
+    /**
+     * markdown mode with special links and sanitizing.
+     */
+    public static final String MODE_GFM = "gfm";
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})[ \\t]+(.*?)(?:[ \\t]+#+)?[ \\t]*$");
+
+    private static final Pattern RULE = Pattern.compile("^(?:(?:\\*[ \\t]*){3,}|(?:-[ \\t]*){3,}|(?:_[ \\t]*){3,})$");
+
+    private static final Pattern SETEXT_UNDERLINE = Pattern.compile("^(?:=+|-+)[ \\t]*$");
+
+    private static final Pattern FENCE = Pattern.compile("^(`{3,}|~{3,})[ \\t]*([^`\\s]*)[ \\t]*$");
+
+    private static final Pattern BULLET_ITEM = Pattern.compile("^([-*+])[ \\t]+(.*)$");
+
+    private static final Pattern ORDERED_ITEM = Pattern.compile("^[0-9]+\\.[ \\t]+(.*)$");
+
+    private static final Pattern TASK_ITEM = Pattern.compile("^\\[[ xX]\\]");
+
+    private static final Pattern LINK_DEFINITION = Pattern.compile("^\\[[^\\]]+\\]:");
+
+    private static final Pattern ENTITY = Pattern.compile("&(?:#[0-9]+|#[xX][0-9a-fA-F]+|[a-zA-Z][a-zA-Z0-9]*);");
+
+    private static final Pattern AUTOLINK = Pattern.compile("(?i)(?:https?|ftp|file|mailto):|www\\.");
+
+    private static final Pattern SPECIAL_LINK = Pattern.compile(
+            "(?<![0-9a-zA-Z_])@([0-9a-zA-Z\\-_.]+)|(?<![^\\s(\\[])#([0-9]+)\\b|\\b([0-9a-f]{7,40})\\b");
+
+    private static final Pattern ABSOLUTE_LINK = Pattern.compile("^(?:https?://|mailto:)\\S+$");
+
+    private static final int SHORT_SHA_LENGTH = 10;
+
+    private final String subUrl;
+
+    /**
+     * default constructor.
+     *
+     * @param subUrl path of the gogs instance for user links. (e.g. "" or "/gogs")
+     */
+    public MarkdownRenderer(final String subUrl) {
+        this.subUrl = subUrl != null && subUrl.endsWith("/") ? subUrl.substring(0, subUrl.length() - 1) : subUrl;
+    }
+
+    /**
+     * render markdown like POST /api/v1/markdown.
+     *
+     * @param markdown markdown definition.
+     * @return html.
+     * @throws UnsupportedMarkdownException if text contains unsupported constructs.
+     */
+    public String render(Markdown markdown) {
+        if (MODE_GFM.equals(markdown.getMode())) {
+            return render(markdown.getText(), true, markdown.getContext() != null ? markdown.getContext() : "");
+        }
+        return render(markdown.getText(), false, null);
+    }
+
+    /**
+     * render markdown like POST /api/v1/markdown/raw.
+     *
+     * @param text markdown text.
+     * @return html.
+     * @throws UnsupportedMarkdownException if text contains unsupported constructs.
+     */
+    public String renderRaw(String text) {
+        return render(text, false, null);
+    }
+
+    private String render(String text, boolean gfm, String context) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String[] lines = text.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        StringBuilder out = new StringBuilder(text.length() + text.length() / 4);
+        new Context(gfm, context).blocks(lines, 0, lines.length, out);
+        return out.toString();
+    }
+
+    /**
+     * rendering state of one call.
+     */
+    private final class Context {
+
+        private final boolean gfm;
+
+        private final String context;
+
+        private final String rel;
+
+        private Context(final boolean gfm, final String context) {
+            this.gfm = gfm;
+            this.context = context;
+            this.rel = gfm ? " rel=\"nofollow\"" : "";
+        }
+
+        private void blocks(String[] lines, int from, int to, StringBuilder out) {
+            int i = from;
+            while (i < to) {
+                String line = lines[i];
+                if (line.trim().isEmpty()) {
+                    i++;
+                } else if (line.startsWith(" ") || line.startsWith("\t")) {
+                    throw new UnsupportedMarkdownException("indented block");
+                } else if (FENCE.matcher(line).matches()) {
+                    i = fencedCode(lines, i, to, out);
+                } else if (HEADING.matcher(line).matches()) {
+                    Matcher heading = HEADING.matcher(line);
+                    heading.matches();
+                    int level = heading.group(1).length();
+                    out.append("<h").append(level).append('>');
+                    inline(heading.group(2), out, gfm);
+                    out.append("</h").append(level).append(">\n");
+                    i++;
+                } else if (RULE.matcher(line).matches()) {
+                    out.append("<hr>\n");
+                    i++;
+                } else if (line.startsWith(">")) {
+                    i = blockQuote(lines, i, to, out);
+                } else if (BULLET_ITEM.matcher(line).matches() || ORDERED_ITEM.matcher(line).matches()) {
+                    i = list(lines, i, to, out);
+                } else if (line.startsWith("|") || LINK_DEFINITION.matcher(line).find()) {
+                    throw new UnsupportedMarkdownException("table or link definition");
+                } else {
+                    i = paragraph(lines, i, to, out);
+                }
+            }
+        }
+
+        private int fencedCode(String[] lines, int start, int to, StringBuilder out) {
+            Matcher fence = FENCE.matcher(lines[start]);
+            fence.matches();
+            String marker = fence.group(1);
+            String language = fence.group(2);
+
+            int end = start + 1;
+            while (end < to && !(lines[end].startsWith(marker) && lines[end].trim().matches(
+                    Pattern.quote(String.valueOf(marker.charAt(0))) + "{" + marker.length() + ",}"))) {
+                end++;
+            }
+            if (end == to) {
+                throw new UnsupportedMarkdownException("unclosed code fence");
+            }
+
+            out.append("<pre><code");
+            if (!language.isEmpty()) {
+                out.append(" class=\"").append(escape("language-" + language)).append('"');
+            }
+            out.append('>');
+            for (int i = start + 1; i < end; i++) {
+                out.append(escape(lines[i])).append('\n');
+            }
+            out.append("</code></pre>\n");
+            return end + 1;
+        }
+
+        private int blockQuote(String[] lines, int start, int to, StringBuilder out) {
+            List<String> quoted = new ArrayList<>();
+            int i = start;
+            while (i < to && lines[i].startsWith(">")) {
+                String line = lines[i].substring(1);
+                quoted.add(line.startsWith(" ") ? line.substring(1) : line);
+                i++;
+            }
+            if (i < to && !lines[i].trim().isEmpty()) {
+                throw new UnsupportedMarkdownException("lazy block quote continuation");
+            }
+            out.append("<blockquote>\n");
+            String[] inner = quoted.toArray(new String[0]);
+            blocks(inner, 0, inner.length, out);
+            out.append("</blockquote>\n");
+            return i;
+        }
+
+        private int list(String[] lines, int start, int to, StringBuilder out) {
+            boolean ordered = ORDERED_ITEM.matcher(lines[start]).matches();
+            Pattern item = ordered ? ORDERED_ITEM : BULLET_ITEM;
+            out.append(ordered ? "<ol>\n" : "<ul>\n");
+
+            int i = start;
+            while (i < to && !lines[i].trim().isEmpty()) {
+                Matcher matcher = item.matcher(lines[i]);
+                if (!matcher.matches()) {
+                    throw new UnsupportedMarkdownException("list continuation or mixed list");
+                }
+                String content = matcher.group(matcher.groupCount());
+                if (TASK_ITEM.matcher(content).find()) {
+                    throw new UnsupportedMarkdownException("task list");
+                }
+                if (isBlockStart(content)) {
+                    throw new UnsupportedMarkdownException("block in list item");
+                }
+                out.append("<li>");
+                inline(content.trim(), out, gfm);
+                out.append("</li>\n");
+                i++;
+            }
+
+            int next = i;
+            while (next < to && lines[next].trim().isEmpty()) {
+                next++;
+            }
+            if (next > i && next < to && (BULLET_ITEM.matcher(lines[next]).matches()
+                    || ORDERED_ITEM.matcher(lines[next]).matches() || lines[next].startsWith(" ")
+                    || lines[next].startsWith("\t"))) {
+                throw new UnsupportedMarkdownException("loose list");
+            }
+
+            out.append(ordered ? "</ol>\n" : "</ul>\n");
+            return i;
+        }
+
+        private int paragraph(String[] lines, int start, int to, StringBuilder out) {
+            List<String> paragraph = new ArrayList<>();
+            int i = start;
+            while (i < to && !lines[i].trim().isEmpty()) {
+                String line = lines[i];
+                if (i > start) {
+                    if (SETEXT_UNDERLINE.matcher(line).matches()) {
+                        throw new UnsupportedMarkdownException("setext heading");
+                    }
+                    if (FENCE.matcher(line).matches() || HEADING.matcher(line).matches() || line.startsWith(">")
+                            || RULE.matcher(line).matches()) {
+                        break;
+                    }
+                    if (isBlockStart(line) || line.startsWith(" ") || line.startsWith("\t")) {
+                        throw new UnsupportedMarkdownException("block inside paragraph");
+                    }
+                }
+                if (line.endsWith("  ")) {
+                    throw new UnsupportedMarkdownException("hard line break");
+                }
+                paragraph.add(line);
+                i++;
+            }
+
+            out.append("<p>");
+            inline(String.join("\n", paragraph), out, gfm);
+            out.append("</p>\n");
+            return i;
+        }
+
+        private boolean isBlockStart(String line) {
+            return BULLET_ITEM.matcher(line).matches() || ORDERED_ITEM.matcher(line).matches()
+                    || line.startsWith("|") || FENCE.matcher(line).matches() || HEADING.matcher(line).matches()
+                    || line.startsWith(">");
+        }
+
+        private void inline(String text, StringBuilder out, boolean special) {
+            StringBuilder plain = new StringBuilder();
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (c == '`') {
+                    int run = run(text, i, '`');
+                    int close = findRun(text, i + run, '`', run);
+                    if (close < 0) {
+                        plain.append(text, i, i + run);
+                    } else {
+                        flush(plain, out, special);
+                        out.append("<code>").append(escape(text.substring(i + run, close).trim())).append("</code>");
+                        i = close;
+                    }
+                    i += run;
+                } else if (c == '\\' || c == '<') {
+                    throw new UnsupportedMarkdownException("escape or html");
+                } else if (c == '&' && ENTITY.matcher(text).region(i, text.length()).lookingAt()) {
+                    throw new UnsupportedMarkdownException("html entity");
+                } else if (c == '!' && i + 1 < text.length() && text.charAt(i + 1) == '[') {
+                    throw new UnsupportedMarkdownException("image");
+                } else if (c == '[') {
+                    i = link(text, i, plain, out, special);
+                } else if (c == '*' || c == '_' || c == '~') {
+                    i = emphasis(text, i, plain, out, special);
+                } else if (AUTOLINK.matcher(text).region(i, text.length()).lookingAt()
+                        && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                    throw new UnsupportedMarkdownException("autolink");
+                } else {
+                    plain.append(c);
+                    i++;
+                }
+            }
+            flush(plain, out, special);
+        }
+
+        private int link(String text, int start, StringBuilder plain, StringBuilder out, boolean special) {
+            int close = text.indexOf(']', start + 1);
+            if (close < 0 || close + 1 >= text.length() || text.charAt(close + 1) != '(') {
+                plain.append('[');
+                return start + 1;
+            }
+            int end = text.indexOf(')', close + 2);
+            String label = text.substring(start + 1, close);
+            if (end < 0 || label.indexOf('[') >= 0) {
+                throw new UnsupportedMarkdownException("nested or unclosed link");
+            }
+            String url = text.substring(close + 2, end);
+            if (!ABSOLUTE_LINK.matcher(url).matches()) {
+                throw new UnsupportedMarkdownException("relative link or link title");
+            }
+
+            flush(plain, out, special);
+            out.append("<a href=\"").append(escape(url)).append('"').append(rel).append('>');
+            inline(label, out, false);
+            out.append("</a>");
+            return end + 1;
+        }
+
+        private int emphasis(String text, int start, StringBuilder plain, StringBuilder out, boolean special) {
+            char marker = text.charAt(start);
+            int run = run(text, start, marker);
+            if (run > 2 || (marker == '~' && run != 2)) {
+                if (marker != '~') {
+                    throw new UnsupportedMarkdownException("nested emphasis");
+                }
+                plain.append(text, start, start + run);
+                return start + run;
+            }
+
+            int contentStart = start + run;
+            boolean opens = contentStart < text.length() && !Character.isWhitespace(text.charAt(contentStart))
+                    && (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)));
+            int close = opens ? findEmphasisClose(text, contentStart, marker, run) : -1;
+            if (close < 0) {
+                plain.append(text, start, contentStart);
+                return contentStart;
+            }
+
+            String tag = marker == '~' ? "del" : run == 2 ? "strong" : "em";
+            flush(plain, out, special);
+            out.append('<').append(tag).append('>');
+            inline(text.substring(contentStart, close), out, special);
+            out.append("</").append(tag).append('>');
+            return close + run;
+        }
+
+        private int findEmphasisClose(String text, int from, char marker, int run) {
+            int i = from;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (c == '`') {
+                    int codeRun = run(text, i, '`');
+                    int codeClose = findRun(text, i + codeRun, '`', codeRun);
+                    i = codeClose < 0 ? i + codeRun : codeClose + codeRun;
+                    continue;
+                }
+                if (c == marker) {
+                    int length = run(text, i, marker);
+                    int after = i + length;
+                    if (length == run && !Character.isWhitespace(text.charAt(i - 1))
+                            && (after == text.length() || !Character.isLetterOrDigit(text.charAt(after)))) {
+                        return i;
+                    }
+                    i = after;
+                    continue;
+                }
+                i++;
+            }
+            return -1;
+        }
+
+        /**
+         * write plain text, in gfm mode with mentions, issue references and commit links.
+         */
+        private void flush(StringBuilder plain, StringBuilder out, boolean special) {
+            if (plain.length() == 0) {
+                return;
+            }
+            String text = plain.toString();
+            plain.setLength(0);
+            if (!special) {
+                out.append(escape(text));
+                return;
+            }
+
+            Matcher matcher = SPECIAL_LINK.matcher(text);
+            int position = 0;
+            while (matcher.find()) {
+                out.append(escape(text.substring(position, matcher.start())));
+                if (matcher.group(1) != null) {
+                    link(subUrl + "/" + matcher.group(1), escape(matcher.group()), out);
+                } else if (matcher.group(2) != null) {
+                    link(context + "/issues/" + matcher.group(2), escape(matcher.group()), out);
+                } else {
+                    String sha = matcher.group(3);
+                    link(context + "/commit/" + sha,
+                            "<code>" + sha.substring(0, Math.min(SHORT_SHA_LENGTH, sha.length())) + "</code>", out);
+                }
+                position = matcher.end();
+            }
+            out.append(escape(text.substring(position)));
+        }
+
+        private void link(String href, String html, StringBuilder out) {
+            out.append("<a href=\"").append(escape(href)).append('"').append(rel).append('>').append(html)
+                    .append("</a>");
+        }
+
+        /**
+         * escape like the gogs sanitizer in gfm mode, otherwise like the markdown library.
+         */
+        private String escape(String text) {
+            StringBuilder escaped = null;
+            for (int i = 0; i < text.length(); i++) {
+                String replacement;
+                switch (text.charAt(i)) {
+                    case '&':
+                        replacement = "&amp;";
+                        break;
+                    case '<':
+                        replacement = "&lt;";
+                        break;
+                    case '>':
+                        replacement = "&gt;";
+                        break;
+                    case '"':
+                        replacement = gfm ? "&#34;" : "&quot;";
+                        break;
+                    case '\'':
+                        replacement = gfm ? "&#39;" : null;
+                        break;
+                    default:
+                        replacement = null;
+                        break;
+                }
+                if (replacement != null && escaped == null) {
+                    escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+                }
+                if (escaped != null) {
+                    if (replacement != null) {
+                        escaped.append(replacement);
+                    } else {
+                        escaped.append(text.charAt(i));
+                    }
+                }
+            }
+            return escaped != null ? escaped.toString() : text;
+        }
+    }
+
+    private static int run(String text, int start, char c) {
+        int end = start;
+        while (end < text.length() && text.charAt(end) == c) {
+            end++;
+        }
+        return end - start;
+    }
+
+    /**
+     * find a run of exactly {@code length} characters.
+     */
+    private static int findRun(String text, int from, char c, int length) {
+        int i = from;
+        while (i < text.length()) {
+            if (text.charAt(i) == c) {
+                int run = run(text, i, c);
+                if (run == length) {
+                    return i;
+                }
+                i += run;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+}
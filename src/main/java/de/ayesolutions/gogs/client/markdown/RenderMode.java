@@ -0,0 +1,24 @@
+package de.ayesolutions.gogs.client.markdown;
+
+/**
+ * where markdown is rendered.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public enum RenderMode {
+
+    /**
+     * always render on the server.
+     */
+    SERVER,
+
+    /**
+     * render in process, fail with {@link UnsupportedMarkdownException} for unsupported constructs.
+     */
+    LOCAL,
+
+    /**
+     * render in process and use the server for unsupported constructs.
+     */
+    AUTO
+}
@@ -0,0 +1,22 @@
+package de.ayesolutions.gogs.client.markdown;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+
+/**
+ * markdown contains a construct the local renderer can not render like the server.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class UnsupportedMarkdownException extends GogsClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * default constructor.
+     *
+     * @param message unsupported construct.
+     */
+    public UnsupportedMarkdownException(final String message) {
+        super(message);
+    }
+}
@@ -1,5 +1,8 @@
 package de.ayesolutions.gogs.client.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 
 /**
@@ -17,10 +20,16 @@ public final class AccessToken {
 
     private transient String password;
 
+    /**
+     * authorization header value, created by every setter. setters are serialized by this token, reads take no lock.
+     */
+    private transient volatile String authorization;
+
     /**
      * default constructor.
      */
     public AccessToken() {
+        updateAuthorization();
     }
 
     /**
@@ -60,24 +69,27 @@ public final class AccessToken {
         return sha1;
     }
 
-    public void setSha1(String sha1) {
+    public synchronized void setSha1(String sha1) {
         this.sha1 = sha1;
+        updateAuthorization();
     }
 
     public String getUsername() {
         return username;
     }
 
-    public void setUsername(String username) {
+    public synchronized void setUsername(String username) {
         this.username = username;
+        updateAuthorization();
     }
 
     public String getPassword() {
         return password;
     }
 
-    public void setPassword(String password) {
+    public synchronized void setPassword(String password) {
         this.password = password;
+        updateAuthorization();
     }
 
     public String getTokenAuthorization() {
@@ -85,6 +97,25 @@ public final class AccessToken {
     }
 
     public String getBasicAuthorization() {
-        return "Basic " + new String(Base64.getEncoder().encode((username + ":" + password).getBytes()));
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password)
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * get authorization header value, token authorization if a token is set otherwise basic authorization. the value
+     * is created by the setters, so reading it on every request takes no lock.
+     *
+     * @return authorization header value.
+     */
+    @JsonIgnore
+    public String getAuthorization() {
+        return authorization;
+    }
+
+    /**
+     * create authorization header value from the current credentials. called by the setters while holding this token.
+     */
+    private void updateAuthorization() {
+        authorization = sha1 != null ? getTokenAuthorization() : getBasicAuthorization();
     }
 }
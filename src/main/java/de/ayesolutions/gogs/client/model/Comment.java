@@ -1,6 +1,7 @@
 package de.ayesolutions.gogs.client.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.util.Date;
 
@@ -13,6 +14,7 @@ public class Comment {
 
     private User poster;
 
+    @JsonDeserialize(using = TextMode.Deserializer.class)
     private String body;
 
     @JsonProperty("created_at")
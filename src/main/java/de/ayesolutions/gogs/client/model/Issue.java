@@ -1,6 +1,7 @@
 package de.ayesolutions.gogs.client.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import java.util.Date;
 import java.util.List;
@@ -17,6 +18,7 @@ public class Issue {
 
     private String title;
 
+    @JsonDeserialize(using = TextMode.Deserializer.class)
     private String body;
 
     private List<IssueLabel> labels;
@@ -1,8 +1,13 @@
 package de.ayesolutions.gogs.client.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 /**
  * repository model class.
@@ -13,36 +18,91 @@ public class Repository {
 
     /**
      * repository permission class.
+     * <p>
+     * permissions are immutable and stored as bitmask. there is exactly one shared instance for every combination
+     * of admin, push and pull.
      */
-    public class RepositoryPermission {
-        private boolean admin;
+    public static final class RepositoryPermission {
 
-        private boolean push;
+        /**
+         * bit for admin permission.
+         */
+        public static final int ADMIN = 1;
 
-        private boolean pull;
+        /**
+         * bit for push permission.
+         */
+        public static final int PUSH = 2;
 
-        public boolean isAdmin() {
-            return admin;
+        /**
+         * bit for pull permission.
+         */
+        public static final int PULL = 4;
+
+        private static final RepositoryPermission[] INSTANCES = new RepositoryPermission[(ADMIN | PUSH | PULL) + 1];
+
+        static {
+            for (int mask = 0; mask < INSTANCES.length; mask++) {
+                INSTANCES[mask] = new RepositoryPermission(mask);
+            }
         }
 
-        public void setAdmin(boolean admin) {
-            this.admin = admin;
+        private final int mask;
+
+        private RepositoryPermission(final int mask) {
+            this.mask = mask;
         }
 
-        public boolean isPush() {
-            return push;
+        /**
+         * get shared permission instance.
+         *
+         * @param admin admin permission.
+         * @param push  push permission.
+         * @param pull  pull permission.
+         * @return permission.
+         */
+        @JsonCreator
+        public static RepositoryPermission of(@JsonProperty("admin") boolean admin,
+                                              @JsonProperty("push") boolean push,
+                                              @JsonProperty("pull") boolean pull) {
+            return valueOf((admin ? ADMIN : 0) | (push ? PUSH : 0) | (pull ? PULL : 0));
         }
 
-        public void setPush(boolean push) {
-            this.push = push;
+        /**
+         * get shared permission instance.
+         *
+         * @param mask permission bitmask.
+         * @return permission.
+         */
+        public static RepositoryPermission valueOf(int mask) {
+            return INSTANCES[mask & (ADMIN | PUSH | PULL)];
+        }
+
+        public boolean isAdmin() {
+            return has(ADMIN);
+        }
+
+        public boolean isPush() {
+            return has(PUSH);
         }
 
         public boolean isPull() {
-            return pull;
+            return has(PULL);
         }
 
-        public void setPull(boolean pull) {
-            this.pull = pull;
+        @JsonIgnore
+        public int getMask() {
+            return mask;
+        }
+
+        /**
+         * check if all permission bits are granted.
+         *
+         * @param permissions permission bits.
+         * @return true if all permissions are granted.
+         */
+        public boolean has(int permissions) {
+            return (mask & permissions) == permissions;
         }
     }
 
@@ -247,4 +307,31 @@ public class Repository {
     public void setPermissions(RepositoryPermission permissions) {
         this.permissions = permissions;
     }
+
+    /**
+     * check if all permission bits are granted for this repository.
+     *
+     * @param permissions permission bits of {@link RepositoryPermission}.
+     * @return true if all permissions are granted.
+     */
+    public boolean hasPermission(int permissions) {
+        return this.permissions != null && this.permissions.has(permissions);
+    }
+
+    /**
+     * filter repositories by granted permissions.
+     *
+     * @param repositories list of repositories.
+     * @param permissions  permission bits of {@link RepositoryPermission}.
+     * @return list of repositories with all permissions granted.
+     */
+    public static List<Repository> filterByPermission(Collection<Repository> repositories, int permissions) {
+        List<Repository> list = new ArrayList<>();
+        for (Repository repository : repositories) {
+            if (repository.hasPermission(permissions)) {
+                list.add(repository);
+            }
+        }
+        return list;
+    }
 }
@@ -0,0 +1,29 @@
+package de.ayesolutions.gogs.client.model;
+
+import java.util.List;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class RepositorySearchResult {
+
+    private List<Repository> data;
+
+    private boolean ok;
+
+    public List<Repository> getData() {
+        return data;
+    }
+
+    public void setData(List<Repository> data) {
+        this.data = data;
+    }
+
+    public boolean isOk() {
+        return ok;
+    }
+
+    public void setOk(boolean ok) {
+        this.ok = ok;
+    }
+}
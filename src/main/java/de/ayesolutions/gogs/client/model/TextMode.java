@@ -0,0 +1,48 @@
+package de.ayesolutions.gogs.client.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+
+/**
+ * read mode for large text fields like issue and comment bodies.
+ * <p>
+ * the mode is passed to the reader as attribute {@code TextMode.class}, fields are read eagerly without it.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public enum TextMode {
+
+    /**
+     * decode text immediately.
+     */
+    EAGER,
+
+    /**
+     * do not read text at all, the field stays null.
+     */
+    SKIP;
+
+    /**
+     * json deserializer for text fields, which skips the text in mode {@link #SKIP}.
+     */
+    public static class Deserializer extends JsonDeserializer<String> {
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (context.getAttribute(TextMode.class) == SKIP) {
+                // the parser skips the unread string without decoding it
+                parser.skipChildren();
+                return null;
+            }
+
+            if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+                return parser.getValueAsString();
+            }
+            return parser.getText();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package de.ayesolutions.gogs.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * payload of a gogs web hook request. which fields are set depends on the event (X-Gogs-Event header).
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class WebHookPayload {
+
+    private String action;
+
+    private String ref;
+
+    @JsonProperty("ref_type")
+    private String refType;
+
+    private String before;
+
+    private String after;
+
+    @JsonProperty("default_branch")
+    private String defaultBranch;
+
+    private Long number;
+
+    private List<PayloadCommit> commits;
+
+    private Repository repository;
+
+    private Repository forkee;
+
+    private Issue issue;
+
+    private Comment comment;
+
+    @JsonProperty("pull_request")
+    private PullRequest pullRequest;
+
+    private User pusher;
+
+    private User sender;
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public String getRefType() {
+        return refType;
+    }
+
+    public void setRefType(String refType) {
+        this.refType = refType;
+    }
+
+    public String getBefore() {
+        return before;
+    }
+
+    public void setBefore(String before) {
+        this.before = before;
+    }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
+    public String getDefaultBranch() {
+        return defaultBranch;
+    }
+
+    public void setDefaultBranch(String defaultBranch) {
+        this.defaultBranch = defaultBranch;
+    }
+
+    public Long getNumber() {
+        return number;
+    }
+
+    public void setNumber(Long number) {
+        this.number = number;
+    }
+
+    public List<PayloadCommit> getCommits() {
+        return commits;
+    }
+
+    public void setCommits(List<PayloadCommit> commits) {
+        this.commits = commits;
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public void setRepository(Repository repository) {
+        this.repository = repository;
+    }
+
+    public Repository getForkee() {
+        return forkee;
+    }
+
+    public void setForkee(Repository forkee) {
+        this.forkee = forkee;
+    }
+
+    public Issue getIssue() {
+        return issue;
+    }
+
+    public void setIssue(Issue issue) {
+        this.issue = issue;
+    }
+
+    public Comment getComment() {
+        return comment;
+    }
+
+    public void setComment(Comment comment) {
+        this.comment = comment;
+    }
+
+    public PullRequest getPullRequest() {
+        return pullRequest;
+    }
+
+    public void setPullRequest(PullRequest pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+
+    public User getPusher() {
+        return pusher;
+    }
+
+    public void setPusher(User pusher) {
+        this.pusher = pusher;
+    }
+
+    public User getSender() {
+        return sender;
+    }
+
+    public void setSender(User sender) {
+        this.sender = sender;
+    }
+}
@@ -0,0 +1,99 @@
+package de.ayesolutions.gogs.client.paging;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * single page of a paginated list endpoint.
+ *
+ * @param <T> type of page items.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class Page<T> {
+
+    private final int number;
+
+    private final List<T> items;
+
+    private final boolean linked;
+
+    private final Integer nextPage;
+
+    private final Integer lastPage;
+
+    private final Long totalCount;
+
+    /**
+     * default constructor.
+     *
+     * @param number     page number (starts with 1).
+     * @param items      page items.
+     * @param linked     true if server sent pagination links.
+     * @param nextPage   number of next page from link header or null.
+     * @param lastPage   number of last page from link header or null.
+     * @param totalCount total number of items from response header or null.
+     */
+    public Page(final int number, final List<T> items, final boolean linked, final Integer nextPage,
+                final Integer lastPage, final Long totalCount) {
+        this.number = number;
+        this.items = items != null ? items : Collections.emptyList();
+        this.linked = linked;
+        this.nextPage = nextPage;
+        this.lastPage = lastPage;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * create empty page.
+     *
+     * @param number page number.
+     * @param <T>    type of page items.
+     * @return empty page.
+     */
+    public static <T> Page<T> empty(int number) {
+        return new Page<>(number, null, false, null, null, null);
+    }
+
+    /**
+     * check if another page follows this page.
+     * <p>
+     * if the server sent pagination links only the next link is used. otherwise a page is followed by another page
+     * as long as it is completely filled.
+     *
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @return true if another page exists.
+     */
+    public boolean hasNext(int pageSize) {
+        if (items.isEmpty()) {
+            return false;
+        }
+        if (linked) {
+            return nextPage != null;
+        }
+        return pageSize > 0 && items.size() >= pageSize;
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean isLinked() {
+        return linked;
+    }
+
+    public Integer getNextPage() {
+        return nextPage;
+    }
+
+    public Integer getLastPage() {
+        return lastPage;
+    }
+
+    public Long getTotalCount() {
+        return totalCount;
+    }
+}
@@ -0,0 +1,19 @@
+package de.ayesolutions.gogs.client.paging;
+
+/**
+ * loads a single page of a paginated list endpoint.
+ *
+ * @param <T> type of page items.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@FunctionalInterface
+public interface PageFetcher<T> {
+
+    /**
+     * load page.
+     *
+     * @param page page number (starts with 1).
+     * @return page.
+     */
+    Page<T> fetch(int page);
+}
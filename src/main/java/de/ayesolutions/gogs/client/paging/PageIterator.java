@@ -0,0 +1,64 @@
+package de.ayesolutions.gogs.client.paging;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * iterator over all items of a paginated list endpoint. the next page is loaded when the current page is used up.
+ *
+ * @param <T> type of items.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PageIterator<T> implements Iterator<T> {
+
+    private final PageFetcher<T> fetcher;
+
+    private final int pageSize;
+
+    private Iterator<T> items = Collections.emptyIterator();
+
+    private Page<T> page;
+
+    /**
+     * default constructor.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     */
+    public PageIterator(final PageFetcher<T> fetcher, final int pageSize) {
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!items.hasNext()) {
+            if (page != null && !page.hasNext(pageSize)) {
+                return false;
+            }
+            int number = page == null ? 1 : nextPageNumber(page);
+            page = fetcher.fetch(number);
+            items = page.getItems().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.next();
+    }
+
+    /**
+     * get number of the page following specified page.
+     *
+     * @param page current page.
+     * @return next page number.
+     */
+    static int nextPageNumber(Page<?> page) {
+        return page.getNextPage() != null ? page.getNextPage() : page.getNumber() + 1;
+    }
+}
@@ -0,0 +1,127 @@
+package de.ayesolutions.gogs.client.paging;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * spliterator over all items of a paginated list endpoint which splits along page boundaries.
+ * <p>
+ * once the last page is known (from the link header of the first response) the remaining page range is split in
+ * halves, so parallel streams load and process the pages on different workers. without a last page link every split
+ * loads the next page and hands it over as a separate spliterator.
+ *
+ * @param <T> type of items.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PageSpliterator<T> implements Spliterator<T> {
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * assumed number of pages while the last page is unknown. fork join streams derive their split threshold from
+     * the first size estimate, so it has to be in the same unit as the estimate of a known page range.
+     */
+    private static final int ESTIMATED_PAGES = 64;
+
+    private final PageFetcher<T> fetcher;
+
+    private final int pageSize;
+
+    private int fromPage;
+
+    private int toPage;
+
+    private List<T> buffer = Collections.emptyList();
+
+    private int bufferIndex;
+
+    private boolean exhausted;
+
+    /**
+     * default constructor.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     */
+    public PageSpliterator(final PageFetcher<T> fetcher, final int pageSize) {
+        this(fetcher, pageSize, 1, UNBOUNDED);
+    }
+
+    private PageSpliterator(final PageFetcher<T> fetcher, final int pageSize, final int fromPage, final int toPage) {
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.fromPage = fromPage;
+        this.toPage = toPage;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (bufferIndex >= buffer.size()) {
+            if (!fetchNextPage()) {
+                return false;
+            }
+        }
+        action.accept(buffer.get(bufferIndex++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (bufferIndex >= buffer.size() && toPage == UNBOUNDED && !fetchNextPage()) {
+            return null;
+        }
+
+        if (bufferIndex < buffer.size()) {
+            Spliterator<T> prefix = buffer.subList(bufferIndex, buffer.size()).spliterator();
+            buffer = Collections.emptyList();
+            bufferIndex = 0;
+            return prefix;
+        }
+
+        if (exhausted || toPage == UNBOUNDED || toPage - fromPage < 2) {
+            return null;
+        }
+
+        int middle = fromPage + (toPage - fromPage) / 2;
+        PageSpliterator<T> prefix = new PageSpliterator<>(fetcher, pageSize, fromPage, middle);
+        fromPage = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        long remaining = buffer.size() - bufferIndex;
+        if (exhausted) {
+            return remaining;
+        }
+        int pages = toPage == UNBOUNDED ? ESTIMATED_PAGES : toPage - fromPage;
+        return remaining + (long) pages * Math.max(pageSize, 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private boolean fetchNextPage() {
+        if (exhausted || fromPage >= toPage) {
+            exhausted = true;
+            return false;
+        }
+
+        Page<T> page = fetcher.fetch(fromPage);
+        buffer = page.getItems();
+        bufferIndex = 0;
+        fromPage = PageIterator.nextPageNumber(page);
+
+        if (toPage == UNBOUNDED && page.getLastPage() != null) {
+            toPage = page.getLastPage() + 1;
+        }
+        if (!page.hasNext(pageSize)) {
+            exhausted = true;
+        }
+        return !buffer.isEmpty() || !exhausted;
+    }
+}
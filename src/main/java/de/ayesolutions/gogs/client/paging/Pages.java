@@ -0,0 +1,100 @@
+package de.ayesolutions.gogs.client.paging;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * factory methods for lazy access to paginated list endpoints.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class Pages {
+
+    private Pages() {
+    }
+
+    /**
+     * iterable over all items. every iterator loads the pages again.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param <T>      type of items.
+     * @return iterable.
+     */
+    public static <T> Iterable<T> iterable(PageFetcher<T> fetcher, int pageSize) {
+        return () -> new PageIterator<>(fetcher, pageSize);
+    }
+
+    /**
+     * sequential stream over all items. pages are loaded while the stream is consumed.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param <T>      type of items.
+     * @return stream.
+     */
+    public static <T> Stream<T> stream(PageFetcher<T> fetcher, int pageSize) {
+        return stream(new PageIterator<>(fetcher, pageSize));
+    }
+
+    /**
+     * sequential stream over all items which loads up to {@code depth} pages ahead in parallel. closing the stream
+     * cancels outstanding requests.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param executor executor for page requests.
+     * @param depth    maximum number of pages requested at the same time.
+     * @param <T>      type of items.
+     * @return stream.
+     */
+    public static <T> Stream<T> stream(PageFetcher<T> fetcher, int pageSize, Executor executor, int depth) {
+        PrefetchingPageIterator<T> iterator = new PrefetchingPageIterator<>(fetcher, pageSize, executor, depth);
+        return stream(iterator).onClose(iterator::close);
+    }
+
+    /**
+     * sequential stream over all items which splits along page boundaries. use {@link Stream#parallel()} to load
+     * and process pages on fork join workers.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param <T>      type of items.
+     * @return stream.
+     */
+    public static <T> Stream<T> splittableStream(PageFetcher<T> fetcher, int pageSize) {
+        return StreamSupport.stream(new PageSpliterator<>(fetcher, pageSize), false);
+    }
+
+    /**
+     * load all items of all pages.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param <T>      type of items.
+     * @return list of all items.
+     */
+    public static <T> List<T> list(PageFetcher<T> fetcher, int pageSize) {
+        List<T> list = new ArrayList<>();
+        new PageIterator<>(fetcher, pageSize).forEachRemaining(list::add);
+        return list;
+    }
+
+    /**
+     * sequential ordered stream over iterator.
+     *
+     * @param iterator iterator.
+     * @param <T>      type of items.
+     * @return stream.
+     */
+    static <T> Stream<T> stream(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -0,0 +1,131 @@
+package de.ayesolutions.gogs.client.paging;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * iterator over all items of a paginated list endpoint which loads pages ahead of the consumer.
+ * <p>
+ * up to {@code depth} pages are requested in parallel and returned in page order. as long as the last page is
+ * unknown the following pages are requested speculatively, once a response contains the last page link no page
+ * behind it is requested. unused requests are cancelled when the iterator is closed or the last page is reached.
+ *
+ * @param <T> type of items.
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PrefetchingPageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final PageFetcher<T> fetcher;
+
+    private final int pageSize;
+
+    private final Executor executor;
+
+    private final int depth;
+
+    private final Deque<CompletableFuture<Page<T>>> pending = new ArrayDeque<>();
+
+    private int nextPageNumber = 1;
+
+    private Integer lastPageNumber;
+
+    private Iterator<T> items = Collections.emptyIterator();
+
+    private Page<T> page;
+
+    private boolean closed;
+
+    /**
+     * default constructor.
+     *
+     * @param fetcher  page fetcher.
+     * @param pageSize expected number of items per page (0 if unknown).
+     * @param executor executor for page requests.
+     * @param depth    maximum number of pages requested at the same time.
+     */
+    public PrefetchingPageIterator(final PageFetcher<T> fetcher, final int pageSize, final Executor executor,
+                                   final int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.depth = depth;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!items.hasNext()) {
+            if (closed || (page != null && !page.hasNext(pageSize))) {
+                close();
+                return false;
+            }
+
+            schedule();
+            if (pending.isEmpty()) {
+                close();
+                return false;
+            }
+            page = await(pending.poll());
+            if (page.getLastPage() != null) {
+                lastPageNumber = page.getLastPage();
+            }
+            items = page.getItems().iterator();
+        }
+        schedule();
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.next();
+    }
+
+    /**
+     * cancel all outstanding page requests.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        items = Collections.emptyIterator();
+        while (!pending.isEmpty()) {
+            pending.poll().cancel(true);
+        }
+    }
+
+    private void schedule() {
+        while (!closed && pending.size() < depth && (lastPageNumber == null || nextPageNumber <= lastPageNumber)) {
+            final int number = nextPageNumber++;
+            pending.add(CompletableFuture.supplyAsync(() -> fetcher.fetch(number), executor));
+        }
+    }
+
+    private Page<T> await(Future<Page<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            close();
+            Thread.currentThread().interrupt();
+            throw new GogsClientException("interrupted while loading page", e);
+        } catch (ExecutionException e) {
+            close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GogsClientException("could not load page", e.getCause());
+        }
+    }
+}
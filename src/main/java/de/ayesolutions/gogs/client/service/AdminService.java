@@ -6,6 +6,10 @@ import de.ayesolutions.gogs.client.model.PublicKey;
 import de.ayesolutions.gogs.client.model.Team;
 import de.ayesolutions.gogs.client.model.User;
 
+import javax.ws.rs.core.GenericType;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * service class for administration.
  *
@@ -97,6 +101,21 @@ public class AdminService extends BaseService {
         return getClient().post(Team.class, team, "admin", "orgs", organizationName, "teams");
     }
 
+    /**
+     * get list of team members.
+     * <p>
+     * GET /api/v1/admin/teams/:teamId/members
+     *
+     * @param teamId team id.
+     * @return list of members.
+     */
+    public List<User> listTeamMembers(String teamId) {
+        List<User> list = getClient().get(new GenericType<List<User>>() {
+        }, "admin", "teams", teamId, "members");
+
+        return list != null ? list : Collections.emptyList();
+    }
+
     /**
      * add team member to team.
      * <p>
@@ -0,0 +1,199 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Comment;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.TextMode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * load comments of many issues with a limited number of parallel requests.
+ * <p>
+ * issue ids are read from the stream only when a request slot is free, so large id streams are not buffered. the
+ * comments of an issue are passed to the listener as soon as its request has finished, a failed request is reported
+ * to the listener and does not stop the other requests.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BulkCommentLoader {
+
+    private static final String[] STATES = {"open", "closed"};
+
+    private final IssueService issueService;
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    private final TextMode bodyMode;
+
+    /**
+     * default constructor.
+     *
+     * @param client      gogs client.
+     * @param executor    executor for comment requests.
+     * @param parallelism maximum number of requests at the same time.
+     */
+    public BulkCommentLoader(final GogsClient client, final Executor executor, final int parallelism) {
+        this(client, executor, parallelism, TextMode.EAGER);
+    }
+
+    /**
+     * constructor with read mode for comment bodies.
+     *
+     * @param client      gogs client.
+     * @param executor    executor for comment requests.
+     * @param parallelism maximum number of requests at the same time.
+     * @param bodyMode    read mode for comment bodies.
+     */
+    public BulkCommentLoader(final GogsClient client, final Executor executor, final int parallelism,
+                             final TextMode bodyMode) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.issueService = new IssueService(client);
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.bodyMode = bodyMode;
+    }
+
+    /**
+     * load comments of all open and closed issues of repository.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param listener       listener for comments.
+     * @return load result.
+     */
+    public Result load(String username, String repositoryName, CommentListener listener) {
+        Stream<String> issueIds = Stream.of(STATES).flatMap(state -> {
+            Map<String, String> parameters = new HashMap<>();
+            parameters.put("state", state);
+            return issueService.streamIssues(username, repositoryName, parameters);
+        }).map(BulkCommentLoader::issueId);
+        return load(username, repositoryName, issueIds, listener);
+    }
+
+    /**
+     * load comments of specified issues. returns after all requests have finished.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param issueIds       issue ids.
+     * @param listener       listener for comments.
+     * @return load result.
+     */
+    public Result load(String username, String repositoryName, Stream<String> issueIds, CommentListener listener) {
+        Semaphore slots = new Semaphore(parallelism);
+        Result result = new Result();
+
+        Iterator<String> iterator = issueIds.iterator();
+        try {
+            while (iterator.hasNext()) {
+                String issueId = iterator.next();
+                slots.acquire();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            List<Comment> comments = loadComments(username, repositoryName, issueId);
+                            deliver(issueId, comments, listener, result);
+                        } catch (RuntimeException e) {
+                            fail(issueId, e, listener, result);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    fail(issueId, e, listener, result);
+                }
+            }
+            slots.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GogsClientException("interrupted while loading comments", e);
+        }
+        return result;
+    }
+
+    private List<Comment> loadComments(String username, String repositoryName, String issueId) {
+        if (bodyMode == TextMode.EAGER) {
+            return issueService.listComments(username, repositoryName, issueId);
+        }
+        return issueService.listComments(username, repositoryName, issueId, bodyMode);
+    }
+
+    private static void deliver(String issueId, List<Comment> comments, CommentListener listener, Result result) {
+        synchronized (result) {
+            for (Comment comment : comments) {
+                listener.onComment(issueId, comment);
+                result.commentCount++;
+            }
+            result.issueCount++;
+        }
+    }
+
+    private static void fail(String issueId, RuntimeException cause, CommentListener listener, Result result) {
+        synchronized (result) {
+            result.failures.put(issueId, cause);
+            listener.onFailure(issueId, cause);
+        }
+    }
+
+    private static String issueId(Issue issue) {
+        return String.valueOf(issue.getIndex() != null ? issue.getIndex() : issue.getId());
+    }
+
+    /**
+     * summary of a bulk load.
+     */
+    public static final class Result {
+
+        private int issueCount;
+
+        private long commentCount;
+
+        private final Map<String, RuntimeException> failures = new LinkedHashMap<>();
+
+        private Result() {
+        }
+
+        /**
+         * get number of issues with successfully loaded comments.
+         *
+         * @return number of issues.
+         */
+        public synchronized int getIssueCount() {
+            return issueCount;
+        }
+
+        /**
+         * get number of comments passed to the listener.
+         *
+         * @return number of comments.
+         */
+        public synchronized long getCommentCount() {
+            return commentCount;
+        }
+
+        /**
+         * get failures by issue id. includes exceptions thrown by the listener.
+         *
+         * @return failures.
+         */
+        public synchronized Map<String, RuntimeException> getFailures() {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        }
+    }
+}
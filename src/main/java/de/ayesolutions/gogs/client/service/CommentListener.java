@@ -0,0 +1,31 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.model.Comment;
+
+/**
+ * receives comments loaded by {@link BulkCommentLoader}.
+ * <p>
+ * calls are never made concurrently. all comments of an issue are passed one after another in server order.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@FunctionalInterface
+public interface CommentListener {
+
+    /**
+     * process loaded comment.
+     *
+     * @param issueId issue id.
+     * @param comment comment of issue.
+     */
+    void onComment(String issueId, Comment comment);
+
+    /**
+     * comments of an issue could not be loaded. the remaining issues are loaded anyway.
+     *
+     * @param issueId issue id.
+     * @param cause   failure.
+     */
+    default void onFailure(String issueId, RuntimeException cause) {
+    }
+}
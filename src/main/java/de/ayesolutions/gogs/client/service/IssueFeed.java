@@ -0,0 +1,245 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.BoundedExecutor;
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.paging.PageIterator;
+import de.ayesolutions.gogs.client.paging.Pages;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * recently updated issues of many repositories.
+ * <p>
+ * the first page of every repository is requested in parallel, at most {@code parallelism} at a time. the per
+ * repository issue lists are merged by update time with a k-way heap merge and further pages are only requested
+ * when a repository runs out of issues before the limit is reached.
+ * <p>
+ * the merge needs every repository list sorted by update time. if the server honours {@code sort=recentupdate}
+ * pages are loaded on demand, otherwise all issues of every repository are loaded and sorted locally.
+ * <p>
+ * the first pages are requested as soon as a stream is created. streams must be closed, e.g. with
+ * try-with-resources, to cancel requests of repositories which were not loaded yet.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class IssueFeed {
+
+    private static final Comparator<Issue> RECENTLY_UPDATED = Comparator.comparing(Issue::getUpdated,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private final IssueService issueService;
+
+    private final RepositoryService repositoryService;
+
+    private final Executor executor;
+
+    private final boolean serverSortsByUpdate;
+
+    private final Map<String, String> parameters;
+
+    /**
+     * default constructor.
+     *
+     * @param client              gogs client.
+     * @param executor            executor for issue requests.
+     * @param parallelism         maximum number of repositories requested at the same time.
+     * @param serverSortsByUpdate true if the server honours {@code sort=recentupdate} for issue lists.
+     * @param parameters          additional url parameters for issue lists. (e.g. state)
+     */
+    public IssueFeed(final GogsClient client, final Executor executor, final int parallelism,
+                     final boolean serverSortsByUpdate, final Map<String, String> parameters) {
+        this.issueService = new IssueService(client);
+        this.repositoryService = new RepositoryService(client);
+        this.executor = new BoundedExecutor(executor, parallelism);
+        this.serverSortsByUpdate = serverSortsByUpdate;
+        this.parameters = new HashMap<>();
+        if (parameters != null) {
+            this.parameters.putAll(parameters);
+        }
+        if (serverSortsByUpdate) {
+            this.parameters.put("sort", "recentupdate");
+        }
+    }
+
+    /**
+     * recently updated issues of all repositories of an organization.
+     *
+     * @param organizationName organization name.
+     * @param limit            maximum number of issues.
+     * @return issues, most recently updated first. must be closed.
+     */
+    public Stream<Entry> organization(String organizationName, int limit) {
+        return repositories(repositoryService.streamOrganizationRepositories(organizationName)
+                .collect(Collectors.toList()), limit);
+    }
+
+    /**
+     * recently updated issues of all repositories of an user.
+     *
+     * @param username name of user.
+     * @param limit    maximum number of issues.
+     * @return issues, most recently updated first. must be closed.
+     */
+    public Stream<Entry> user(String username, int limit) {
+        return repositories(repositoryService.streamUserRepositories(username).collect(Collectors.toList()), limit);
+    }
+
+    /**
+     * recently updated issues of specified repositories. the first page of every repository is requested right
+     * away, closing the stream cancels all requests which have not started yet.
+     *
+     * @param repositories repositories.
+     * @param limit        maximum number of issues.
+     * @return issues, most recently updated first. must be closed.
+     */
+    public Stream<Entry> repositories(Collection<Repository> repositories, int limit) {
+        List<CompletableFuture<Source>> futures = new ArrayList<>();
+        for (Repository repository : repositories) {
+            futures.add(CompletableFuture.supplyAsync(() -> new Source(repository), executor));
+        }
+
+        Iterator<Entry> iterator = new MergeIterator(futures);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).limit(limit)
+                .onClose(() -> futures.forEach(future -> future.cancel(true)));
+    }
+
+    /**
+     * issue with its repository.
+     */
+    public static final class Entry {
+
+        private final Repository repository;
+
+        private final Issue issue;
+
+        private Entry(final Repository repository, final Issue issue) {
+            this.repository = repository;
+            this.issue = issue;
+        }
+
+        /**
+         * get repository of issue.
+         *
+         * @return repository as passed to or loaded by the feed.
+         */
+        public Repository getRepository() {
+            return repository;
+        }
+
+        /**
+         * get issue.
+         *
+         * @return issue.
+         */
+        public Issue getIssue() {
+            return issue;
+        }
+    }
+
+    /**
+     * sorted issues of a single repository with the current head.
+     */
+    private final class Source {
+
+        private final Repository repository;
+
+        private final Iterator<Issue> issues;
+
+        private Issue head;
+
+        private Source(final Repository repository) {
+            this.repository = repository;
+
+            String username = repository.getOwner().getUsername();
+            String repositoryName = repository.getName();
+            if (serverSortsByUpdate) {
+                this.issues = new PageIterator<>(page -> issueService.getIssuePage(username, repositoryName,
+                        parameters, page), IssueService.ISSUE_PAGE_SIZE);
+            } else {
+                List<Issue> list = Pages.list(page -> issueService.getIssuePage(username, repositoryName,
+                        parameters, page), IssueService.ISSUE_PAGE_SIZE);
+                list.sort(RECENTLY_UPDATED);
+                this.issues = list.iterator();
+            }
+            advance();
+        }
+
+        private boolean advance() {
+            head = issues.hasNext() ? issues.next() : null;
+            return head != null;
+        }
+    }
+
+    /**
+     * k-way merge of all repository sources.
+     */
+    private static final class MergeIterator implements Iterator<Entry> {
+
+        private final List<CompletableFuture<Source>> futures;
+
+        private PriorityQueue<Source> queue;
+
+        private MergeIterator(final List<CompletableFuture<Source>> futures) {
+            this.futures = futures;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (queue == null) {
+                queue = new PriorityQueue<>(Math.max(futures.size(), 1),
+                        (first, second) -> RECENTLY_UPDATED.compare(first.head, second.head));
+                for (CompletableFuture<Source> future : futures) {
+                    Source source = join(future);
+                    if (source.head != null) {
+                        queue.add(source);
+                    }
+                }
+            }
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Source source = queue.poll();
+            Entry entry = new Entry(source.repository, source.head);
+            if (source.advance()) {
+                queue.add(source);
+            }
+            return entry;
+        }
+
+        private static Source join(CompletableFuture<Source> future) {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new GogsClientException("could not load issues", e.getCause());
+            }
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package de.ayesolutions.gogs.client.service;
 
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.ayesolutions.gogs.client.GogsClient;
 import de.ayesolutions.gogs.client.model.Comment;
 import de.ayesolutions.gogs.client.model.Issue;
 import de.ayesolutions.gogs.client.model.IssueLabel;
 import de.ayesolutions.gogs.client.model.Milestone;
+import de.ayesolutions.gogs.client.model.TextMode;
+import de.ayesolutions.gogs.client.paging.Page;
+import de.ayesolutions.gogs.client.paging.Pages;
 
 import javax.ws.rs.core.GenericType;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * service class for issue management.
@@ -17,6 +25,11 @@ import java.util.List;
  */
 public class IssueService extends BaseService {
 
+    /**
+     * number of issues per page. (gogs default)
+     */
+    public static final int ISSUE_PAGE_SIZE = 10;
+
     /**
      * default constructor.
      *
@@ -27,18 +40,128 @@ public class IssueService extends BaseService {
     }
 
     /**
-     * list alle issues for specified repository.
+     * list alle issues for specified repository. all pages are loaded, use
+     * {@link #streamIssues(String, String)} to stop early.
      * <p>
-     * GET /api/v1/repos/:username/:reponame/issues
+     * GET /api/v1/repos/:username/:reponame/issues?page=:page
      *
      * @param username       username. username.
      * @param repositoryName repository name. repository name.
      * @return list of issues.
      */
     public List<Issue> listIssues(String username, String repositoryName) {
-        List<Issue> list = getClient().get(new GenericType<List<Issue>>() {
-        }, "repos", username, repositoryName, "issues");
-        return list != null ? list : Collections.emptyList();
+        return streamIssues(username, repositoryName).collect(Collectors.toList());
+    }
+
+    /**
+     * list alle issues for specified repository and read issue bodies with specified mode. all pages are loaded.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/issues?page=:page
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param bodyMode       read mode for issue bodies.
+     * @return list of issues.
+     */
+    public List<Issue> listIssues(String username, String repositoryName, TextMode bodyMode) {
+        ObjectReader reader = reader(new GenericType<List<Issue>>() {
+        }, bodyMode);
+        return Pages.<Issue>stream(page -> getClient().getPage(reader, null, page, "repos", username,
+                repositoryName, "issues"), ISSUE_PAGE_SIZE).collect(Collectors.toList());
+    }
+
+    /**
+     * list one page of issues for specified repository.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/issues?page=:page
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param page           page number (starts with 1).
+     * @return list of issues.
+     */
+    public List<Issue> listIssues(String username, String repositoryName, int page) {
+        return getIssuePage(username, repositoryName, null, page).getItems();
+    }
+
+    /**
+     * get one page of issues for specified repository.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/issues?page=:page
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param parameters     additional url parameters. (e.g. state)
+     * @param page           page number (starts with 1).
+     * @return page of issues.
+     */
+    public Page<Issue> getIssuePage(String username, String repositoryName, Map<String, String> parameters,
+                                    int page) {
+        return getClient().getPage(new GenericType<List<Issue>>() {
+        }, parameters, page, "repos", username, repositoryName, "issues");
+    }
+
+    /**
+     * iterate over all issues of specified repository. pages are loaded on demand.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @return iterable of issues.
+     */
+    public Iterable<Issue> iterateIssues(String username, String repositoryName) {
+        return iterateIssues(username, repositoryName, null);
+    }
+
+    /**
+     * iterate over all issues of specified repository. pages are loaded on demand.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param parameters     additional url parameters. (e.g. state)
+     * @return iterable of issues.
+     */
+    public Iterable<Issue> iterateIssues(String username, String repositoryName, Map<String, String> parameters) {
+        return Pages.iterable(page -> getIssuePage(username, repositoryName, parameters, page), ISSUE_PAGE_SIZE);
+    }
+
+    /**
+     * stream all issues of specified repository. pages are loaded on demand.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @return stream of issues.
+     */
+    public Stream<Issue> streamIssues(String username, String repositoryName) {
+        return streamIssues(username, repositoryName, null);
+    }
+
+    /**
+     * stream all issues of specified repository. pages are loaded on demand.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param parameters     additional url parameters. (e.g. state)
+     * @return stream of issues.
+     */
+    public Stream<Issue> streamIssues(String username, String repositoryName, Map<String, String> parameters) {
+        return Pages.stream(page -> getIssuePage(username, repositoryName, parameters, page), ISSUE_PAGE_SIZE);
+    }
+
+    /**
+     * stream all issues of specified repository while up to {@code depth} pages are loaded ahead in parallel.
+     * issues are returned in page order. close the stream to cancel outstanding requests when stopping early.
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param parameters     additional url parameters. (e.g. state)
+     * @param executor       executor for page requests.
+     * @param depth          maximum number of pages requested at the same time.
+     * @return stream of issues.
+     */
+    public Stream<Issue> streamIssues(String username, String repositoryName, Map<String, String> parameters,
+                                      Executor executor, int depth) {
+        return Pages.stream(page -> getIssuePage(username, repositoryName, parameters, page), ISSUE_PAGE_SIZE,
+                executor, depth);
     }
 
     /**
@@ -100,6 +223,24 @@ public class IssueService extends BaseService {
         return list != null ? list : Collections.emptyList();
     }
 
+    /**
+     * get list of comments from an issue and read comment bodies with specified mode.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/issues/:issueId/comments
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param issueId        issue id.
+     * @param bodyMode       read mode for comment bodies.
+     * @return list of comments.
+     */
+    public List<Comment> listComments(String username, String repositoryName, String issueId,
+                                      TextMode bodyMode) {
+        List<Comment> list = getClient().get(reader(new GenericType<List<Comment>>() {
+        }, bodyMode), null, "repos", username, repositoryName, "issues", issueId, "comments");
+        return list != null ? list : Collections.emptyList();
+    }
+
     /**
      * create new comment to an issue.
      * <p>
@@ -338,4 +479,8 @@ public class IssueService extends BaseService {
     public void deleteMilestone(String username, String repositoryName, String milestoneId) {
         getClient().delete(Milestone.class, "repos", username, repositoryName, "milestones", milestoneId);
     }
+
+    private ObjectReader reader(GenericType<?> type, TextMode bodyMode) {
+        return getClient().getJsonProvider().reader(type).withAttribute(TextMode.class, bodyMode);
+    }
 }
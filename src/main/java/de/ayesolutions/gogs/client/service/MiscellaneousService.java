@@ -1,6 +1,9 @@
 package de.ayesolutions.gogs.client.service;
 
 import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.markdown.MarkdownRenderer;
+import de.ayesolutions.gogs.client.markdown.RenderMode;
+import de.ayesolutions.gogs.client.markdown.UnsupportedMarkdownException;
 import de.ayesolutions.gogs.client.model.Markdown;
 
 /**
@@ -10,13 +13,28 @@ import de.ayesolutions.gogs.client.model.Markdown;
  */
 public class MiscellaneousService extends BaseService {
 
+    private static final String API_PATH = "/api/v1";
+
+    private final MarkdownRenderer renderer;
+
     /**
      * default constructor.
      *
      * @param client gogs client.
      */
     public MiscellaneousService(final GogsClient client) {
+        this(client, new MarkdownRenderer(subUrl(client)));
+    }
+
+    /**
+     * constructor with local markdown renderer.
+     *
+     * @param client   gogs client.
+     * @param renderer renderer for {@link RenderMode#LOCAL} and {@link RenderMode#AUTO}.
+     */
+    public MiscellaneousService(final GogsClient client, final MarkdownRenderer renderer) {
         super(client);
+        this.renderer = renderer;
     }
 
     /**
@@ -31,6 +49,28 @@ public class MiscellaneousService extends BaseService {
         return getClient().post(String.class, markdown, "markdown");
     }
 
+    /**
+     * render markdown content to html locally or on the server.
+     *
+     * @param markdown markdown definition.
+     * @param mode     where to render.
+     * @return html rendered markdown.
+     * @throws UnsupportedMarkdownException in {@link RenderMode#LOCAL} if markdown can not be rendered locally.
+     */
+    public String renderMarkdown(Markdown markdown, RenderMode mode) {
+        if (mode == RenderMode.SERVER) {
+            return renderMarkdown(markdown);
+        }
+        try {
+            return renderer.render(markdown);
+        } catch (UnsupportedMarkdownException e) {
+            if (mode == RenderMode.LOCAL) {
+                throw e;
+            }
+            return renderMarkdown(markdown);
+        }
+    }
+
     /**
      * render markdown content to html.
      * <p>
@@ -42,4 +82,37 @@ public class MiscellaneousService extends BaseService {
     public String renderMarkdownRaw(String data) {
         return getClient().post(String.class, data, "markdown", "raw");
     }
+
+    /**
+     * render markdown content to html locally or on the server.
+     *
+     * @param data text markdown.
+     * @param mode where to render.
+     * @return html rendered markdown.
+     * @throws UnsupportedMarkdownException in {@link RenderMode#LOCAL} if markdown can not be rendered locally.
+     */
+    public String renderMarkdownRaw(String data, RenderMode mode) {
+        if (mode == RenderMode.SERVER) {
+            return renderMarkdownRaw(data);
+        }
+        try {
+            return renderer.renderRaw(data);
+        } catch (UnsupportedMarkdownException e) {
+            if (mode == RenderMode.LOCAL) {
+                throw e;
+            }
+            return renderMarkdownRaw(data);
+        }
+    }
+
+    private static String subUrl(GogsClient client) {
+        String path = client.getApiUri().getPath();
+        if (path == null) {
+            return "";
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path.endsWith(API_PATH) ? path.substring(0, path.length() - API_PATH.length()) : path;
+    }
 }
@@ -0,0 +1,221 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.BufferPool;
+import de.ayesolutions.gogs.client.GogsClientException;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * raw file of a repository streamed from the server.
+ * <p>
+ * the content is read from the http response as it arrives and never held in memory as a whole. the number of read
+ * bytes is checked against the content length of the response, a shorter or longer response fails with a
+ * {@link GogsClientException}. a conditional request with an unchanged etag gives a raw file without content, see
+ * {@link #isNotModified()}. the raw file has to be closed unless its content was transferred.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class RawFile implements Closeable {
+
+    /**
+     * maximum number of bytes per file channel transfer.
+     */
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+
+    private final Response response;
+
+    private final String etag;
+
+    private final long contentLength;
+
+    private final String contentType;
+
+    private final boolean notModified;
+
+    RawFile(final Response response, final boolean notModified, final String etag) {
+        this.response = response;
+        this.notModified = notModified;
+        String responseEtag = response.getHeaderString(HttpHeaders.ETAG);
+        this.etag = responseEtag != null ? responseEtag : etag;
+        this.contentLength = notModified ? -1 : response.getLength();
+        this.contentType = response.getHeaderString(HttpHeaders.CONTENT_TYPE);
+    }
+
+    /**
+     * get etag for a later conditional request.
+     *
+     * @return etag or null if the server did not send one.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * get size of content.
+     *
+     * @return size in bytes or -1 if unknown.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * get content type sent by the server.
+     *
+     * @return content type or null if the server did not send one.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * check if the file is unchanged since the etag of a conditional request, there is no content then.
+     *
+     * @return true if not modified.
+     */
+    public boolean isNotModified() {
+        return notModified;
+    }
+
+    /**
+     * get content stream. closing the stream closes the response.
+     *
+     * @return content stream.
+     * @throws GogsClientException if file was not modified.
+     */
+    public InputStream getInputStream() {
+        if (notModified) {
+            throw new GogsClientException("raw file not modified, no content available");
+        }
+        return response.readEntity(InputStream.class);
+    }
+
+    /**
+     * write content to channel and close the raw file. at most content length bytes are written, a longer response
+     * fails before its extra bytes reach the channel.
+     *
+     * @param target target channel, stays open.
+     * @return number of transferred bytes.
+     */
+    public long transferTo(WritableByteChannel target) {
+        byte[] buffer = BufferPool.acquire(BufferPool.BUFFER_SIZE);
+        try (InputStream inputStream = getInputStream()) {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long count = 0;
+            long limit = contentLength >= 0 ? contentLength : Long.MAX_VALUE;
+            int read;
+            while (count < limit && (read = inputStream.read(buffer, 0,
+                    (int) Math.min(buffer.length, limit - count))) >= 0) {
+                byteBuffer.clear().limit(read);
+                while (byteBuffer.hasRemaining()) {
+                    target.write(byteBuffer);
+                }
+                count += read;
+            }
+            if (count == contentLength && inputStream.read() >= 0) {
+                count++;
+            }
+            return checkLength(count);
+        } catch (IOException e) {
+            throw new GogsClientException("could not transfer raw file", e);
+        } finally {
+            BufferPool.release(buffer);
+            close();
+        }
+    }
+
+    /**
+     * save content to file and close the raw file. the content is written to a temporary file in the same directory
+     * first, which replaces the target file when the content is complete.
+     *
+     * @param target target file.
+     * @return number of written bytes.
+     */
+    public long saveTo(Path target) {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temporary = null;
+        try (InputStream inputStream = getInputStream();
+             ReadableByteChannel source = Channels.newChannel(inputStream)) {
+            temporary = Files.createTempFile(directory, target.getFileName().toString(), ".part");
+            long count = 0;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                long limit = contentLength >= 0 ? contentLength : Long.MAX_VALUE;
+                while (count < limit) {
+                    long transferred = channel.transferFrom(source, count, Math.min(TRANSFER_SIZE, limit - count));
+                    if (transferred == 0) {
+                        break;
+                    }
+                    count += transferred;
+                }
+                if (count == contentLength && inputStream.read() >= 0) {
+                    count++;
+                }
+                checkLength(count);
+                channel.force(false);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+            return count;
+        } catch (IOException e) {
+            throw new GogsClientException("could not save raw file", e);
+        } finally {
+            close();
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    temporary.toFile().deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * read content into byte array and close the raw file. only for small files.
+     *
+     * @return content.
+     */
+    public byte[] readAll() {
+        if (contentLength > Integer.MAX_VALUE - 8) {
+            close();
+            throw new GogsClientException("raw file too large for byte array: " + contentLength + " bytes");
+        }
+        try (InputStream inputStream = getInputStream()) {
+            byte[] data = BufferPool.readBytes(inputStream, (int) contentLength);
+            checkLength(data.length);
+            return data;
+        } catch (IOException e) {
+            throw new GogsClientException("could not read raw file", e);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        response.close();
+    }
+
+    private long checkLength(long count) {
+        if (contentLength >= 0 && count < contentLength) {
+            throw new GogsClientException("raw file incomplete: " + count + " of " + contentLength + " bytes");
+        }
+        if (contentLength >= 0 && count > contentLength) {
+            throw new GogsClientException("raw file longer than content length of " + contentLength + " bytes");
+        }
+        return count;
+    }
+}
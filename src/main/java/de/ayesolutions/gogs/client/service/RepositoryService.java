@@ -1,6 +1,9 @@
 package de.ayesolutions.gogs.client.service;
 
+import com.fasterxml.jackson.databind.JavaType;
 import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.cache.ExpiringCache;
 import de.ayesolutions.gogs.client.model.Branch;
 import de.ayesolutions.gogs.client.model.Collaborator;
 import de.ayesolutions.gogs.client.model.CreateRepository;
@@ -8,13 +11,26 @@ import de.ayesolutions.gogs.client.model.EditorDefinition;
 import de.ayesolutions.gogs.client.model.MigrationRepository;
 import de.ayesolutions.gogs.client.model.PublicKey;
 import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.RepositorySearchResult;
 import de.ayesolutions.gogs.client.model.WebHook;
+import de.ayesolutions.gogs.client.paging.Page;
+import de.ayesolutions.gogs.client.paging.Pages;
 
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * service class for repository management.
@@ -23,6 +39,20 @@ import java.util.Map;
  */
 public class RepositoryService extends BaseService {
 
+    /**
+     * default number of search results per page.
+     */
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 10;
+
+    /**
+     * maximum number of search results per page accepted by the server.
+     */
+    public static final int MAX_SEARCH_PAGE_SIZE = 50;
+
+    private static final int SEARCH_CACHE_SIZE = 256;
+
+    private final ExpiringCache<String, SearchResult> searchCache;
+
     /**
      * default constructor.
      *
@@ -30,6 +60,19 @@ public class RepositoryService extends BaseService {
      */
     public RepositoryService(final GogsClient client) {
         super(client);
+        this.searchCache = null;
+    }
+
+    /**
+     * constructor with search result cache.
+     *
+     * @param client         gogs client.
+     * @param searchCacheTtl time to live of cached search results.
+     * @param unit           time unit of time to live.
+     */
+    public RepositoryService(final GogsClient client, final long searchCacheTtl, final TimeUnit unit) {
+        super(client);
+        this.searchCache = new ExpiringCache<>(searchCacheTtl, unit, SEARCH_CACHE_SIZE);
     }
 
     /**
@@ -46,6 +89,56 @@ public class RepositoryService extends BaseService {
         return list != null ? list : Collections.emptyList();
     }
 
+    /**
+     * get one page of repositories owned by specified user.
+     * <p>
+     * GET /api/v1/users/:username/repos?page=:page
+     *
+     * @param username name of user.
+     * @param page     page number (starts with 1).
+     * @return page of repositories.
+     */
+    public Page<Repository> getUserRepositoryPage(String username, int page) {
+        return getClient().getPage(new GenericType<List<Repository>>() {
+        }, null, page, "users", username, "repos");
+    }
+
+    /**
+     * stream all repositories owned by specified user. the stream splits along page boundaries and can be used as
+     * parallel stream.
+     *
+     * @param username name of user.
+     * @return stream of repositories.
+     */
+    public Stream<Repository> streamUserRepositories(String username) {
+        return Pages.splittableStream(page -> getUserRepositoryPage(username, page), 0);
+    }
+
+    /**
+     * get one page of repositories owned by specified organization.
+     * <p>
+     * GET /api/v1/orgs/:orgname/repos?page=:page
+     *
+     * @param organizationName organization name.
+     * @param page             page number (starts with 1).
+     * @return page of repositories.
+     */
+    public Page<Repository> getOrganizationRepositoryPage(String organizationName, int page) {
+        return getClient().getPage(new GenericType<List<Repository>>() {
+        }, null, page, "orgs", organizationName, "repos");
+    }
+
+    /**
+     * stream all repositories owned by specified organization. the stream splits along page boundaries and can be
+     * used as parallel stream.
+     *
+     * @param organizationName organization name.
+     * @return stream of repositories.
+     */
+    public Stream<Repository> streamOrganizationRepositories(String organizationName) {
+        return Pages.splittableStream(page -> getOrganizationRepositoryPage(organizationName, page), 0);
+    }
+
     /**
      * create user repository.
      * <p>
@@ -88,6 +181,10 @@ public class RepositoryService extends BaseService {
      * search for repositories.
      * <p>
      * GET /api/v1/repos/search
+     * <p>
+     * a limit above {@link #MAX_SEARCH_PAGE_SIZE} is loaded from several pages. if the search cache is enabled
+     * results are reused for the same query and user id until the cache entry expires. cached results are kept as
+     * json and every call gets its own repository instances.
      *
      * @param query  query string.
      * @param userId user id. (default for all 0)
@@ -95,15 +192,102 @@ public class RepositoryService extends BaseService {
      * @return search result of found repositories.
      */
     public List<Repository> search(String query, long userId, int limit) {
+        int effectiveLimit = limit > 0 ? limit : DEFAULT_SEARCH_PAGE_SIZE;
+        String key = userId + ":" + query;
+        if (searchCache != null) {
+            SearchResult cached = searchCache.get(key);
+            if (cached != null && cached.covers(effectiveLimit)) {
+                List<Repository> list = readSearchResult(cached);
+                return list.size() > effectiveLimit ? new ArrayList<>(list.subList(0, effectiveLimit)) : list;
+            }
+        }
+
+        List<Repository> list = streamSearch(query, userId, Math.min(effectiveLimit, MAX_SEARCH_PAGE_SIZE))
+                .limit(effectiveLimit)
+                .collect(Collectors.toList());
+
+        if (searchCache != null) {
+            searchCache.put(key, new SearchResult(effectiveLimit, list.size(), writeSearchResult(list)));
+        }
+        return list;
+    }
+
+    private List<Repository> readSearchResult(SearchResult result) {
+        try {
+            return getClient().getJsonProvider().reader(searchResultType()).readValue(result.data);
+        } catch (IOException e) {
+            throw new GogsClientException("could not read cached search result", e);
+        }
+    }
+
+    private byte[] writeSearchResult(List<Repository> repositories) {
+        try {
+            return getClient().getJsonProvider().writer(searchResultType()).writeValueAsBytes(repositories);
+        } catch (IOException e) {
+            throw new GogsClientException("could not write cached search result", e);
+        }
+    }
+
+    private JavaType searchResultType() {
+        return getClient().getJsonProvider().getObjectMapper().getTypeFactory()
+                .constructCollectionType(List.class, Repository.class);
+    }
+
+    /**
+     * get one page of repository search results.
+     * <p>
+     * GET /api/v1/repos/search?q=:query&amp;uid=:userId&amp;limit=:pageSize&amp;page=:page
+     *
+     * @param query    query string.
+     * @param userId   user id. (default for all 0)
+     * @param pageSize number of results per page. (at most {@link #MAX_SEARCH_PAGE_SIZE})
+     * @param page     page number (starts with 1).
+     * @return page of found repositories.
+     */
+    public Page<Repository> getSearchPage(String query, long userId, int pageSize, int page) {
         Map<String, String> parameters = new HashMap<>();
         parameters.put("q", query);
         parameters.put("uid", String.valueOf(userId));
-        parameters.put("limit", String.valueOf(limit));
+        parameters.put("limit", String.valueOf(pageSize));
 
-        List<Repository> list = getClient().get(new GenericType<List<Repository>>() {
-        }, parameters, "user", "repos");
+        return getClient().getPage(new GenericType<RepositorySearchResult>() {
+        }, RepositorySearchResult::getData, parameters, page, "repos", "search");
+    }
 
-        return list != null ? list : Collections.emptyList();
+    /**
+     * stream all repository search results. pages are loaded while the stream is consumed.
+     *
+     * @param query    query string.
+     * @param userId   user id. (default for all 0)
+     * @param pageSize number of results per page. (at most {@link #MAX_SEARCH_PAGE_SIZE})
+     * @return stream of found repositories.
+     */
+    public Stream<Repository> streamSearch(String query, long userId, int pageSize) {
+        int size = checkSearchPageSize(pageSize);
+        return Pages.stream(page -> getSearchPage(query, userId, size, page), size);
+    }
+
+    /**
+     * stream all repository search results. up to {@code depth} pages are loaded in parallel ahead of the consumer,
+     * the stream should be closed if it is not consumed completely.
+     *
+     * @param query    query string.
+     * @param userId   user id. (default for all 0)
+     * @param pageSize number of results per page. (at most {@link #MAX_SEARCH_PAGE_SIZE})
+     * @param executor executor for page requests.
+     * @param depth    maximum number of pages requested at the same time.
+     * @return stream of found repositories.
+     */
+    public Stream<Repository> streamSearch(String query, long userId, int pageSize, Executor executor, int depth) {
+        int size = checkSearchPageSize(pageSize);
+        return Pages.stream(page -> getSearchPage(query, userId, size, page), size, executor, depth);
+    }
+
+    private static int checkSearchPageSize(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_SEARCH_PAGE_SIZE) {
+            throw new IllegalArgumentException("page size must be between 1 and " + MAX_SEARCH_PAGE_SIZE);
+        }
+        return pageSize;
     }
 
     /**
@@ -224,11 +408,96 @@ public class RepositoryService extends BaseService {
      *
      * @param username       username.
      * @param repositoryName repository name.
-     * @param path           path to file.
-     * @return data byte array.
+     * @param path           path to file beginning with branch, tag or commit. (e.g. master/README.md)
+     * @return data byte array or null if not found.
+     * @see #openRawFile(String, String, String)
      */
     public byte[] getRawFile(String username, String repositoryName, String path) {
-        throw new UnsupportedOperationException("receive binary data currently not supported");
+        RawFile rawFile = openRawFile(username, repositoryName, path);
+        return rawFile != null ? rawFile.readAll() : null;
+    }
+
+    /**
+     * open raw file in repository as stream. the raw file has to be closed.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/raw/:path
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param path           path to file beginning with branch, tag or commit. (e.g. master/README.md)
+     * @return raw file or null if not found.
+     */
+    public RawFile openRawFile(String username, String repositoryName, String path) {
+        return openRawFile(username, repositoryName, path, null);
+    }
+
+    /**
+     * open raw file in repository as stream if it has changed since the specified etag. the raw file has to be
+     * closed.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/raw/:path
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param path           path to file beginning with branch, tag or commit. (e.g. master/README.md)
+     * @param etag           etag of a previous request or null.
+     * @return raw file, not modified raw file without content or null if not found.
+     */
+    public RawFile openRawFile(String username, String repositoryName, String path, String etag) {
+        Map<String, String> headers = null;
+        if (etag != null) {
+            headers = Collections.singletonMap(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        String[] segments = {"repos", username, repositoryName, "raw", path};
+        Response response = getClient().callRequest("GET", null, null, headers, segments);
+        if (etag != null && response.getStatus() == GogsClient.HTTP_NOT_MODIFIED) {
+            RawFile rawFile = new RawFile(response, true, etag);
+            rawFile.close();
+            return rawFile;
+        }
+        if (!getClient().handleStatusCode(response, String.join("/", segments))) {
+            response.close();
+            return null;
+        }
+        return new RawFile(response, false, null);
+    }
+
+    /**
+     * write raw file in repository to channel.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/raw/:path
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param path           path to file beginning with branch, tag or commit. (e.g. master/README.md)
+     * @param target         target channel, stays open.
+     * @return number of transferred bytes or -1 if not found.
+     */
+    public long transferRawFile(String username, String repositoryName, String path, WritableByteChannel target) {
+        RawFile rawFile = openRawFile(username, repositoryName, path);
+        return rawFile != null ? rawFile.transferTo(target) : -1;
+    }
+
+    /**
+     * save raw file in repository to file if it has changed since the specified etag. the target file is replaced
+     * only after the whole content was received.
+     * <p>
+     * GET /api/v1/repos/:username/:reponame/raw/:path
+     *
+     * @param username       username.
+     * @param repositoryName repository name.
+     * @param path           path to file beginning with branch, tag or commit. (e.g. master/README.md)
+     * @param target         target file.
+     * @param etag           etag of a previous download or null.
+     * @return closed raw file with etag and content length or null if not found.
+     */
+    public RawFile downloadRawFile(String username, String repositoryName, String path, Path target,
+                                   String etag) {
+        RawFile rawFile = openRawFile(username, repositoryName, path, etag);
+        if (rawFile != null && !rawFile.isNotModified()) {
+            rawFile.saveTo(target);
+        }
+        return rawFile;
     }
 
     /**
@@ -345,4 +614,26 @@ public class RepositoryService extends BaseService {
     public EditorDefinition getEditorConfig(String username, String repositoryName, String path) {
         return getClient().get(EditorDefinition.class, "repos", username, repositoryName, "editorconfig", path);
     }
+
+    /**
+     * cached search result as json with the limit it was loaded with.
+     */
+    private static final class SearchResult {
+
+        private final int limit;
+
+        private final int count;
+
+        private final byte[] data;
+
+        private SearchResult(final int limit, final int count, final byte[] data) {
+            this.limit = limit;
+            this.count = count;
+            this.data = data;
+        }
+
+        private boolean covers(int requestedLimit) {
+            return requestedLimit <= limit || count < limit;
+        }
+    }
 }
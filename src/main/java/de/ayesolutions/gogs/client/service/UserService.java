@@ -8,6 +8,8 @@ import de.ayesolutions.gogs.client.model.EmailList;
 import de.ayesolutions.gogs.client.model.PublicKey;
 import de.ayesolutions.gogs.client.model.User;
 import de.ayesolutions.gogs.client.model.UserSearchResult;
+import de.ayesolutions.gogs.client.paging.Page;
+import de.ayesolutions.gogs.client.paging.Pages;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
@@ -16,6 +18,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * service class for user management.
@@ -24,6 +27,11 @@ import java.util.Map;
  */
 public class UserService extends BaseService {
 
+    /**
+     * number of followers per page. (gogs default)
+     */
+    public static final int FOLLOWER_PAGE_SIZE = 40;
+
     /**
      * default constructor.
      *
@@ -152,6 +160,30 @@ public class UserService extends BaseService {
         return list != null ? list : Collections.emptyList();
     }
 
+    /**
+     * get one page of users who follow specified user.
+     * <p>
+     * GET /api/v1/users/:username/followers?page=:page
+     *
+     * @param username name of user.
+     * @param page     page number (starts with 1).
+     * @return page of followers.
+     */
+    public Page<User> getFollowerPage(String username, int page) {
+        return getClient().getPage(new GenericType<List<User>>() {
+        }, null, page, "users", username, "followers");
+    }
+
+    /**
+     * stream all users who follow specified user. pages are loaded on demand.
+     *
+     * @param username name of user.
+     * @return stream of followers.
+     */
+    public Stream<User> streamFollowers(String username) {
+        return Pages.stream(page -> getFollowerPage(username, page), FOLLOWER_PAGE_SIZE);
+    }
+
     /**
      * get user list of users who follows signed in user.
      * <p>
@@ -181,6 +213,30 @@ public class UserService extends BaseService {
         return list != null ? list : Collections.emptyList();
     }
 
+    /**
+     * get one page of users followed by specified user.
+     * <p>
+     * GET /api/v1/users/:username/following?page=:page
+     *
+     * @param username name of user.
+     * @param page     page number (starts with 1).
+     * @return page of users.
+     */
+    public Page<User> getFollowingPage(String username, int page) {
+        return getClient().getPage(new GenericType<List<User>>() {
+        }, null, page, "users", username, "following");
+    }
+
+    /**
+     * stream all users followed by specified user. pages are loaded on demand.
+     *
+     * @param username name of user.
+     * @return stream of users.
+     */
+    public Stream<User> streamFollowing(String username) {
+        return Pages.stream(page -> getFollowingPage(username, page), FOLLOWER_PAGE_SIZE);
+    }
+
     /**
      * get user list of signed in user that follow others.
      * <p>
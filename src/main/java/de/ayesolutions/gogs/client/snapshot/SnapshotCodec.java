@@ -0,0 +1,227 @@
+package de.ayesolutions.gogs.client.snapshot;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import de.ayesolutions.gogs.client.GogsClientException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * compact binary codec for model snapshots.
+ * <p>
+ * a snapshot file starts with a fixed magic and format version followed by a smile encoded stream. the first smile
+ * value is a header with model type and element count, all following values are the model instances. smile stores
+ * numbers as variable length integers and replaces repeated property names and short string values with
+ * back-references, so repeated values like owner names, urls and states are written only once per snapshot.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class SnapshotCodec {
+
+    /**
+     * current snapshot format version.
+     */
+    public static final byte VERSION = 1;
+
+    private static final int MAGIC = 0x474f4753;
+
+    private static final int PREFIX_LENGTH = 5;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * default constructor.
+     */
+    public SnapshotCodec() {
+        SmileFactory smileFactory = new SmileFactory();
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+        smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        smileFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        smileFactory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+        this.objectMapper = new ObjectMapper(smileFactory);
+    }
+
+    /**
+     * write model collection as snapshot to file. the file is replaced atomically.
+     *
+     * @param path   target file.
+     * @param type   model class.
+     * @param values model instances.
+     * @param <T>    model type.
+     * @throws IOException if file could not be written.
+     */
+    public <T> void write(Path path, Class<T> type, Collection<? extends T> values) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, type, values);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * write model collection as snapshot to channel at its current position.
+     *
+     * @param channel target channel.
+     * @param type    model class.
+     * @param values  model instances.
+     * @param <T>     model type.
+     * @throws IOException if channel could not be written.
+     */
+    public <T> void write(FileChannel channel, Class<T> type, Collection<? extends T> values) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH).putInt(MAGIC).put(VERSION);
+        prefix.flip();
+        while (prefix.hasRemaining()) {
+            channel.write(prefix);
+        }
+
+        ObjectNode header = objectMapper.createObjectNode();
+        header.put("type", type.getName());
+        header.put("count", values.size());
+
+        ObjectWriter writer = objectMapper.writerFor(type);
+        OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeTree(header);
+            for (T value : values) {
+                writer.writeValue(generator, value);
+            }
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * read all model instances from snapshot file.
+     *
+     * @param path source file.
+     * @param type model class.
+     * @param <T>  model type.
+     * @return list of model instances.
+     * @throws IOException if file could not be read.
+     */
+    public <T> List<T> read(Path path, Class<T> type) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel, type);
+        }
+    }
+
+    /**
+     * read all model instances from snapshot channel.
+     *
+     * @param channel source channel.
+     * @param type    model class.
+     * @param <T>     model type.
+     * @return list of model instances.
+     * @throws IOException if channel could not be read.
+     */
+    public <T> List<T> read(FileChannel channel, Class<T> type) throws IOException {
+        List<T> list = new ArrayList<>();
+        read(channel, type, list::add);
+        return list;
+    }
+
+    /**
+     * read model instances one by one from snapshot channel.
+     *
+     * @param channel  source channel.
+     * @param type     model class.
+     * @param consumer consumer for each model instance.
+     * @param <T>      model type.
+     * @throws IOException if channel could not be read.
+     */
+    public <T> void read(FileChannel channel, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH);
+        while (prefix.hasRemaining()) {
+            if (channel.read(prefix) < 0) {
+                throw new GogsClientException("invalid snapshot: unexpected end of file");
+            }
+        }
+        prefix.flip();
+        if (prefix.getInt() != MAGIC) {
+            throw new GogsClientException("invalid snapshot: unknown file format");
+        }
+        byte version = prefix.get();
+        if (version != VERSION) {
+            throw new GogsClientException("invalid snapshot: unsupported version " + version);
+        }
+
+        ObjectReader reader = objectMapper.readerFor(type);
+        InputStream inputStream = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new GogsClientException("invalid snapshot: missing header");
+            }
+            ObjectNode header = objectMapper.readTree(parser);
+            if (!type.getName().equals(header.path("type").asText())) {
+                throw new GogsClientException("invalid snapshot: contains " + header.path("type").asText());
+            }
+
+            int count = header.path("count").asInt();
+            for (int i = 0; i < count; i++) {
+                parser.nextToken();
+                consumer.accept(reader.readValue(parser));
+            }
+        }
+    }
+
+    /**
+     * encode single value.
+     *
+     * @param value model instance.
+     * @return encoded bytes.
+     */
+    public byte[] encode(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new GogsClientException("could not encode " + value.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * decode single value.
+     *
+     * @param data encoded bytes.
+     * @param type java type of value.
+     * @param <T>  model type.
+     * @return model instance.
+     */
+    public <T> T decode(byte[] data, JavaType type) {
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (IOException e) {
+            throw new GogsClientException("could not decode " + type, e);
+        }
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,84 @@
+package de.ayesolutions.gogs.client.sync;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * synchronization cursors stored in a properties file. the file is replaced atomically on every save.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FileSyncCursorStore implements SyncCursorStore {
+
+    private final Path path;
+
+    private final Properties properties = new Properties();
+
+    /**
+     * default constructor.
+     *
+     * @param path properties file.
+     */
+    public FileSyncCursorStore(final Path path) {
+        this.path = path;
+        if (Files.exists(path)) {
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                throw new GogsClientException("could not read sync cursors from " + path, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized SyncCursor load(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return SyncCursor.INITIAL;
+        }
+        // updated:id/updated,id/updated
+        String[] parts = value.split(":", 2);
+        long updated = Long.parseLong(parts[0]);
+        Map<Long, Long> seen = new HashMap<>();
+        if (parts.length > 1 && !parts[1].isEmpty()) {
+            for (String issue : parts[1].split(",")) {
+                int separator = issue.indexOf('/');
+                if (separator < 0) {
+                    throw new GogsClientException("invalid sync cursor " + key + " in " + path);
+                }
+                seen.put(Long.parseLong(issue.substring(0, separator)), Long.parseLong(issue.substring(separator + 1)));
+            }
+        }
+        return new SyncCursor(updated, seen);
+    }
+
+    @Override
+    public synchronized void save(String key, SyncCursor cursor) {
+        StringBuilder value = new StringBuilder().append(cursor.getUpdated()).append(':');
+        String separator = "";
+        for (Map.Entry<Long, Long> issue : cursor.getSeen().entrySet()) {
+            value.append(separator).append(issue.getKey()).append('/').append(issue.getValue());
+            separator = ",";
+        }
+        properties.setProperty(key, value.toString());
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+                properties.store(outputStream, "gogs issue sync cursors");
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new GogsClientException("could not write sync cursors to " + path, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package de.ayesolutions.gogs.client.sync;
+
+import de.ayesolutions.gogs.client.model.Issue;
+
+/**
+ * receives changed issues during synchronization.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+@FunctionalInterface
+public interface IssueChangeListener {
+
+    /**
+     * apply changed issue to local store.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param issue          new or changed issue.
+     */
+    void onIssueChanged(String username, String repositoryName, Issue issue);
+}
@@ -0,0 +1,143 @@
+package de.ayesolutions.gogs.client.sync;
+
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.service.IssueService;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * incremental issue synchronization.
+ * <p>
+ * for every repository a {@link SyncCursor} with the update time of the newest synchronized issue is kept in a
+ * {@link SyncCursorStore}. a synchronization run passes only issues changed after that cursor to the listener, in
+ * ascending order of update time, and advances the cursor. the last {@link SyncCursor#OVERLAP} before the cursor is
+ * scanned again because of the one second resolution of gogs update times. how many issues are requested depends on
+ * the {@link Strategy}.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class IssueSynchronizer {
+
+    /**
+     * issue states requested by a synchronization run.
+     */
+    private static final String[] STATES = {"open", "closed"};
+
+    /**
+     * how changed issues are found.
+     */
+    public enum Strategy {
+        /**
+         * walk all issue pages and filter locally. works with every gogs version.
+         */
+        FULL_SCAN,
+
+        /**
+         * request issues sorted by update time (sort=recentupdate) and stop at the first issue older than the overlap
+         * window of the cursor. only use this if the server honours the sort parameter.
+         */
+        RECENTLY_UPDATED,
+
+        /**
+         * let the server filter by update time (since=timestamp). only use this if the server supports the since
+         * parameter.
+         */
+        SINCE
+    }
+
+    private final IssueService issueService;
+
+    private final SyncCursorStore cursorStore;
+
+    private final Strategy strategy;
+
+    /**
+     * default constructor.
+     *
+     * @param issueService issue service.
+     * @param cursorStore  storage for cursors.
+     * @param strategy     strategy to find changed issues.
+     */
+    public IssueSynchronizer(final IssueService issueService, final SyncCursorStore cursorStore,
+                             final Strategy strategy) {
+        this.issueService = issueService;
+        this.cursorStore = cursorStore;
+        this.strategy = strategy;
+    }
+
+    /**
+     * synchronize issues of repository.
+     * <p>
+     * if the listener fails the cursor is advanced to the last applied issue and the exception is rethrown.
+     *
+     * @param username       owner of repository.
+     * @param repositoryName repository name.
+     * @param listener       listener for changed issues.
+     * @return number of changed issues.
+     */
+    public int synchronize(String username, String repositoryName, IssueChangeListener listener) {
+        String key = username + "/" + repositoryName;
+        SyncCursor cursor = cursorStore.load(key);
+
+        Map<Long, Issue> changed = new LinkedHashMap<>();
+        for (String state : STATES) {
+            collectChanges(username, repositoryName, state, cursor, changed);
+        }
+        List<Issue> changes = new ArrayList<>(changed.values());
+        changes.sort(Comparator.comparingLong(SyncCursor::updated)
+                .thenComparing(Issue::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        SyncCursor applied = cursor;
+        try {
+            for (Issue issue : changes) {
+                listener.onIssueChanged(username, repositoryName, issue);
+                applied = applied.advance(issue);
+            }
+        } finally {
+            if (applied != cursor) {
+                cursorStore.save(key, applied);
+            }
+        }
+        return changes.size();
+    }
+
+    private void collectChanges(String username, String repositoryName, String state, SyncCursor cursor,
+                                Map<Long, Issue> changes) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("state", state);
+        if (strategy == Strategy.RECENTLY_UPDATED) {
+            parameters.put("sort", "recentupdate");
+        } else if (strategy == Strategy.SINCE && cursor != SyncCursor.INITIAL) {
+            parameters.put("since", formatTimestamp(cursor.getThreshold()));
+        }
+
+        Iterator<Issue> iterator = issueService.iterateIssues(username, repositoryName, parameters).iterator();
+        while (iterator.hasNext()) {
+            Issue issue = iterator.next();
+            if (cursor.isBefore(issue)) {
+                // an issue changing its state during the run is listed twice, keep the newer one
+                Issue previous = changes.get(issue.getId());
+                if (previous == null || SyncCursor.updated(previous) < SyncCursor.updated(issue)) {
+                    changes.put(issue.getId(), issue);
+                }
+            } else if (strategy == Strategy.RECENTLY_UPDATED && SyncCursor.updated(issue) < cursor.getThreshold()) {
+                return;
+            }
+        }
+    }
+
+    private static String formatTimestamp(long time) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(time));
+    }
+}
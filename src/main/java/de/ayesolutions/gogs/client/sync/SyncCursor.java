@@ -0,0 +1,112 @@
+package de.ayesolutions.gogs.client.sync;
+
+import de.ayesolutions.gogs.client.model.Issue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * high-water mark of a repository synchronization: update time of the newest synchronized issue and the issues
+ * synchronized within the overlap window before it.
+ * <p>
+ * gogs stores update times in seconds, so an issue can be changed later in the same second as the newest synchronized
+ * issue and still have the same or even an older update time. issues are therefore compared against the update time
+ * minus {@link #OVERLAP}, and issues already synchronized with the same update time within that window are skipped.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public final class SyncCursor {
+
+    /**
+     * time before the high-water mark which is scanned again on every synchronization, in milliseconds.
+     */
+    public static final long OVERLAP = 1000;
+
+    /**
+     * cursor before the first synchronization.
+     */
+    public static final SyncCursor INITIAL = new SyncCursor(Long.MIN_VALUE, Collections.emptyMap());
+
+    private final long updated;
+
+    private final Map<Long, Long> seen;
+
+    /**
+     * default constructor.
+     *
+     * @param updated update time in milliseconds.
+     * @param seen    update times of synchronized issues within the overlap window by issue id.
+     */
+    public SyncCursor(final long updated, final Map<Long, Long> seen) {
+        this.updated = updated;
+        this.seen = Collections.unmodifiableMap(new HashMap<>(seen));
+    }
+
+    /**
+     * check if issue was changed after this cursor.
+     *
+     * @param issue issue.
+     * @return true if issue is not synchronized yet with its current update time.
+     */
+    public boolean isBefore(Issue issue) {
+        long issueUpdated = updated(issue);
+        if (issueUpdated < getThreshold()) {
+            return false;
+        }
+        Long seenUpdated = issue.getId() != null ? seen.get(issue.getId()) : null;
+        return seenUpdated == null || seenUpdated != issueUpdated;
+    }
+
+    /**
+     * create cursor which additionally covers specified issue.
+     *
+     * @param issue synchronized issue.
+     * @return new cursor.
+     */
+    public SyncCursor advance(Issue issue) {
+        long next = Math.max(updated, updated(issue));
+        Map<Long, Long> nextSeen = new HashMap<>();
+        long threshold = threshold(next);
+        for (Map.Entry<Long, Long> entry : seen.entrySet()) {
+            if (entry.getValue() >= threshold) {
+                nextSeen.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (issue.getId() != null && updated(issue) >= threshold) {
+            nextSeen.put(issue.getId(), updated(issue));
+        }
+        return new SyncCursor(next, nextSeen);
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * get oldest update time which is checked again.
+     *
+     * @return update time in milliseconds.
+     */
+    public long getThreshold() {
+        return threshold(updated);
+    }
+
+    public Map<Long, Long> getSeen() {
+        return seen;
+    }
+
+    /**
+     * get update time of issue.
+     *
+     * @param issue issue.
+     * @return update time in milliseconds.
+     */
+    static long updated(Issue issue) {
+        return issue.getUpdated() != null ? issue.getUpdated().getTime() : Long.MIN_VALUE;
+    }
+
+    private static long threshold(long updated) {
+        return updated > Long.MIN_VALUE + OVERLAP ? updated - OVERLAP : Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,25 @@
+package de.ayesolutions.gogs.client.sync;
+
+/**
+ * storage for synchronization cursors.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public interface SyncCursorStore {
+
+    /**
+     * load cursor.
+     *
+     * @param key cursor key. (owner/repository)
+     * @return stored cursor or {@link SyncCursor#INITIAL}.
+     */
+    SyncCursor load(String key);
+
+    /**
+     * store cursor.
+     *
+     * @param key    cursor key. (owner/repository)
+     * @param cursor cursor.
+     */
+    void save(String key, SyncCursor cursor);
+}
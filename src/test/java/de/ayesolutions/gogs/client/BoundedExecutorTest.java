@@ -0,0 +1,76 @@
+package de.ayesolutions.gogs.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BoundedExecutorTest {
+
+    @Test
+    public void limitRunningTasks() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            BoundedExecutor executor = new BoundedExecutor(pool, 3);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maximum = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(50);
+            for (int i = 0; i < 50; i++) {
+                executor.execute(() -> {
+                    maximum.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(maximum.get() <= 3);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runLongQueueOnDirectExecutor() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor(Runnable::run, 1);
+        AtomicInteger count = new AtomicInteger();
+        executor.execute(() -> {
+            // queued behind the running task, a nested call per task would overflow the stack
+            for (int i = 0; i < 100000; i++) {
+                executor.execute(count::incrementAndGet);
+            }
+        });
+        Assert.assertEquals(100000, count.get());
+    }
+
+    @Test
+    public void continueAfterFailedTask() throws Exception {
+        BoundedExecutor executor = new BoundedExecutor(Runnable::run, 1);
+        AtomicInteger count = new AtomicInteger();
+        try {
+            executor.execute(() -> {
+                executor.execute(() -> {
+                    throw new IllegalStateException("failed");
+                });
+                executor.execute(count::incrementAndGet);
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("failed", e.getMessage());
+        }
+        Assert.assertEquals(1, count.get());
+        executor.execute(count::incrementAndGet);
+        Assert.assertEquals(2, count.get());
+    }
+}
@@ -0,0 +1,35 @@
+package de.ayesolutions.gogs.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void readBytes() throws Exception {
+        byte[] data = new byte[100 * 1024];
+        new Random(1).nextBytes(data);
+
+        Assert.assertArrayEquals(data, BufferPool.readBytes(new ByteArrayInputStream(data), data.length));
+        Assert.assertArrayEquals(data, BufferPool.readBytes(new ByteArrayInputStream(data), -1));
+        Assert.assertArrayEquals(data, BufferPool.readBytes(new ByteArrayInputStream(data), 10));
+        Assert.assertEquals(0, BufferPool.readBytes(new ByteArrayInputStream(new byte[0]), -1).length);
+
+        byte[] large = new byte[BufferPool.MAX_BUFFER_SIZE * 3];
+        Assert.assertArrayEquals(large, BufferPool.readBytes(new ByteArrayInputStream(large), -1));
+    }
+
+    @Test
+    public void readString() throws Exception {
+        byte[] data = "gogs error message".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("gogs error", BufferPool.readString(new ByteArrayInputStream(data),
+                StandardCharsets.UTF_8, 10));
+    }
+}
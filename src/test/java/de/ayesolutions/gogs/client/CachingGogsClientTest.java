@@ -0,0 +1,332 @@
+package de.ayesolutions.gogs.client;
+
+import de.ayesolutions.gogs.client.cache.PersistentCacheStore;
+import de.ayesolutions.gogs.client.model.AccessToken;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.User;
+import de.ayesolutions.gogs.client.service.UserService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.ws.rs.core.GenericType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class CachingGogsClientTest {
+
+    private static final GenericType<List<Repository>> REPOSITORY_LIST = new GenericType<List<Repository>>() {
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * status of replies without body by method and path, all other paths answer with json.
+     */
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+
+    private GogsServerStub server;
+
+    private CachingGogsClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            Integer status = statuses.get(request.getMethod() + " " + request.getPath());
+            if (status != null) {
+                return GogsServerStub.Reply.status(status);
+            }
+            if (request.getMethod().equals("GET")
+                    && (request.getPath().endsWith("repos") || request.getPath().endsWith("followers"))) {
+                return GogsServerStub.Reply.json("[]");
+            }
+            if (request.getPath().endsWith("repos")) {
+                return GogsServerStub.Reply.json("{\"id\":1,\"name\":\"repo\"}");
+            }
+            if (request.getPath().startsWith("repos/")) {
+                return GogsServerStub.Reply.json("{\"id\":1,\"index\":1,\"title\":\"title\"}");
+            }
+            return GogsServerStub.Reply.json("{\"id\":1,\"username\":\"user\"}");
+        });
+        client = new CachingGogsClient(server.getUri(), new AccessToken(null, "token"), 1024 * 1024, 1,
+                TimeUnit.MINUTES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void cacheGetRequests() throws Exception {
+        Issue first = client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+        first.setTitle("changed");
+        Issue second = client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo/issues/1"));
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("title", second.getTitle());
+    }
+
+    @Test
+    public void invalidatePathsAboveAndBelow() throws Exception {
+        String[][] paths = {{"repos", "user", "repo", "issues", "1"}, {"repos", "user", "repo", "issues", "1",
+                "comments"}, {"repos", "user", "repo", "issues"}, {"repos", "user", "repo"}, {"repos", "user",
+                "other", "issues", "1"}, {"repos", "user", "repo", "issues", "10"}};
+        for (String[] path : paths) {
+            client.get(Issue.class, path);
+        }
+
+        client.put(Issue.class, new Issue(), "repos", "user", "repo", "issues", "1");
+        for (String[] path : paths) {
+            client.get(Issue.class, path);
+        }
+
+        Assert.assertEquals(2, server.count("GET", "repos/user/repo/issues/1"));
+        Assert.assertEquals(2, server.count("GET", "repos/user/repo/issues/1/comments"));
+        Assert.assertEquals(2, server.count("GET", "repos/user/repo/issues"));
+        Assert.assertEquals(2, server.count("GET", "repos/user/repo"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/other/issues/1"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo/issues/10"));
+    }
+
+    @Test
+    public void keepCacheOnReadOnlyPost() throws Exception {
+        client.get(Issue.class, "repos", "user", "repo");
+        client.get(User.class, "user");
+
+        client.post(String.class, "# title", "markdown");
+        client.post(String.class, "# title", "markdown", "raw");
+        client.get(Issue.class, "repos", "user", "repo");
+        client.get(User.class, "user");
+
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo"));
+        Assert.assertEquals(1, server.count("GET", "user"));
+        Assert.assertEquals(1, server.count("POST", "markdown/raw"));
+    }
+
+    @Test
+    public void invalidateAdminVariants() throws Exception {
+        client.get(User.class, "users", "user");
+        client.get(User.class, "user");
+        client.get(User.class, "users", "other");
+
+        client.put(User.class, new User(), "admin", "users", "user");
+        client.get(User.class, "users", "user");
+        client.get(User.class, "user");
+        client.get(User.class, "users", "other");
+
+        Assert.assertEquals(2, server.count("GET", "users/user"));
+        Assert.assertEquals(2, server.count("GET", "user"));
+        Assert.assertEquals(1, server.count("GET", "users/other"));
+    }
+
+    @Test
+    public void invalidateRepositoryListsOnLifecycle() throws Exception {
+        client.get(REPOSITORY_LIST, "orgs", "org", "repos");
+        client.get(REPOSITORY_LIST, "user", "repos");
+        client.get(REPOSITORY_LIST, "users", "other", "repos");
+        client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+
+        client.post(Repository.class, new Repository(), "org", "org", "repos");
+        client.get(REPOSITORY_LIST, "orgs", "org", "repos");
+        client.get(REPOSITORY_LIST, "user", "repos");
+        client.get(REPOSITORY_LIST, "users", "other", "repos");
+        client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+
+        Assert.assertEquals(2, server.count("GET", "orgs/org/repos"));
+        Assert.assertEquals(2, server.count("GET", "user/repos"));
+        Assert.assertEquals(2, server.count("GET", "users/other/repos"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo/issues/1"));
+    }
+
+    @Test
+    public void checkFollowingWithoutBody() throws Exception {
+        statuses.put("GET user/following/user", GogsClient.HTTP_NO_CONTENT);
+        statuses.put("GET user/following/other", GogsClient.HTTP_NOT_FOUND);
+        statuses.put("PUT user/following/other", GogsClient.HTTP_NO_CONTENT);
+        UserService userService = new UserService(client);
+
+        Assert.assertTrue(userService.checkFollowing("user"));
+        Assert.assertTrue(userService.checkFollowing("user"));
+        Assert.assertEquals(1, server.count("GET", "user/following/user"));
+
+        client.setNotFoundCache(10, 1, TimeUnit.MINUTES);
+        Assert.assertFalse(userService.checkFollowing("other"));
+        userService.listFollowers("other");
+
+        statuses.put("GET user/following/other", GogsClient.HTTP_NO_CONTENT);
+        userService.follow("other");
+        Assert.assertTrue(userService.checkFollowing("other"));
+        userService.listFollowers("other");
+        Assert.assertEquals(2, server.count("GET", "user/following/other"));
+        Assert.assertEquals(2, server.count("GET", "users/other/followers"));
+    }
+
+    @Test
+    public void putRemovesResponsesOfOtherIdentities() throws Exception {
+        CachingGogsClient other = client.as(new AccessToken(null, "other"));
+        client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+        other.get(Issue.class, "repos", "user", "repo", "issues", "1");
+
+        Issue issue = new Issue();
+        issue.setTitle("put");
+        client.put(issue, "repos", "user", "repo", "issues", "1");
+
+        Assert.assertEquals("put", client.get(Issue.class, "repos", "user", "repo", "issues", "1").getTitle());
+        Assert.assertEquals("title", other.get(Issue.class, "repos", "user", "repo", "issues", "1").getTitle());
+        Assert.assertEquals(3, server.count("GET", "repos/user/repo/issues/1"));
+    }
+
+    @Test
+    public void notFoundCache() throws Exception {
+        statuses.put("GET repos/user/missing", GogsClient.HTTP_NOT_FOUND);
+        statuses.put("GET repos/user/missing/issues/1", GogsClient.HTTP_NOT_FOUND);
+        statuses.put("GET users/missing", GogsClient.HTTP_NOT_FOUND);
+        client.setNotFoundCache(10, 1, TimeUnit.MINUTES);
+
+        Assert.assertNull(client.get(Repository.class, "repos", "user", "missing"));
+        Assert.assertNull(client.get(Repository.class, "repos", "user", "missing"));
+        Assert.assertNull(client.get(Issue.class, "repos", "user", "missing", "issues", "1"));
+        Assert.assertNull(client.get(User.class, "users", "missing"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/missing"));
+
+        client.as(new AccessToken(null, "other")).get(Repository.class, "repos", "user", "missing");
+        Assert.assertEquals(2, server.count("GET", "repos/user/missing"));
+
+        client.put(User.class, new User(), "users", "missing", "following", "user");
+        Assert.assertNull(client.get(User.class, "users", "missing"));
+        Assert.assertEquals(2, server.count("GET", "users/missing"));
+    }
+
+    @Test
+    public void clearNotFoundOnCreate() throws Exception {
+        statuses.put("GET repos/user/created", GogsClient.HTTP_NOT_FOUND);
+        statuses.put("GET repos/user/created/issues/1", GogsClient.HTTP_NOT_FOUND);
+        statuses.put("GET repos/user/other", GogsClient.HTTP_NOT_FOUND);
+        client.setNotFoundCache(10, 1, TimeUnit.MINUTES);
+        client.get(Repository.class, "repos", "user", "created");
+        client.get(Issue.class, "repos", "user", "created", "issues", "1");
+        client.get(Repository.class, "repos", "user", "other");
+
+        server.setHandler(request -> request.getMethod().equals("POST")
+                ? GogsServerStub.Reply.json("{\"id\":2,\"name\":\"created\",\"owner\":{\"username\":\"user\"}}")
+                : GogsServerStub.Reply.status(GogsClient.HTTP_NOT_FOUND));
+        client.post(Repository.class, new Repository(), "admin", "users", "someone", "repos");
+        client.get(Repository.class, "repos", "user", "created");
+        client.get(Issue.class, "repos", "user", "created", "issues", "1");
+        client.get(Repository.class, "repos", "user", "other");
+
+        Assert.assertEquals(2, server.count("GET", "repos/user/created"));
+        Assert.assertEquals(2, server.count("GET", "repos/user/created/issues/1"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/other"));
+    }
+
+    @Test
+    public void revalidateStoredResponseWithEtag() throws Exception {
+        String[] etag = {"\"v1\""};
+        String[] title = {"stored"};
+        server.setHandler(request -> etag[0].equals(request.getHeader("If-None-Match"))
+                ? GogsServerStub.Reply.status(GogsClient.HTTP_NOT_MODIFIED)
+                : GogsServerStub.Reply.json("{\"id\":1,\"title\":\"" + title[0] + "\"}").header("ETag", etag[0]));
+
+        try (PersistentCacheStore store = new PersistentCacheStore(folder.getRoot().toPath().resolve("cache.bin"),
+                64 * 1024)) {
+            Assert.assertEquals("stored", storedClient(store, 1).get(Issue.class, "repos", "user", "repo").getTitle());
+            Assert.assertNull(server.getRequests().get(0).getHeader("If-None-Match"));
+
+            Assert.assertEquals("stored", storedClient(store, TimeUnit.MINUTES.toMillis(1))
+                    .get(Issue.class, "repos", "user", "repo").getTitle());
+            Assert.assertEquals(1, server.count("GET", "repos/user/repo"));
+
+            title[0] = "not sent";
+            Thread.sleep(5);
+            Assert.assertEquals("stored", storedClient(store, 1).get(Issue.class, "repos", "user", "repo").getTitle());
+            Assert.assertEquals(2, server.count("GET", "repos/user/repo"));
+            Assert.assertEquals("\"v1\"", server.getRequests().get(1).getHeader("If-None-Match"));
+
+            etag[0] = "\"v2\"";
+            title[0] = "changed";
+            Thread.sleep(5);
+            Assert.assertEquals("changed", storedClient(store, 1).get(Issue.class, "repos", "user", "repo").getTitle());
+
+            Thread.sleep(5);
+            Assert.assertEquals("changed", storedClient(store, 1).get(Issue.class, "repos", "user", "repo").getTitle());
+            Assert.assertEquals("\"v2\"", server.getRequests().get(3).getHeader("If-None-Match"));
+            Assert.assertEquals(4, server.count("GET", "repos/user/repo"));
+        }
+    }
+
+    private CachingGogsClient storedClient(PersistentCacheStore store, long timeToLive) {
+        CachingGogsClient storedClient = new CachingGogsClient(server.getUri(), new AccessToken(null, "token"),
+                1024 * 1024, timeToLive, TimeUnit.MILLISECONDS);
+        storedClient.setPersistentStore(store);
+        return storedClient;
+    }
+
+    @Test
+    public void refreshStaleResponseInBackground() throws Exception {
+        String[] title = {"first"};
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        boolean[] blocking = {false};
+        server.setHandler(request -> {
+            if (!request.getMethod().equals("GET")) {
+                return GogsServerStub.Reply.json("{\"id\":1,\"title\":\"written\"}");
+            }
+            String current = title[0];
+            if (blocking[0]) {
+                blocking[0] = false;
+                requested.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return GogsServerStub.Reply.json("{\"id\":1,\"title\":\"" + current + "\"}");
+        });
+        List<Runnable> tasks = new ArrayList<>();
+        CachingGogsClient stale = new CachingGogsClient(server.getUri(), new AccessToken(null, "token"),
+                1024 * 1024, 1, TimeUnit.MILLISECONDS);
+        stale.setStaleWhileRevalidate(tasks::add, 1, 1, TimeUnit.MINUTES);
+
+        Assert.assertEquals("first", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        title[0] = "second";
+        Thread.sleep(5);
+        Assert.assertEquals("first", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        Assert.assertEquals("first", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        Assert.assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        Assert.assertEquals("second", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        Assert.assertEquals(2, server.count("GET", "repos/user/repo"));
+
+        // the refresh reads the response before the write and returns after the write invalidated it
+        Thread.sleep(5);
+        blocking[0] = true;
+        Assert.assertEquals("second", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        Thread refresh = new Thread(tasks.remove(0));
+        refresh.start();
+        Assert.assertTrue(requested.await(10, TimeUnit.SECONDS));
+        title[0] = "written";
+        stale.put(Issue.class, new Issue(), "repos", "user", "repo");
+        release.countDown();
+        refresh.join(10000);
+
+        Assert.assertEquals("written", stale.get(Issue.class, "repos", "user", "repo").getTitle());
+        Assert.assertEquals(4, server.count("GET", "repos/user/repo"));
+        Assert.assertTrue(tasks.isEmpty());
+    }
+}
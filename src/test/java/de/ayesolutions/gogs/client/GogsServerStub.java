@@ -0,0 +1,262 @@
+package de.ayesolutions.gogs.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * local http server answering api requests of tests.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class GogsServerStub implements AutoCloseable {
+
+    private static final String API_PATH = "/api/v1/";
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile Handler handler;
+
+    /**
+     * start server.
+     *
+     * @param handler request handler.
+     * @throws IOException if server could not be started.
+     */
+    public GogsServerStub(final Handler handler) throws IOException {
+        this.handler = handler;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public URI getUri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1");
+    }
+
+    public void setHandler(Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * get received requests.
+     *
+     * @return requests in order of arrival.
+     */
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    /**
+     * count received requests for path.
+     *
+     * @param method http method.
+     * @param path   rest path without api prefix.
+     * @return number of requests.
+     */
+    public int count(String method, String path) {
+        int count = 0;
+        for (Request request : getRequests()) {
+            if (request.getMethod().equals(method) && request.getPath().equals(path)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Request request = new Request(exchange);
+            requests.add(request);
+            Reply reply = handler.handle(request);
+            for (Map.Entry<String, String> header : reply.headers.entrySet()) {
+                exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+            }
+            if (reply.body.length == 0) {
+                exchange.sendResponseHeaders(reply.status, -1);
+            } else {
+                exchange.sendResponseHeaders(reply.status, reply.body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(reply.body);
+                }
+            }
+        } catch (RuntimeException | IOException e) {
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * answers requests.
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        /**
+         * answer request.
+         *
+         * @param request received request.
+         * @return reply.
+         */
+        Reply handle(Request request);
+    }
+
+    /**
+     * received request.
+     */
+    public static final class Request {
+
+        private final String method;
+
+        private final String path;
+
+        private final Map<String, String> parameters = new LinkedHashMap<>();
+
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private final String body;
+
+        private Request(final HttpExchange exchange) throws IOException {
+            this.method = exchange.getRequestMethod();
+            String requestPath = exchange.getRequestURI().getPath();
+            this.path = requestPath.startsWith(API_PATH) ? requestPath.substring(API_PATH.length()) : requestPath;
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String parameter : query.split("&")) {
+                    String[] pair = parameter.split("=", 2);
+                    parameters.put(decode(pair[0]), pair.length > 1 ? decode(pair[1]) : "");
+                }
+            }
+            for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+                headers.put(header.getKey().toLowerCase(), header.getValue().get(0));
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (InputStream inputStream = exchange.getRequestBody()) {
+                BufferPool.copy(inputStream, outputStream);
+            }
+            this.body = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getParameter(String name) {
+            return parameters.get(name);
+        }
+
+        public String getHeader(String name) {
+            return headers.get(name.toLowerCase());
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path + (parameters.isEmpty() ? "" : " " + parameters);
+        }
+
+        private static String decode(String value) {
+            try {
+                return URLDecoder.decode(value, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * reply to a request.
+     */
+    public static final class Reply {
+
+        private final int status;
+
+        private final byte[] body;
+
+        private final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Reply(final int status, final byte[] body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * json reply with status 200.
+         *
+         * @param json json body.
+         * @return reply.
+         */
+        public static Reply json(String json) {
+            return new Reply(200, json.getBytes(StandardCharsets.UTF_8)).header("Content-Type", "application/json");
+        }
+
+        /**
+         * binary reply with status 200.
+         *
+         * @param data body.
+         * @return reply.
+         */
+        public static Reply bytes(byte[] data) {
+            return new Reply(200, data).header("Content-Type", "application/octet-stream");
+        }
+
+        /**
+         * reply without body.
+         *
+         * @param status http status.
+         * @return reply.
+         */
+        public static Reply status(int status) {
+            return new Reply(status, new byte[0]);
+        }
+
+        /**
+         * add response header.
+         *
+         * @param name  header name.
+         * @param value header value.
+         * @return this reply.
+         */
+        public Reply header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package de.ayesolutions.gogs.client.cache;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.PayloadCommit;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.User;
+import de.ayesolutions.gogs.client.model.WebHookPayload;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BranchTrackerTest {
+
+    private static final String PATH = "repos/user/repo/branches";
+
+    private static final long INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private final List<String> changes = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile String etag = "\"v1\"";
+
+    private volatile String branches = branch("master", "a1") + "," + branch("develop", "b1");
+
+    private GogsServerStub server;
+
+    private BranchTracker tracker;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            if (etag.equals(request.getHeader("If-None-Match"))) {
+                return GogsServerStub.Reply.status(GogsClient.HTTP_NOT_MODIFIED);
+            }
+            return GogsServerStub.Reply.json("[" + branches + "]").header("ETag", etag);
+        });
+        tracker = new BranchTracker(new GogsClient(server.getUri()), 1, TimeUnit.MINUTES, ticker::get);
+        tracker.addListener((username, repositoryName, branch, previousId, currentId) ->
+                changes.add(username + "/" + repositoryName + " " + branch + " " + previousId + " " + currentId));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void requestOncePerInterval() throws Exception {
+        Assert.assertEquals("a1", tracker.getHead("user", "repo", "master"));
+        Assert.assertEquals("b1", tracker.getHead("user", "repo", "develop"));
+        Assert.assertNull(tracker.getHead("user", "repo", "missing"));
+        ticker.addAndGet(INTERVAL - 1);
+        Assert.assertFalse(tracker.hasMoved("user", "repo", "master", "a1"));
+        Assert.assertEquals(1, server.count("GET", PATH));
+        Assert.assertTrue(changes.isEmpty());
+
+        ticker.incrementAndGet();
+        Assert.assertEquals("a1", tracker.getHead("user", "repo", "master"));
+        Assert.assertEquals(2, server.count("GET", PATH));
+        Assert.assertEquals("\"v1\"", server.getRequests().get(1).getHeader("If-None-Match"));
+        Assert.assertTrue(changes.isEmpty());
+
+        Assert.assertEquals(2, tracker.refresh("user", "repo").size());
+        Assert.assertEquals(3, server.count("GET", PATH));
+    }
+
+    @Test
+    public void notifyChangedHeads() throws Exception {
+        tracker.getHead("user", "repo", "master");
+
+        etag = "\"v2\"";
+        branches = branch("master", "a2") + "," + branch("feature", "c1");
+        ticker.addAndGet(INTERVAL);
+
+        Assert.assertTrue(tracker.hasMoved("user", "repo", "master", "a1"));
+        Collections.sort(changes);
+        Assert.assertEquals(3, changes.size());
+        Assert.assertEquals("user/repo develop b1 null", changes.get(0));
+        Assert.assertEquals("user/repo feature null c1", changes.get(1));
+        Assert.assertEquals("user/repo master a1 a2", changes.get(2));
+    }
+
+    @Test
+    public void pushUpdatesHeadWithoutRequest() throws Exception {
+        tracker.getHead("user", "repo", "master");
+
+        tracker.handle("push", payload("refs/heads/master", null, "a2"));
+        tracker.handle("push", payload("refs/tags/v1.0", null, "d1"));
+
+        Assert.assertEquals("a2", tracker.getHead("user", "repo", "master"));
+        Assert.assertEquals(1, server.count("GET", PATH));
+        Assert.assertEquals(Collections.singletonList("user/repo master a1 a2"), changes);
+
+        ticker.addAndGet(INTERVAL);
+        tracker.getHead("user", "repo", "master");
+        Assert.assertNull(server.getRequests().get(1).getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void deleteAndCreateBranch() throws Exception {
+        tracker.getHead("user", "repo", "master");
+
+        tracker.handle("delete", payload("develop", "branch", null));
+        Assert.assertNull(tracker.getHead("user", "repo", "develop"));
+        Assert.assertEquals(Collections.singletonList("user/repo develop b1 null"), changes);
+        Assert.assertEquals(1, server.count("GET", PATH));
+
+        tracker.handle("create", payload("v1.0", "tag", null));
+        tracker.getHead("user", "repo", "master");
+        Assert.assertEquals(1, server.count("GET", PATH));
+
+        branches = branch("master", "a1") + "," + branch("develop", "b1") + "," + branch("feature", "c1");
+        etag = "\"v2\"";
+        tracker.handle("create", payload("feature", "branch", null));
+        Assert.assertEquals("c1", tracker.getHead("user", "repo", "feature"));
+        Assert.assertEquals(2, server.count("GET", PATH));
+        Assert.assertTrue(changes.contains("user/repo feature null c1"));
+    }
+
+    @Test
+    public void ignoreUnknownAndMissingEvents() throws Exception {
+        tracker.handle("push", payload("refs/heads/master", null, "a2"));
+        Assert.assertEquals(0, server.count("GET", PATH));
+
+        tracker.getHead("user", "repo", "master");
+        tracker.handle("issues", payload("refs/heads/master", null, "a2"));
+        Assert.assertEquals("a1", tracker.getHead("user", "repo", "master"));
+        Assert.assertEquals(1, server.count("GET", PATH));
+
+        tracker.handle(null, payload("refs/heads/master", null, "a2"));
+        Assert.assertEquals("a1", tracker.getHead("user", "repo", "master"));
+        Assert.assertEquals(2, server.count("GET", PATH));
+        Assert.assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void keepListenerFailuresAway() throws Exception {
+        tracker.addListener((username, repositoryName, branch, previousId, currentId) -> {
+            throw new IllegalStateException("listener failed");
+        });
+        List<String> later = new ArrayList<>();
+        tracker.addListener((username, repositoryName, branch, previousId, currentId) -> later.add(branch));
+        tracker.getHead("user", "repo", "master");
+
+        tracker.handle("push", payload("refs/heads/master", null, "a2"));
+
+        Assert.assertEquals(Collections.singletonList("master"), later);
+        Assert.assertEquals(1, changes.size());
+    }
+
+    private static String branch(String name, String id) {
+        return "{\"name\":\"" + name + "\",\"commit\":{\"id\":\"" + id + "\"}}";
+    }
+
+    private static WebHookPayload payload(String ref, String refType, String after) {
+        User owner = new User();
+        owner.setUsername("user");
+        Repository repository = new Repository();
+        repository.setName("repo");
+        repository.setOwner(owner);
+
+        WebHookPayload payload = new WebHookPayload();
+        payload.setRepository(repository);
+        payload.setRef(ref);
+        payload.setRefType(refType);
+        payload.setAfter(after);
+        if (after != null) {
+            PayloadCommit commit = new PayloadCommit();
+            commit.setId(after);
+            commit.setMessage("change");
+            payload.setCommits(Collections.singletonList(commit));
+        }
+        return payload;
+    }
+}
@@ -0,0 +1,184 @@
+package de.ayesolutions.gogs.client.cache;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.Markdown;
+import de.ayesolutions.gogs.client.service.MiscellaneousService;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class MarkdownCacheTest {
+
+    private static final int WAITERS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void renderOnceForConcurrentRequests() throws Exception {
+        MarkdownCache cache = new MarkdownCache(null, 1024 * 1024);
+        AtomicInteger calls = new AtomicInteger();
+        List<String> results = renderConcurrently(cache, () -> {
+            calls.incrementAndGet();
+            return "<p>html</p>";
+        });
+
+        Assert.assertEquals(1, calls.get());
+        for (String result : results) {
+            Assert.assertEquals("<p>html</p>", result);
+        }
+        Assert.assertEquals("<p>html</p>", cache.render("hash", () -> {
+            throw new AssertionError("rendered again");
+        }));
+    }
+
+    @Test
+    public void propagateErrorToWaiters() throws Exception {
+        MarkdownCache cache = new MarkdownCache(null, 1024 * 1024);
+        AtomicInteger calls = new AtomicInteger();
+        List<String> results = renderConcurrently(cache, () -> {
+            calls.incrementAndGet();
+            throw new GogsClientException("server error");
+        });
+
+        Assert.assertEquals(1, calls.get());
+        for (String result : results) {
+            Assert.assertEquals("server error", result);
+        }
+        Assert.assertEquals("<p>html</p>", cache.render("hash", () -> "<p>html</p>"));
+    }
+
+    @Test
+    public void readRenderedHtmlFromDirectory() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        new MarkdownCache(null, 1024 * 1024, directory).render("abcdef", () -> "<p>stored</p>");
+
+        MarkdownCache cache = new MarkdownCache(null, 1024 * 1024, directory);
+        Assert.assertEquals("<p>stored</p>", cache.render("abcdef", () -> {
+            throw new AssertionError("rendered again");
+        }));
+        Assert.assertEquals("<p>stored</p>", new String(Files.readAllBytes(directory.resolve("ab")
+                .resolve("abcdef.html")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void limitDirectorySize() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        MarkdownCache cache = new MarkdownCache(null, 1024 * 1024, directory, 1000);
+        char[] html = new char[100];
+        for (int i = 0; i < 50; i++) {
+            String hash = MarkdownCache.hash(String.valueOf(i));
+            cache.render(hash, () -> new String(html));
+            Assert.assertTrue(directorySize(directory) <= 1000);
+            Assert.assertTrue(Files.exists(directory.resolve(hash.substring(0, 2)).resolve(hash + ".html")));
+        }
+        Assert.assertTrue(directorySize(directory) >= 700);
+    }
+
+    @Test
+    public void hashNullDifferentFromEmpty() throws Exception {
+        String hash = MarkdownCache.hash("markdown", null, "text");
+        Assert.assertEquals(hash, MarkdownCache.hash("markdown", null, "text"));
+        Assert.assertNotEquals(hash, MarkdownCache.hash("markdown", "", "text"));
+        Assert.assertNotEquals(MarkdownCache.hash("ab", "c"), MarkdownCache.hash("a", "bc"));
+
+        try (GogsServerStub server = new GogsServerStub(request -> GogsServerStub.Reply.bytes(
+                ("<p>" + request.getBody().length() + "</p>").getBytes(StandardCharsets.UTF_8)))) {
+            MarkdownCache cache = new MarkdownCache(new MiscellaneousService(new GogsClient(server.getUri())),
+                    1024 * 1024);
+            cache.render(markdown(null));
+            cache.render(markdown(""));
+            cache.render(markdown(null));
+            cache.render(markdown(""));
+            Assert.assertEquals(2, server.count("POST", "markdown"));
+        }
+    }
+
+    private static Markdown markdown(String context) {
+        Markdown markdown = new Markdown();
+        markdown.setMode("gfm");
+        markdown.setContext(context);
+        markdown.setText("# title");
+        return markdown;
+    }
+
+    private static long directorySize(Path directory) throws Exception {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            long size = 0;
+            for (Path file : stream.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * render in several threads while the first rendering blocks until all other threads wait for it.
+     *
+     * @return html or error message of every thread.
+     */
+    private static List<String> renderConcurrently(MarkdownCache cache, MarkdownCache.Renderer renderer)
+            throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MarkdownCache.Renderer blocking = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return renderer.render();
+        };
+
+        String[] results = new String[WAITERS + 1];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i <= WAITERS; i++) {
+            int index = i;
+            threads.add(new Thread(() -> {
+                try {
+                    results[index] = cache.render("hash", blocking);
+                } catch (GogsClientException e) {
+                    results[index] = e.getMessage();
+                }
+            }));
+        }
+
+        threads.get(0).start();
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (Thread thread : threads.subList(1, threads.size())) {
+            thread.start();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (Thread thread : threads.subList(1, threads.size())) {
+            while (thread.getState() != Thread.State.WAITING) {
+                Assert.assertTrue("waiter did not block", System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        return Arrays.asList(results);
+    }
+}
@@ -0,0 +1,142 @@
+package de.ayesolutions.gogs.client.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class NearCacheTest {
+
+    private static final long TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong time = new AtomicLong();
+
+    private NearCache<Integer, String> createCache(long maximumWeight) {
+        return new NearCache<>(maximumWeight, (key, value) -> 1, time::get);
+    }
+
+    private String getOrLoad(NearCache<Integer, String> cache, int key) {
+        String value = cache.get(key);
+        if (value == null) {
+            value = "value" + key;
+            cache.put(key, value, TIME_TO_LIVE);
+        }
+        return value;
+    }
+
+    @Test
+    public void keepFrequentKeysDuringScan() throws Exception {
+        NearCache<Integer, String> cache = createCache(100);
+        for (int round = 0; round < 5; round++) {
+            for (int key = 0; key < 50; key++) {
+                getOrLoad(cache, key);
+            }
+        }
+        for (int key = 1000; key < 3000; key++) {
+            getOrLoad(cache, key);
+        }
+
+        int hits = 0;
+        for (int key = 0; key < 50; key++) {
+            if (cache.get(key) != null) {
+                hits++;
+            }
+        }
+        Assert.assertTrue("frequent keys evicted by scan: " + hits, hits >= 45);
+        Assert.assertTrue(cache.weightedSize() <= 100);
+        Assert.assertTrue(cache.stats().getEvictionCount() > 0);
+    }
+
+    @Test
+    public void expireEntries() throws Exception {
+        NearCache<Integer, String> cache = createCache(100);
+        cache.put(1, "one", TIME_TO_LIVE);
+        cache.put(2, "two", TIME_TO_LIVE * 2);
+
+        time.addAndGet(TIME_TO_LIVE);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals("two", cache.get(2));
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(1, stats.getMissCount());
+        Assert.assertEquals(1, stats.getExpirationCount());
+        Assert.assertEquals(0.5, stats.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void limitWeight() throws Exception {
+        NearCache<Integer, String> cache = new NearCache<>(1000, (key, value) -> value.length(), time::get);
+        for (int key = 0; key < 100; key++) {
+            cache.put(key, new String(new char[key * 3]), TIME_TO_LIVE);
+            Assert.assertTrue(cache.weightedSize() <= 1000);
+        }
+        cache.put(1000, new String(new char[1001]), TIME_TO_LIVE);
+        Assert.assertNull(cache.get(1000));
+    }
+
+    @Test
+    public void invalidateEntries() throws Exception {
+        NearCache<Integer, String> cache = createCache(100);
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, "value" + key, TIME_TO_LIVE);
+        }
+        cache.invalidate(0);
+        Assert.assertEquals(5, cache.invalidateIf(key -> key % 2 == 1));
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals(4, cache.weightedSize());
+        Assert.assertNull(cache.get(0));
+        Assert.assertEquals("value2", cache.get(2));
+    }
+
+    @Test
+    public void invalidatePaths() throws Exception {
+        NearCache<String, String> cache = new NearCache<>(3, (key, value) -> 1,
+                key -> key.substring(0, key.indexOf('?')), time::get);
+        cache.put("repos/user/repo?1", "a", TIME_TO_LIVE);
+        cache.put("repos/user/repo/issues?1", "b", TIME_TO_LIVE);
+        cache.put("repos/user/repo/issues?2", "c", TIME_TO_LIVE);
+        cache.put("repos/user/other?1", "d", TIME_TO_LIVE);
+        Assert.assertEquals(3, cache.size());
+
+        Assert.assertEquals(2, cache.invalidate(PathQuery.tree("repos/user/repo")));
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(0, cache.invalidate(PathQuery.tree("repos/user/repo")));
+        Assert.assertEquals(1, cache.invalidate(PathQuery.tree("repos")));
+
+        cache.put("repos/user/repo?1", "a", TIME_TO_LIVE);
+        cache.clear();
+        Assert.assertEquals(0, cache.invalidate(PathQuery.tree("repos")));
+
+        try {
+            createCache(10).invalidate(PathQuery.tree("repos"));
+            Assert.fail("cache without path function");
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("path"));
+        }
+    }
+
+    @Test
+    public void returnStaleEntriesUntilExpired() throws Exception {
+        NearCache<Integer, String> cache = createCache(100);
+        cache.put(1, "one", TIME_TO_LIVE, TIME_TO_LIVE * 2);
+        Assert.assertFalse(cache.getEntry(1).isStale());
+
+        time.addAndGet(TIME_TO_LIVE);
+        Assert.assertTrue(cache.getEntry(1).isStale());
+        Assert.assertEquals("one", cache.getEntry(1).getValue());
+
+        Assert.assertTrue(cache.extend(1, TIME_TO_LIVE / 2, TIME_TO_LIVE * 3));
+        Assert.assertFalse(cache.getEntry(1).isStale());
+        time.addAndGet(TIME_TO_LIVE * 3 / 2);
+        Assert.assertTrue(cache.getEntry(1).isStale());
+
+        time.addAndGet(TIME_TO_LIVE / 2);
+        Assert.assertNull(cache.getEntry(1));
+        Assert.assertFalse(cache.extend(1, TIME_TO_LIVE, TIME_TO_LIVE * 4));
+    }
+}
@@ -0,0 +1,89 @@
+package de.ayesolutions.gogs.client.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PathIndexTest {
+
+    private static final List<String> KEYS = Arrays.asList("repos/user/repo?json", "repos/user/repo?text",
+            "repos/user/repo/issues", "repos/user/repo/issues/1", "repos/user/repo/issues/1/comments",
+            "repos/user/repo/issues/10", "repos/user/repo2", "repos/user/repo2/issues", "repos/user", "repos",
+            "repos/search", "user/repos", "users/user/repos", "users/user/reposx", "orgs/org/repos", "user");
+
+    private static String pathOf(String key) {
+        int query = key.indexOf('?');
+        return query >= 0 ? key.substring(0, query) : key;
+    }
+
+    private static PathIndex<String> index() {
+        PathIndex<String> index = new PathIndex<>(PathIndexTest::pathOf);
+        KEYS.forEach(index::add);
+        return index;
+    }
+
+    @Test
+    public void selectPathsAndTrees() throws Exception {
+        PathIndex<String> index = index();
+
+        assertSelected(index, PathQuery.path("repos/user/repo"), "repos/user/repo?json", "repos/user/repo?text");
+        assertSelected(index, PathQuery.tree("repos/user/repo/issues"), "repos/user/repo/issues",
+                "repos/user/repo/issues/1", "repos/user/repo/issues/1/comments", "repos/user/repo/issues/10");
+        assertSelected(index, PathQuery.tree("repos/user/repo/issues/1"), "repos/user/repo/issues/1",
+                "repos/user/repo/issues/1/comments");
+        assertSelected(index, PathQuery.path("repos/missing"));
+    }
+
+    @Test
+    public void selectBranchesAndSuffixes() throws Exception {
+        PathIndex<String> index = index();
+        PathQuery query = new PathQuery();
+        query.addBranch("repos/user/repo/issues/1");
+        assertSelected(index, query, "repos", "repos/user", "repos/user/repo?json", "repos/user/repo?text",
+                "repos/user/repo/issues", "repos/user/repo/issues/1", "repos/user/repo/issues/1/comments");
+
+        query = new PathQuery();
+        query.addSuffix("/repos");
+        query.addPath("repos/search");
+        assertSelected(index, query, "repos/search", "user/repos", "users/user/repos", "orgs/org/repos");
+    }
+
+    @Test
+    public void selectLikeMatches() throws Exception {
+        PathIndex<String> index = index();
+        for (String path : KEYS.stream().map(PathIndexTest::pathOf).collect(Collectors.toSet())) {
+            PathQuery query = new PathQuery();
+            query.addBranch(path);
+            query.addTree(path + "/issues");
+            query.addSuffix("/issues");
+            Set<String> expected = KEYS.stream().filter(key -> query.matches(pathOf(key)))
+                    .collect(Collectors.toSet());
+            Assert.assertEquals(path, expected, index.select(query));
+        }
+    }
+
+    @Test
+    public void removeKeys() throws Exception {
+        PathIndex<String> index = index();
+        index.remove("repos/user/repo?json");
+        index.remove("repos/user/repo/issues/1");
+        index.remove("unknown");
+        assertSelected(index, PathQuery.tree("repos/user/repo"), "repos/user/repo?text", "repos/user/repo/issues",
+                "repos/user/repo/issues/1/comments", "repos/user/repo/issues/10");
+
+        index.clear();
+        assertSelected(index, PathQuery.tree("repos"));
+    }
+
+    private static void assertSelected(PathIndex<String> index, PathQuery query, String... keys) {
+        Assert.assertEquals(query.toString(), new HashSet<>(Arrays.asList(keys)), index.select(query));
+    }
+}
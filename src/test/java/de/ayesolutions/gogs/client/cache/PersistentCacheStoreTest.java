@@ -0,0 +1,130 @@
+package de.ayesolutions.gogs.client.cache;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PersistentCacheStoreTest {
+
+    private static final int CAPACITY = 64 * 1024;
+
+    private static final int HEADER_LENGTH = 48;
+
+    private static final int RECORD_HEADER_LENGTH = 12;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static CacheKey key(int id) {
+        return new CacheKey("repos/user/repo" + id, null, "de.ayesolutions.gogs.client.model.Repository");
+    }
+
+    private static byte[] json(int id) {
+        return ("{\"id\":" + id + ",\"name\":\"repo" + id + "\",\"owner\":{\"username\":\"user\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void reopenStore() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cache.bin");
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            store.put(key(1), "\"abc\"", 1000L, json(1));
+            store.put(key(2), null, 2000L, json(2));
+            store.put(key(3), null, 3000L, json(3));
+            store.remove(key(2));
+            store.touch(key(3), 4000L);
+        }
+
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            Assert.assertEquals(2, store.size());
+            PersistentCacheStore.Entry entry = store.get(key(1));
+            Assert.assertEquals("\"abc\"", entry.getEtag());
+            Assert.assertEquals(1000L, entry.getTimestamp());
+            Assert.assertEquals(string(json(1)), string(entry.getData()));
+            Assert.assertNull(store.get(key(2)));
+            Assert.assertEquals(4000L, store.get(key(3)).getTimestamp());
+        }
+    }
+
+    @Test
+    public void limitSize() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cache.bin");
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            for (int id = 0; id < 5000; id++) {
+                store.put(key(id), null, id, json(id));
+            }
+            Assert.assertTrue(store.size() < 5000);
+            Assert.assertNotNull(store.get(key(4999)));
+            Assert.assertNull(store.get(key(0)));
+        }
+
+        Assert.assertEquals(CAPACITY, path.toFile().length());
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            Assert.assertEquals(string(json(4999)), string(store.get(key(4999)).getData()));
+        }
+    }
+
+    @Test
+    public void ignoreDamagedRecords() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cache.bin");
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            store.put(key(1), null, 1000L, json(1));
+            store.put(key(2), null, 2000L, json(2));
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(HEADER_LENGTH);
+            long second = HEADER_LENGTH + RECORD_HEADER_LENGTH + file.readInt();
+            file.seek(second + RECORD_HEADER_LENGTH + 20);
+            int value = file.read();
+            file.seek(second + RECORD_HEADER_LENGTH + 20);
+            file.write(value ^ 0xff);
+        }
+
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            Assert.assertEquals(1, store.size());
+            Assert.assertNotNull(store.get(key(1)));
+            store.put(key(3), null, 3000L, json(3));
+        }
+
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            Assert.assertEquals(2, store.size());
+            Assert.assertNotNull(store.get(key(3)));
+        }
+    }
+
+    @Test
+    public void keepIdentitySecret() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cache.bin");
+        byte[] secret;
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY)) {
+            secret = store.getIdentitySecret();
+            for (int id = 0; id < 5000; id++) {
+                store.put(key(id), null, id, json(id));
+            }
+        }
+        try (PersistentCacheStore store = new PersistentCacheStore(path, CAPACITY);
+             PersistentCacheStore other = new PersistentCacheStore(path.resolveSibling("other.bin"), CAPACITY)) {
+            Assert.assertArrayEquals(secret, store.getIdentitySecret());
+            Assert.assertFalse(Arrays.equals(secret, other.getIdentitySecret()));
+
+            String identity = CacheKey.identityOf(secret, "token abc");
+            Assert.assertEquals(identity, CacheKey.identityOf(store.getIdentitySecret(), "token abc"));
+            Assert.assertNotEquals(identity, CacheKey.identityOf(other.getIdentitySecret(), "token abc"));
+            Assert.assertNotEquals(identity, CacheKey.identityOf(secret, "token abd"));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package de.ayesolutions.gogs.client.cache;
+
+import de.ayesolutions.gogs.client.CachingGogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.AccessToken;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.WebHookPayload;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.GenericType;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class WebHookInvalidatorTest {
+
+    private static final String REPOSITORY = "\"repository\":{\"id\":1,\"name\":\"repo\",\"full_name\":\"user/repo\"}";
+
+    private static final GenericType<List<Repository>> REPOSITORY_LIST = new GenericType<List<Repository>>() {
+    };
+
+    private GogsServerStub server;
+
+    private CachingGogsClient client;
+
+    private WebHookInvalidator invalidator;
+
+    /**
+     * request counts of primed paths.
+     */
+    private int[] counts;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            if (request.getPath().endsWith("repos")) {
+                return GogsServerStub.Reply.json("[]");
+            }
+            return GogsServerStub.Reply.json("{\"id\":1,\"index\":1,\"title\":\"server\"}");
+        });
+        client = new CachingGogsClient(server.getUri(), new AccessToken(null, "token"), 1024 * 1024, 1,
+                TimeUnit.MINUTES);
+        invalidator = new WebHookInvalidator(client);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void push() throws Exception {
+        String[] paths = {"repos/user/repo", "repos/user/repo/branches", "repos/user/repo/branches/master",
+                "repos/user/repo/raw/master/README.md", "repos/user/repo/branches/develop", "repos/user/repo/issues/1"};
+        prime(paths);
+
+        handle("push", "{\"ref\":\"refs/heads/master\"," + REPOSITORY + "}");
+
+        assertRequested(paths, true, true, true, true, false, false);
+    }
+
+    @Test
+    public void createAndDelete() throws Exception {
+        String[] paths = {"repos/user/repo", "repos/user/repo/branches", "repos/user/repo/branches/feature",
+                "repos/user/repo/releases", "repos/user/repo/branches/master"};
+        prime(paths);
+        handle("create", "{\"ref\":\"v1.0\",\"ref_type\":\"tag\"," + REPOSITORY + "}");
+        assertRequested(paths, true, false, false, true, false);
+
+        prime(paths);
+        handle("delete", "{\"ref\":\"feature\",\"ref_type\":\"branch\"," + REPOSITORY + "}");
+        assertRequested(paths, true, true, true, false, false);
+    }
+
+    @Test
+    public void issuePutsIssue() throws Exception {
+        String[] paths = {"repos/user/repo", "repos/user/repo/issues", "repos/user/repo/issues/1/labels",
+                "repos/user/repo/issues/1/comments", "repos/user/repo/issues/2"};
+        prime(paths);
+        client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+
+        handle("issues", "{\"action\":\"edited\",\"number\":1,\"issue\":{\"id\":1,\"title\":\"hook\"},"
+                + REPOSITORY + "}");
+
+        Issue issue = client.get(Issue.class, "repos", "user", "repo", "issues", "1");
+        Assert.assertEquals("hook", issue.getTitle());
+        Assert.assertEquals(Long.valueOf(1), issue.getIndex());
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo/issues/1"));
+        assertRequested(paths, true, true, true, false, false);
+    }
+
+    @Test
+    public void issueComment() throws Exception {
+        String[] paths = {"repos/user/repo/issues/1", "repos/user/repo/issues/1/comments",
+                "repos/user/repo/issues/comments", "repos/user/repo/issues/2/comments"};
+        prime(paths);
+
+        handle("issue_comment", "{\"action\":\"created\",\"issue\":{\"index\":1}," + REPOSITORY + "}");
+
+        assertRequested(paths, true, true, true, false);
+    }
+
+    @Test
+    public void forkAndRepository() throws Exception {
+        client.get(REPOSITORY_LIST, "user", "repos");
+        String[] paths = {"repos/user/repo", "repos/other/repo", "repos/user/repo/issues/1"};
+        prime(paths);
+
+        handle("fork", "{\"forkee\":{\"id\":2,\"name\":\"repo\",\"owner\":{\"username\":\"other\"}},"
+                + REPOSITORY + "}");
+
+        assertRequested(paths, true, true, false);
+        client.get(REPOSITORY_LIST, "user", "repos");
+        Assert.assertEquals(2, server.count("GET", "user/repos"));
+
+        prime(paths);
+        handle("repository", "{\"action\":\"deleted\"," + REPOSITORY + "}");
+
+        assertRequested(paths, true, false, true);
+        client.get(REPOSITORY_LIST, "user", "repos");
+        Assert.assertEquals(3, server.count("GET", "user/repos"));
+    }
+
+    @Test
+    public void unknownEventRemovesRepository() throws Exception {
+        String[] paths = {"repos/user/repo", "repos/user/repo/issues/1", "repos/user/repo/wiki/page",
+                "repos/user/other"};
+        prime(paths);
+        handle("wiki", "{" + REPOSITORY + "}");
+        assertRequested(paths, true, true, true, false);
+
+        prime(paths);
+        handle(null, "{" + REPOSITORY + "}");
+        assertRequested(paths, true, true, true, false);
+
+        prime(paths);
+        handle("push", "{\"ref\":\"refs/heads/master\"}");
+        assertRequested(paths, false, false, false, false);
+    }
+
+    private WebHookPayload handle(String event, String json) {
+        return invalidator.handle(event, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * cache responses of paths and reset request counts.
+     */
+    private void prime(String... paths) {
+        for (String path : paths) {
+            client.get(Issue.class, path.split("/"));
+        }
+        counts = new int[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            counts[i] = server.count("GET", paths[i]);
+        }
+    }
+
+    /**
+     * check which paths reach the server again.
+     */
+    private void assertRequested(String[] paths, boolean... requested) {
+        for (int i = 0; i < paths.length; i++) {
+            client.get(Issue.class, paths[i].split("/"));
+            Assert.assertEquals(paths[i], counts[i] + (requested[i] ? 1 : 0), server.count("GET", paths[i]));
+        }
+    }
+}
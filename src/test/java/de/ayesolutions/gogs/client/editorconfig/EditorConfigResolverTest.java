@@ -0,0 +1,137 @@
+package de.ayesolutions.gogs.client.editorconfig;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.EditorDefinition;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class EditorConfigResolverTest {
+
+    private static final String RAW = "repos/user/repo/raw/master/";
+
+    /**
+     * editorconfig files by raw path, all other paths are not found.
+     */
+    private final Map<String, String> files = new ConcurrentHashMap<>();
+
+    private GogsServerStub server;
+
+    private GogsClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        files.put(RAW + ".editorconfig", "root = true\n\n[*]\ncharset = utf-8\nend_of_line = lf\n\n"
+                + "[*.java]\nindent_style = space\nindent_size = 4\n");
+        files.put(RAW + "src/.editorconfig", "[*.java]\nindent_size = 2\n");
+        files.put(RAW + "src/main/.editorconfig", "root = true\n\n[*.java]\nindent_style = tab\n");
+        files.put("repos/user/other/raw/master/.editorconfig", "root = true\n\n[*]\ncharset = latin1\n");
+
+        server = new GogsServerStub(request -> {
+            String content = files.get(request.getPath());
+            return content != null ? GogsServerStub.Reply.bytes(content.getBytes(StandardCharsets.UTF_8))
+                    : GogsServerStub.Reply.status(GogsClient.HTTP_NOT_FOUND);
+        });
+        client = new GogsClient(server.getUri());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void requestRootFileOnce() throws Exception {
+        EditorConfigResolver resolver = new EditorConfigResolver(client, 1, TimeUnit.MINUTES);
+
+        Map<String, EditorDefinition> definitions = resolver.resolve("user", "repo", "master", Arrays.asList(
+                "A.java", "src/B.java", "src/util/C.java", "/src/main/D.java", "README.md"));
+        resolver.resolve("user", "repo", "master", "docs/E.java");
+
+        Assert.assertEquals(1, server.getRequests().size());
+        Assert.assertEquals(1, server.count("GET", RAW + ".editorconfig"));
+        Assert.assertEquals(5, definitions.size());
+        EditorDefinition java = definitions.get("A.java");
+        Assert.assertEquals("utf-8", java.getCharset());
+        Assert.assertEquals("space", java.getIndentStyle());
+        Assert.assertEquals("4", java.getIndentSize());
+        Assert.assertEquals(4, java.getTabWidth());
+        Assert.assertEquals("lf", java.getEndOfLine());
+        Assert.assertSame(java, definitions.get("src/util/C.java"));
+        Assert.assertSame(java, definitions.get("/src/main/D.java"));
+        Assert.assertNull(definitions.get("README.md").getIndentStyle());
+    }
+
+    @Test
+    public void requestEveryDirectoryOnce() throws Exception {
+        EditorConfigResolver resolver = new EditorConfigResolver(client, 1, TimeUnit.MINUTES, true);
+
+        Map<String, EditorDefinition> definitions = resolver.resolve("user", "repo", "master", Arrays.asList(
+                "A.java", "src/B.java", "src/F.java", "src/util/C.java", "src/util/G.java", "src/main/D.java",
+                "src/main/java/H.java"));
+        resolver.resolve("user", "repo", "master", "src/util/I.java");
+
+        for (String directory : Arrays.asList("", "src/", "src/util/", "src/main/", "src/main/java/")) {
+            Assert.assertEquals(directory, 1, server.count("GET", RAW + directory + ".editorconfig"));
+        }
+        Assert.assertEquals(5, server.getRequests().size());
+
+        Assert.assertEquals("4", definitions.get("A.java").getIndentSize());
+        EditorDefinition nested = definitions.get("src/B.java");
+        Assert.assertEquals("utf-8", nested.getCharset());
+        Assert.assertEquals("space", nested.getIndentStyle());
+        Assert.assertEquals("2", nested.getIndentSize());
+        Assert.assertSame(nested, definitions.get("src/F.java"));
+        Assert.assertSame(nested, definitions.get("src/util/C.java"));
+
+        EditorDefinition root = definitions.get("src/main/D.java");
+        Assert.assertNull(root.getCharset());
+        Assert.assertEquals("tab", root.getIndentStyle());
+        Assert.assertEquals("tab", root.getIndentSize());
+        Assert.assertSame(root, definitions.get("src/main/java/H.java"));
+    }
+
+    @Test
+    public void invalidateRepository() throws Exception {
+        EditorConfigResolver resolver = new EditorConfigResolver(client, 1, TimeUnit.MINUTES, true);
+        EditorDefinition before = resolver.resolve("user", "repo", "master", "src/B.java");
+        resolver.resolve("user", "other", "master", "B.java");
+        files.put(RAW + "src/.editorconfig", "[*.java]\nindent_size = 8\n");
+
+        Assert.assertSame(before, resolver.resolve("user", "repo", "master", "src/B.java"));
+        resolver.invalidate("user", "repo");
+        EditorDefinition after = resolver.resolve("user", "repo", "master", "src/B.java");
+        resolver.resolve("user", "other", "master", "B.java");
+
+        Assert.assertEquals("8", after.getIndentSize());
+        Assert.assertEquals(2, server.count("GET", RAW + "src/.editorconfig"));
+        Assert.assertEquals(2, server.count("GET", RAW + ".editorconfig"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/other/raw/master/.editorconfig"));
+    }
+
+    @Test
+    public void shareDefinitionsBetweenRepositories() throws Exception {
+        files.put("repos/user/copy/raw/master/.editorconfig", files.get(RAW + ".editorconfig"));
+        EditorConfigResolver resolver = new EditorConfigResolver(client, 1, TimeUnit.MINUTES);
+
+        EditorDefinition first = resolver.resolve("user", "repo", "master", "A.java");
+        EditorDefinition second = resolver.resolve("user", "copy", "master", "lib/B.java");
+        EditorDefinition other = resolver.resolve("user", "other", "master", "A.java");
+
+        Assert.assertSame(first, second);
+        Assert.assertNotSame(first, other);
+        Assert.assertEquals("latin1", other.getCharset());
+        Assert.assertNull(resolver.resolve("user", "missing", "master", "A.java"));
+    }
+}
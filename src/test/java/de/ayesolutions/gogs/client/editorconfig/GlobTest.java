@@ -0,0 +1,60 @@
+package de.ayesolutions.gogs.client.editorconfig;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class GlobTest {
+
+    private static void assertMatch(String glob, String path, boolean expected) {
+        Pattern pattern = Glob.compile(glob);
+        Assert.assertEquals(glob + " " + path, expected, pattern.matcher(path).matches());
+    }
+
+    @Test
+    public void matchFileNameInAnyDirectory() throws Exception {
+        assertMatch("*", "a/b/c.txt", true);
+        assertMatch("*.java", "src/Main.java", true);
+        assertMatch("*.java", "Main.js", false);
+        assertMatch("Makefile", "build/Makefile", true);
+        assertMatch("file?.md", "file1.md", true);
+        assertMatch("file?.md", "file12.md", false);
+    }
+
+    @Test
+    public void matchRelativePath() throws Exception {
+        assertMatch("lib/**.js", "lib/a/b/c.js", true);
+        assertMatch("lib/*.js", "lib/a/c.js", false);
+        assertMatch("/docs/*.md", "docs/readme.md", true);
+        assertMatch("/docs/*.md", "src/docs/readme.md", false);
+    }
+
+    @Test
+    public void matchBracesAndClasses() throws Exception {
+        assertMatch("*.{js,ts}", "index.ts", true);
+        assertMatch("*.{js,ts}", "index.css", false);
+        assertMatch("{package.json,.travis.yml}", ".travis.yml", true);
+        assertMatch("file{1..3}.txt", "file2.txt", true);
+        assertMatch("file{1..3}.txt", "file4.txt", false);
+        assertMatch("[abc].txt", "b.txt", true);
+        assertMatch("[!abc].txt", "b.txt", false);
+        assertMatch("{single}.txt", "{single}.txt", true);
+    }
+
+    @Test
+    public void applyLaterSections() throws Exception {
+        EditorConfigFile file = EditorConfigFile.parse("root = true\n\n[*]\nindent_style = space\n"
+                + "indent_size = 4\n\n# comment\n[Makefile]\nindent_style = TAB\n");
+        Map<String, String> properties = new HashMap<>();
+        file.apply("src/Makefile", properties);
+        Assert.assertTrue(file.isRoot());
+        Assert.assertEquals("tab", properties.get("indent_style"));
+        Assert.assertEquals("4", properties.get("indent_size"));
+    }
+}
@@ -0,0 +1,114 @@
+package de.ayesolutions.gogs.client.graph;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.User;
+import de.ayesolutions.gogs.client.service.UserService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FollowGraphBuilderTest {
+
+    private static final List<String> NAMES = Arrays.asList("alice", "bob", "carol", "dave", "eve");
+
+    /**
+     * followed usernames per username: alice -> bob -> carol -> dave, eve -> alice.
+     */
+    private final Map<String, List<String>> following = new HashMap<>();
+
+    private GogsServerStub server;
+
+    private UserService service;
+
+    @Before
+    public void setUp() throws Exception {
+        following.put("alice", Collections.singletonList("bob"));
+        following.put("bob", Collections.singletonList("carol"));
+        following.put("carol", Collections.singletonList("dave"));
+        following.put("eve", Collections.singletonList("alice"));
+
+        server = new GogsServerStub(request -> {
+            String[] path = request.getPath().split("/");
+            if (!"1".equals(request.getParameter("page"))) {
+                return GogsServerStub.Reply.json("[]");
+            }
+            List<String> users = new ArrayList<>();
+            for (String username : NAMES) {
+                boolean related = "following".equals(path[2]) ? follows(path[1], username) : follows(username, path[1]);
+                if (related) {
+                    users.add(user(username));
+                }
+            }
+            return GogsServerStub.Reply.json("[" + String.join(",", users) + "]");
+        });
+        service = new UserService(new GogsClient(server.getUri()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void crawlStartUsers() throws Exception {
+        FollowGraph graph = new FollowGraphBuilder().crawl(service, Collections.singletonList(start("alice")), 0)
+                .build();
+
+        Assert.assertEquals(3, graph.getUserCount());
+        Assert.assertEquals(2, graph.getEdgeCount());
+        Assert.assertTrue(graph.isFollowing(1, 2));
+        Assert.assertTrue(graph.isFollowing(5, 1));
+        Assert.assertEquals("bob", graph.getUsername(graph.indexOf(2)));
+        Assert.assertEquals("eve", graph.getUsername(graph.indexOf(5)));
+        Assert.assertEquals(2, server.getRequests().size());
+    }
+
+    @Test
+    public void crawlUntilDepth() throws Exception {
+        FollowGraph graph = new FollowGraphBuilder().crawl(service, Arrays.asList(start("alice"), start("alice")), 1)
+                .build();
+
+        Assert.assertEquals(4, graph.getUserCount());
+        Assert.assertEquals(3, graph.getEdgeCount());
+        Assert.assertTrue(graph.isFollowing(2, 3));
+        Assert.assertEquals("carol", graph.getUsername(graph.indexOf(3)));
+        Assert.assertEquals(-1, graph.indexOf(4));
+        for (String username : Arrays.asList("alice", "bob", "eve")) {
+            Assert.assertEquals(username, 1, server.count("GET", "users/" + username + "/following"));
+            Assert.assertEquals(username, 1, server.count("GET", "users/" + username + "/followers"));
+        }
+        Assert.assertEquals(6, server.getRequests().size());
+
+        graph = new FollowGraphBuilder().crawl(service, Collections.singletonList(start("alice")), 5).build();
+        Assert.assertEquals(5, graph.getUserCount());
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertEquals("dave", graph.getUsername(graph.indexOf(4)));
+    }
+
+    private boolean follows(String follower, String username) {
+        return following.getOrDefault(follower, Collections.emptyList()).contains(username);
+    }
+
+    private static User start(String username) {
+        User user = new User();
+        user.setId((long) NAMES.indexOf(username) + 1);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static String user(String username) {
+        return "{\"id\":" + (NAMES.indexOf(username) + 1) + ",\"username\":\"" + username + "\"}";
+    }
+}
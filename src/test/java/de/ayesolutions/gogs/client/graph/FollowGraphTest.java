@@ -0,0 +1,47 @@
+package de.ayesolutions.gogs.client.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FollowGraphTest {
+
+    @Test
+    public void buildGraph() throws Exception {
+        FollowGraph graph = new FollowGraphBuilder()
+                .addUser(1, "alice")
+                .addUser(42, "nobody")
+                .addEdge(1, 7)
+                .addEdge(1, 3)
+                .addEdge(3, 1)
+                .addEdge(7, 3)
+                .addEdge(1, 7)
+                .build();
+
+        Assert.assertEquals(4, graph.getUserCount());
+        Assert.assertEquals(4, graph.getEdgeCount());
+        Assert.assertEquals("alice", graph.getUsername(graph.indexOf(1)));
+        Assert.assertNull(graph.getUsername(graph.indexOf(7)));
+        Assert.assertEquals(-1, graph.indexOf(5));
+
+        Assert.assertArrayEquals(new long[]{3, 7}, graph.getFollowing(1));
+        Assert.assertArrayEquals(new long[]{1, 7}, graph.getFollowers(3));
+        Assert.assertArrayEquals(new long[0], graph.getFollowing(42));
+        Assert.assertEquals(2, graph.getFollowerCount(3));
+        Assert.assertEquals(0, graph.getFollowerCount(5));
+
+        Assert.assertTrue(graph.isFollowing(1, 7));
+        Assert.assertFalse(graph.isFollowing(7, 1));
+        Assert.assertFalse(graph.isFollowing(1, 42));
+    }
+
+    @Test
+    public void buildEmptyGraph() throws Exception {
+        FollowGraph graph = new FollowGraphBuilder().build();
+        Assert.assertEquals(0, graph.getUserCount());
+        Assert.assertEquals(0, graph.getEdgeCount());
+        Assert.assertArrayEquals(new long[0], graph.getFollowers(1));
+    }
+}
@@ -0,0 +1,247 @@
+package de.ayesolutions.gogs.client.graph;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class TeamTopologyLoaderTest {
+
+    private static final List<String> NAMES = Arrays.asList("alpha", "beta", "gamma");
+
+    private static final int PARALLELISM = 3;
+
+    private final Map<String, Long> organizations = new ConcurrentHashMap<>();
+
+    private final Map<String, String> teams = new ConcurrentHashMap<>();
+
+    private final Map<String, String> repositories = new ConcurrentHashMap<>();
+
+    private final Map<String, String> members = new ConcurrentHashMap<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maximumRunning = new AtomicInteger();
+
+    private volatile boolean failMembers;
+
+    private volatile CountDownLatch blocked;
+
+    private volatile CountDownLatch release;
+
+    private ExecutorService executor;
+
+    private GogsServerStub server;
+
+    private TeamTopologyLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        organizations.put("alpha", 1L);
+        organizations.put("beta", 2L);
+        organizations.put("gamma", 3L);
+        teams.put("alpha", "[" + team(10, "Owners", "owner") + "," + team(11, "Developers", "write") + "]");
+        teams.put("beta", "[" + team(20, "Readers", "read") + "]");
+        teams.put("gamma", "[" + team(30, "Owners", "owner") + "]");
+        repositories.put("alpha", "[{\"id\":100,\"name\":\"api\"},{\"id\":101,\"name\":\"web\"}]");
+        repositories.put("beta", "[{\"id\":200,\"name\":\"docs\"}]");
+        repositories.put("gamma", "[]");
+        members.put("10", "[" + user(1, "alice") + "]");
+        members.put("11", "[" + user(2, "bob") + "," + user(3, "carol") + "]");
+        members.put("20", "[" + user(2, "bob") + "]");
+        members.put("30", "[" + user(4, "dave") + "]");
+
+        executor = Executors.newFixedThreadPool(8);
+        server = new GogsServerStub(request -> {
+            maximumRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+                return reply(request.getPath().split("/"), request.getParameter("page"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return GogsServerStub.Reply.status(500);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        loader = new TeamTopologyLoader(new GogsClient(server.getUri()), executor, PARALLELISM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    private GogsServerStub.Reply reply(String[] path, String page) throws InterruptedException {
+        if (path[0].equals("user")) {
+            return GogsServerStub.Reply.json("[" + NAMES.stream().filter(organizations::containsKey)
+                    .map(name -> "{\"id\":" + organizations.get(name) + ",\"username\":\"" + name + "\"}")
+                    .collect(Collectors.joining(",")) + "]");
+        }
+        if (path[0].equals("admin")) {
+            CountDownLatch latch = release;
+            if (latch != null && path[2].equals("30")) {
+                blocked.countDown();
+                latch.await(10, TimeUnit.SECONDS);
+            }
+            return failMembers ? GogsServerStub.Reply.status(500) : GogsServerStub.Reply.json(members.get(path[2]));
+        }
+
+        String name = path[1];
+        if (!organizations.containsKey(name)) {
+            return GogsServerStub.Reply.status(GogsClient.HTTP_NOT_FOUND);
+        }
+        if (path.length == 2) {
+            return GogsServerStub.Reply.json("{\"id\":" + organizations.get(name) + ",\"username\":\"" + name
+                    + "\"}");
+        }
+        if (path[2].equals("teams")) {
+            return GogsServerStub.Reply.json(teams.get(name));
+        }
+        return GogsServerStub.Reply.json("1".equals(page) ? repositories.get(name) : "[]");
+    }
+
+    @Test
+    public void crawlInParallel() throws Exception {
+        TeamTopology topology = loader.load();
+
+        Assert.assertSame(topology, loader.getTopology());
+        Assert.assertEquals(NAMES, topology.getOrganizationNames());
+        Assert.assertEquals(3, topology.getOrganizationCount());
+        Assert.assertEquals(4, topology.getTeamCount());
+        Assert.assertEquals(4, topology.getUserCount());
+        Assert.assertArrayEquals(new long[]{10, 11}, topology.getTeams("alpha"));
+        Assert.assertArrayEquals(new String[]{"api", "web"}, topology.getRepositories("alpha"));
+        Assert.assertArrayEquals(new long[]{2, 3}, topology.getMembers(11));
+        Assert.assertEquals("write", topology.getTeamPermission(11));
+        Assert.assertEquals("write", topology.getPermission("alpha", "carol"));
+        Assert.assertArrayEquals(new long[]{11, 20}, topology.getTeamsOfUser(2));
+
+        Assert.assertTrue(maximumRunning.get() <= PARALLELISM);
+        Assert.assertTrue(maximumRunning.get() > 1);
+        Assert.assertEquals(1, server.count("GET", "admin/teams/30/members"));
+    }
+
+    @Test
+    public void dropMissingOrganizations() throws Exception {
+        organizations.remove("beta");
+        TeamTopology topology = loader.load(Arrays.asList("alpha", "beta", "gamma", "alpha"));
+
+        Assert.assertEquals(Arrays.asList("alpha", "gamma"), topology.getOrganizationNames());
+        Assert.assertNull(topology.getTeamOrganization(20));
+        Assert.assertEquals(1, server.count("GET", "orgs/alpha"));
+        Assert.assertEquals(0, server.count("GET", "admin/teams/20/members"));
+    }
+
+    @Test
+    public void refreshOrganizations() throws Exception {
+        TeamTopology loaded = loader.load();
+        teams.put("beta", "[" + team(20, "Readers", "read") + "," + team(21, "Writers", "write") + "]");
+        members.put("21", "[" + user(5, "erin") + "]");
+        organizations.remove("gamma");
+
+        TeamTopology topology = loader.refreshOrganizations(Arrays.asList("beta", "gamma"));
+
+        Assert.assertNotSame(loaded, topology);
+        Assert.assertSame(topology, loader.getTopology());
+        Assert.assertEquals(Arrays.asList("alpha", "beta"), topology.getOrganizationNames());
+        Assert.assertArrayEquals(new long[]{20, 21}, topology.getTeams("beta"));
+        Assert.assertEquals(5, topology.getUserId("erin"));
+        Assert.assertNull(topology.getTeamOrganization(30));
+        Assert.assertArrayEquals(new long[]{10, 11}, topology.getTeams("alpha"));
+        Assert.assertEquals(1, server.count("GET", "orgs/alpha"));
+        Assert.assertEquals(1, server.count("GET", "admin/teams/10/members"));
+        Assert.assertEquals(2, server.count("GET", "orgs/beta/teams"));
+    }
+
+    @Test
+    public void refreshTeams() throws Exception {
+        loader.load();
+        members.put("11", "[" + user(3, "carol") + "," + user(5, "erin") + "]");
+        members.put("20", "[]");
+
+        TeamTopology topology = loader.refreshTeams(Arrays.asList(11L, 99L));
+
+        Assert.assertArrayEquals(new long[]{3, 5}, topology.getMembers(11));
+        Assert.assertEquals("Developers", topology.getTeamName(11));
+        Assert.assertEquals("write", topology.getTeamPermission(11));
+        Assert.assertArrayEquals(new long[]{20}, topology.getTeamsOfUser(2));
+        Assert.assertArrayEquals(new long[]{2}, topology.getMembers(20));
+        Assert.assertEquals(2, server.count("GET", "admin/teams/11/members"));
+        Assert.assertEquals(1, server.count("GET", "admin/teams/20/members"));
+        Assert.assertEquals(0, server.count("GET", "admin/teams/99/members"));
+        Assert.assertEquals(1, server.count("GET", "orgs/alpha/teams"));
+    }
+
+    @Test
+    public void keepSnapshotOnFailure() throws Exception {
+        TeamTopology loaded = loader.load();
+        failMembers = true;
+
+        assertFails(() -> loader.load());
+        assertFails(() -> loader.refreshOrganizations(Collections.singletonList("alpha")));
+        assertFails(() -> loader.refreshTeams(Collections.singletonList(10L)));
+
+        Assert.assertSame(loaded, loader.getTopology());
+        Assert.assertArrayEquals(new long[]{1}, loader.getTopology().getMembers(10));
+    }
+
+    @Test
+    public void swapSnapshotAfterCrawl() throws Exception {
+        TeamTopology loaded = loader.load();
+        members.put("30", "[" + user(5, "erin") + "]");
+        blocked = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+
+        AtomicReference<TeamTopology> result = new AtomicReference<>();
+        Thread crawl = new Thread(() -> result.set(loader.load()));
+        crawl.start();
+        Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        Assert.assertSame(loaded, loader.getTopology());
+        Assert.assertEquals(4, loader.getTopology().getUserId("dave"));
+
+        release.countDown();
+        crawl.join(10000);
+        Assert.assertSame(result.get(), loader.getTopology());
+        Assert.assertEquals(-1, loader.getTopology().getUserId("dave"));
+        Assert.assertEquals(5, loader.getTopology().getUserId("erin"));
+    }
+
+    private static void assertFails(Runnable crawl) {
+        try {
+            crawl.run();
+            Assert.fail("failed crawl not reported");
+        } catch (GogsClientException e) {
+            Assert.assertEquals("could not crawl teams", e.getMessage());
+        }
+    }
+
+    private static String team(long id, String name, String permission) {
+        return "{\"id\":" + id + ",\"name\":\"" + name + "\",\"permission\":\"" + permission + "\"}";
+    }
+
+    private static String user(long id, String username) {
+        return "{\"id\":" + id + ",\"username\":\"" + username + "\"}";
+    }
+}
@@ -0,0 +1,66 @@
+package de.ayesolutions.gogs.client.graph;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class TeamTopologyTest {
+
+    private static TeamTopology createTopology() {
+        TeamTopology.TeamNode owners = new TeamTopology.TeamNode(10, "Owners", "owner", new long[]{1},
+                new String[]{"alice"});
+        TeamTopology.TeamNode developers = new TeamTopology.TeamNode(11, "Developers", "write", new long[]{3, 2},
+                new String[]{"carol", "bob"});
+        TeamTopology.TeamNode readers = new TeamTopology.TeamNode(5, "Readers", "read", new long[]{2},
+                new String[]{"bob"});
+        return TeamTopology.build(Arrays.asList(
+                new TeamTopology.OrganizationNode(200, "acme", Arrays.asList(owners, developers),
+                        new long[]{7, 8}, new String[]{"api", "web"}),
+                new TeamTopology.OrganizationNode(100, "other", Collections.singletonList(readers),
+                        new long[0], new String[0])));
+    }
+
+    @Test
+    public void lookupRelations() throws Exception {
+        TeamTopology topology = createTopology();
+
+        Assert.assertEquals(2, topology.getOrganizationCount());
+        Assert.assertEquals(3, topology.getTeamCount());
+        Assert.assertEquals(3, topology.getUserCount());
+        Assert.assertArrayEquals(new long[]{10, 11}, topology.getTeams("acme"));
+        Assert.assertArrayEquals(new String[]{"api", "web"}, topology.getRepositories("acme"));
+        Assert.assertArrayEquals(new long[]{2, 3}, topology.getMembers(11));
+        Assert.assertArrayEquals(new long[]{5, 11}, topology.getTeamsOfUser(2));
+        Assert.assertEquals("other", topology.getTeamOrganization(5));
+        Assert.assertEquals(3, topology.getUserId("carol"));
+        Assert.assertTrue(topology.isMember(11, 3));
+        Assert.assertFalse(topology.isMember(10, 3));
+        Assert.assertArrayEquals(new long[0], topology.getTeams("missing"));
+    }
+
+    @Test
+    public void highestPermissionPerOrganization() throws Exception {
+        TeamTopology topology = createTopology();
+
+        Assert.assertEquals("owner", topology.getPermission("acme", "alice"));
+        Assert.assertEquals("write", topology.getPermission("acme", "bob"));
+        Assert.assertEquals("read", topology.getPermission("other", "bob"));
+        Assert.assertNull(topology.getPermission("other", "alice"));
+    }
+
+    @Test
+    public void rebuildFromOrganization() throws Exception {
+        TeamTopology topology = createTopology();
+        TeamTopology rebuilt = TeamTopology.build(Arrays.asList(topology.organization("acme"),
+                topology.organization("other")));
+
+        Assert.assertArrayEquals(topology.getMembers(11), rebuilt.getMembers(11));
+        Assert.assertArrayEquals(topology.getRepositories("acme"), rebuilt.getRepositories("acme"));
+        Assert.assertEquals(topology.getPermission("acme", "bob"), rebuilt.getPermission("acme", "bob"));
+    }
+}
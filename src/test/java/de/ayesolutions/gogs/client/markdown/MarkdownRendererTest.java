@@ -0,0 +1,73 @@
+package de.ayesolutions.gogs.client.markdown;
+
+import de.ayesolutions.gogs.client.model.Markdown;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * compares the local renderer with html rendered by gogs.
+ *
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class MarkdownRendererTest {
+
+    private static final String CONTEXT = "http://localhost:3000/user/repo";
+
+    private final MarkdownRenderer renderer = new MarkdownRenderer("");
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = MarkdownRendererTest.class.getResourceAsStream("/markdown/" + name)) {
+            Assert.assertNotNull(name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Markdown gfm(String text) {
+        Markdown markdown = new Markdown();
+        markdown.setMode(MarkdownRenderer.MODE_GFM);
+        markdown.setContext(CONTEXT);
+        markdown.setText(text);
+        return markdown;
+    }
+
+    @Test
+    public void renderGfm() throws Exception {
+        Assert.assertEquals(resource("gfm.html"), renderer.render(gfm(resource("gfm.md"))));
+    }
+
+    @Test
+    public void renderRaw() throws Exception {
+        Assert.assertEquals(resource("raw.html"), renderer.renderRaw(resource("raw.md")));
+    }
+
+    @Test
+    public void renderEmpty() throws Exception {
+        Assert.assertEquals("", renderer.render(gfm("")));
+    }
+
+    @Test
+    public void rejectUnsupported() throws Exception {
+        String[] unsupported = {"<div>html</div>", "| a | b |\n|---|---|", "![image](https://x/y.png)",
+                "see https://gogs.io", "[relative](docs/readme.md)", "title\n=====", "* a\n\n* b",
+                "* a\n  * nested", "- [ ] task", "    indented code", "a \\*escaped\\*", "&copy;"};
+        for (String text : unsupported) {
+            try {
+                renderer.render(gfm(text));
+                Assert.fail("rendered " + text);
+            } catch (UnsupportedMarkdownException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.ayesolutions.gogs.client.model;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class AccessTokenTest {
+
+    @Test
+    public void updateAuthorizationInSetters() throws Exception {
+        AccessToken accessToken = new AccessToken(null, null, "user", "pass");
+        Assert.assertEquals(basic("user:pass"), accessToken.getAuthorization());
+
+        accessToken.setPassword("secret");
+        Assert.assertEquals(basic("user:secret"), accessToken.getAuthorization());
+
+        accessToken.setSha1("abc");
+        Assert.assertEquals("token abc", accessToken.getAuthorization());
+        accessToken.setUsername("other");
+        Assert.assertEquals("token abc", accessToken.getAuthorization());
+
+        accessToken.setSha1(null);
+        Assert.assertEquals(basic("other:secret"), accessToken.getAuthorization());
+        Assert.assertEquals(basic("null:null"), new AccessToken().getAuthorization());
+    }
+
+    private static String basic(String credentials) {
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
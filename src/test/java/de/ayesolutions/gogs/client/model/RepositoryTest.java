@@ -0,0 +1,85 @@
+package de.ayesolutions.gogs.client.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.ayesolutions.gogs.client.model.Repository.RepositoryPermission;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class RepositoryTest {
+
+    private static final int ALL = RepositoryPermission.ADMIN | RepositoryPermission.PUSH | RepositoryPermission.PULL;
+
+    @Test
+    public void shareInstances() throws Exception {
+        Assert.assertSame(RepositoryPermission.of(true, false, true), RepositoryPermission.of(true, false, true));
+        Assert.assertSame(RepositoryPermission.of(false, true, true),
+                RepositoryPermission.valueOf(RepositoryPermission.PUSH | RepositoryPermission.PULL));
+        Assert.assertSame(RepositoryPermission.valueOf(ALL), RepositoryPermission.valueOf(ALL | 8));
+        Assert.assertNotSame(RepositoryPermission.of(true, false, false), RepositoryPermission.of(false, true, false));
+    }
+
+    @Test
+    public void checkPermissionBits() throws Exception {
+        for (int mask = 0; mask <= ALL; mask++) {
+            RepositoryPermission permission = RepositoryPermission.valueOf(mask);
+            Assert.assertEquals(mask, permission.getMask());
+            Assert.assertEquals((mask & RepositoryPermission.ADMIN) != 0, permission.isAdmin());
+            Assert.assertEquals((mask & RepositoryPermission.PUSH) != 0, permission.isPush());
+            Assert.assertEquals((mask & RepositoryPermission.PULL) != 0, permission.isPull());
+            for (int requested = 0; requested <= ALL; requested++) {
+                Assert.assertEquals(mask + " " + requested, (mask | requested) == mask, permission.has(requested));
+            }
+        }
+    }
+
+    @Test
+    public void readAndWriteJson() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Repository repository = mapper.readValue("{\"id\":1,\"name\":\"repo\","
+                + "\"permissions\":{\"admin\":false,\"push\":true,\"pull\":true}}", Repository.class);
+
+        Assert.assertSame(RepositoryPermission.of(false, true, true), repository.getPermissions());
+        Assert.assertTrue(repository.hasPermission(RepositoryPermission.PUSH));
+        Assert.assertFalse(repository.hasPermission(RepositoryPermission.ADMIN | RepositoryPermission.PUSH));
+
+        String json = mapper.writeValueAsString(repository.getPermissions());
+        Assert.assertEquals("{\"admin\":false,\"push\":true,\"pull\":true}", json);
+        Repository copy = mapper.readValue(mapper.writeValueAsString(repository), Repository.class);
+        Assert.assertSame(repository.getPermissions(), copy.getPermissions());
+
+        Assert.assertNull(mapper.readValue("{\"id\":2}", Repository.class).getPermissions());
+        Assert.assertSame(RepositoryPermission.valueOf(0),
+                mapper.readValue("{\"permissions\":{}}", Repository.class).getPermissions());
+    }
+
+    @Test
+    public void filterByPermission() throws Exception {
+        Repository admin = repository(RepositoryPermission.valueOf(ALL));
+        Repository push = repository(RepositoryPermission.of(false, true, true));
+        Repository pull = repository(RepositoryPermission.of(false, false, true));
+        Repository unknown = repository(null);
+        List<Repository> repositories = Arrays.asList(admin, push, pull, unknown);
+
+        Assert.assertEquals(Arrays.asList(admin, push, pull),
+                Repository.filterByPermission(repositories, RepositoryPermission.PULL));
+        Assert.assertEquals(Arrays.asList(admin, push),
+                Repository.filterByPermission(repositories, RepositoryPermission.PUSH));
+        Assert.assertEquals(Collections.singletonList(admin),
+                Repository.filterByPermission(repositories, RepositoryPermission.ADMIN | RepositoryPermission.PULL));
+        Assert.assertEquals(repositories.size() - 1, Repository.filterByPermission(repositories, 0).size());
+        Assert.assertTrue(Repository.filterByPermission(Collections.emptyList(), ALL).isEmpty());
+    }
+
+    private static Repository repository(RepositoryPermission permissions) {
+        Repository repository = new Repository();
+        repository.setPermissions(permissions);
+        return repository;
+    }
+}
@@ -0,0 +1,149 @@
+package de.ayesolutions.gogs.client.paging;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class PagesTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private AtomicInteger requests = new AtomicInteger();
+
+    private Page<Integer> fetch(int page, int total, boolean linked) {
+        requests.incrementAndGet();
+        int lastPage = (total + PAGE_SIZE - 1) / PAGE_SIZE;
+        List<Integer> items = new ArrayList<>();
+        for (int i = (page - 1) * PAGE_SIZE + 1; i <= Math.min(total, page * PAGE_SIZE); i++) {
+            items.add(i);
+        }
+        if (!linked) {
+            return new Page<>(page, items, false, null, null, null);
+        }
+        return new Page<>(page, items, true, page < lastPage ? page + 1 : null, lastPage, (long) total);
+    }
+
+    @Test
+    public void streamLinkedPages() throws Exception {
+        List<Integer> items = Pages.stream(page -> fetch(page, 35, true), PAGE_SIZE).collect(Collectors.toList());
+        Assert.assertEquals(35, items.size());
+        Assert.assertEquals(Integer.valueOf(35), items.get(34));
+        Assert.assertEquals(4, requests.get());
+    }
+
+    @Test
+    public void streamUnlinkedPages() throws Exception {
+        Assert.assertEquals(30, Pages.stream(page -> fetch(page, 30, false), PAGE_SIZE).count());
+        Assert.assertEquals(4, requests.get());
+    }
+
+    @Test
+    public void stopEarly() throws Exception {
+        Assert.assertEquals(12, Pages.stream(page -> fetch(page, 100, true), PAGE_SIZE).limit(12).count());
+        Assert.assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void unpaginatedEndpoint() throws Exception {
+        List<Integer> all = fetch(1, 8, false).getItems();
+        Assert.assertEquals(8, Pages.list(page -> new Page<>(page, all, false, null, null, null), 0).size());
+    }
+
+    @Test
+    public void prefetchPagesInOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Integer> items = Pages.stream(page -> {
+                sleep(page % 2 == 0 ? 1 : 20);
+                return fetch(page, 95, true);
+            }, PAGE_SIZE, executor, 4).collect(Collectors.toList());
+            Assert.assertEquals(IntStream.rangeClosed(1, 95).boxed().collect(Collectors.toList()), items);
+            // the last page is known from the first response, no page behind it is requested
+            Assert.assertEquals(10, requests.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void prefetchUnlinkedPages() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Assert.assertEquals(30, Pages.stream(page -> fetch(page, 30, false), PAGE_SIZE, executor, 3).count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancelPrefetchOnClose() throws Exception {
+        // runs the first page request immediately and keeps the others until they are run manually
+        List<Runnable> queued = new ArrayList<>();
+        Executor executor = task -> {
+            if (requests.get() == 0 && queued.isEmpty()) {
+                task.run();
+            } else {
+                queued.add(task);
+            }
+        };
+        try (Stream<Integer> stream = Pages.stream(page -> fetch(page, 100, true), PAGE_SIZE, executor, 3)) {
+            Assert.assertEquals(5, stream.limit(5).count());
+        }
+        Assert.assertFalse(queued.isEmpty());
+        queued.forEach(Runnable::run);
+        Assert.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void prefetchFailure() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Pages.stream(page -> {
+                if (page == 3) {
+                    throw new IllegalStateException("page " + page);
+                }
+                return fetch(page, 100, true);
+            }, PAGE_SIZE, executor, 2).count();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("page 3", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void splitLinkedPages() throws Exception {
+        List<Integer> items = Pages.splittableStream(page -> fetch(page, 253, true), PAGE_SIZE).parallel()
+                .collect(Collectors.toList());
+        Assert.assertEquals(IntStream.rangeClosed(1, 253).boxed().collect(Collectors.toList()), items);
+        Assert.assertEquals(26, requests.get());
+    }
+
+    @Test
+    public void splitUnlinkedPages() throws Exception {
+        Assert.assertEquals(40, Pages.splittableStream(page -> fetch(page, 40, false), PAGE_SIZE).parallel()
+                .mapToInt(Integer::intValue).distinct().count());
+        Assert.assertEquals(40, Pages.splittableStream(page -> fetch(page, 40, false), PAGE_SIZE).count());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
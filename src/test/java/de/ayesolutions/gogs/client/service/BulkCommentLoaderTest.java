@@ -0,0 +1,141 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.Comment;
+import de.ayesolutions.gogs.client.model.TextMode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class BulkCommentLoaderTest {
+
+    private static final String FAILING_ISSUE = "7";
+
+    private final AtomicInteger running = new AtomicInteger();
+
+    private final AtomicInteger maximumRunning = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    private GogsServerStub server;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(8);
+        server = new GogsServerStub(request -> {
+            String[] path = request.getPath().split("/");
+            if (path.length == 4) {
+                // issue list, issue numbers 1 to 15 are open and 16 to 20 closed
+                boolean open = "open".equals(request.getParameter("state"));
+                int page = Integer.parseInt(request.getParameter("page"));
+                List<String> issues = IntStream.rangeClosed(open ? 1 : 16, open ? 15 : 20)
+                        .mapToObj(i -> "{\"id\":" + (1000 + i) + ",\"index\":" + i + "}")
+                        .skip((page - 1) * IssueService.ISSUE_PAGE_SIZE).limit(IssueService.ISSUE_PAGE_SIZE)
+                        .collect(Collectors.toList());
+                return GogsServerStub.Reply.json("[" + String.join(",", issues) + "]");
+            }
+
+            maximumRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            String issueId = path[4];
+            if (FAILING_ISSUE.equals(issueId)) {
+                return GogsServerStub.Reply.status(500);
+            }
+            List<String> comments = new ArrayList<>();
+            for (int i = 0; i < Integer.parseInt(issueId) % 4; i++) {
+                comments.add("{\"id\":" + i + ",\"body\":\"" + issueId + "-" + i + "\"}");
+            }
+            return GogsServerStub.Reply.json("[" + String.join(",", comments) + "]");
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void loadWithBoundedParallelism() throws Exception {
+        BulkCommentLoader loader = new BulkCommentLoader(new GogsClient(server.getUri()), executor, 3);
+        Map<String, List<String>> comments = new ConcurrentHashMap<>();
+        AtomicBoolean inListener = new AtomicBoolean();
+        AtomicBoolean concurrentCall = new AtomicBoolean();
+        List<String> failed = new ArrayList<>();
+
+        BulkCommentLoader.Result result = loader.load("user", "repo", IntStream.rangeClosed(1, 20)
+                .mapToObj(String::valueOf), new CommentListener() {
+            @Override
+            public void onComment(String issueId, Comment comment) {
+                if (!inListener.compareAndSet(false, true)) {
+                    concurrentCall.set(true);
+                }
+                comments.computeIfAbsent(issueId, id -> new ArrayList<>()).add(comment.getBody());
+                inListener.set(false);
+            }
+
+            @Override
+            public void onFailure(String issueId, RuntimeException cause) {
+                failed.add(issueId);
+            }
+        });
+
+        Assert.assertFalse(concurrentCall.get());
+        Assert.assertTrue(maximumRunning.get() <= 3);
+        Assert.assertEquals(19, result.getIssueCount());
+        Assert.assertEquals(27, result.getCommentCount());
+        Assert.assertEquals(Collections.singletonList(FAILING_ISSUE), failed);
+        Assert.assertEquals(Collections.singleton(FAILING_ISSUE), result.getFailures().keySet());
+        Assert.assertEquals(Arrays.asList("3-0", "3-1", "3-2"), comments.get("3"));
+    }
+
+    @Test
+    public void loadOpenAndClosedIssues() throws Exception {
+        BulkCommentLoader loader = new BulkCommentLoader(new GogsClient(server.getUri()), executor, 4);
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        BulkCommentLoader.Result result = loader.load("user", "repo",
+                (issueId, comment) -> counts.merge(issueId, 1, Integer::sum));
+
+        Assert.assertEquals(19, result.getIssueCount());
+        Assert.assertEquals(Integer.valueOf(3), counts.get("19"));
+        Assert.assertEquals(1, server.count("GET", "repos/user/repo/issues/20/comments"));
+    }
+
+    @Test
+    public void loadWithoutBodies() throws Exception {
+        BulkCommentLoader loader = new BulkCommentLoader(new GogsClient(server.getUri()), executor, 2, TextMode.SKIP);
+        List<String> bodies = Collections.synchronizedList(new ArrayList<>());
+        BulkCommentLoader.Result result = loader.load("user", "repo", IntStream.rangeClosed(1, 6)
+                .mapToObj(String::valueOf), (issueId, comment) -> bodies.add(issueId + " " + comment.getBody()));
+
+        Assert.assertEquals(6, result.getIssueCount());
+        Assert.assertEquals(9, bodies.size());
+        for (String body : bodies) {
+            Assert.assertTrue(body, body.endsWith(" null"));
+        }
+    }
+}
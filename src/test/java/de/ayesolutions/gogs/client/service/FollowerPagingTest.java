@@ -0,0 +1,74 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.User;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class FollowerPagingTest {
+
+    private GogsServerStub server;
+
+    private UserService service;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            String[] path = request.getPath().split("/");
+            if ("unknown".equals(path[1])) {
+                return GogsServerStub.Reply.status(GogsClient.HTTP_NOT_FOUND);
+            }
+            int count = "followers".equals(path[2]) ? 45 : UserService.FOLLOWER_PAGE_SIZE;
+            int first = (Integer.parseInt(request.getParameter("page")) - 1) * UserService.FOLLOWER_PAGE_SIZE;
+            List<String> users = new ArrayList<>();
+            for (int id = first; id < Math.min(count, first + UserService.FOLLOWER_PAGE_SIZE); id++) {
+                users.add("{\"id\":" + id + ",\"username\":\"user" + id + "\"}");
+            }
+            return GogsServerStub.Reply.json("[" + String.join(",", users) + "]");
+        });
+        service = new UserService(new GogsClient(server.getUri()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void streamFollowersUntilShortPage() throws Exception {
+        List<User> followers = service.streamFollowers("user").collect(Collectors.toList());
+
+        Assert.assertEquals(45, followers.size());
+        for (int i = 0; i < followers.size(); i++) {
+            Assert.assertEquals(Long.valueOf(i), followers.get(i).getId());
+        }
+        Assert.assertEquals(2, server.count("GET", "users/user/followers"));
+        Assert.assertEquals("2", server.getRequests().get(1).getParameter("page"));
+    }
+
+    @Test
+    public void streamFollowingUntilEmptyPage() throws Exception {
+        Assert.assertEquals(UserService.FOLLOWER_PAGE_SIZE, service.streamFollowing("user").count());
+        Assert.assertEquals(2, server.count("GET", "users/user/following"));
+    }
+
+    @Test
+    public void loadPagesOnDemand() throws Exception {
+        Assert.assertEquals(10, service.streamFollowers("user").limit(10).count());
+        Assert.assertEquals(1, server.getRequests().size());
+
+        Assert.assertEquals(0, service.streamFollowing("unknown").count());
+        Assert.assertEquals(0, service.streamFollowers("unknown").count());
+        Assert.assertEquals(3, server.getRequests().size());
+    }
+}
@@ -0,0 +1,135 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.Repository;
+import de.ayesolutions.gogs.client.model.User;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class IssueFeedTest {
+
+    private static final int REPOSITORIES = 3;
+
+    private static final int ISSUES = 25;
+
+    private ExecutorService executor;
+
+    private GogsServerStub server;
+
+    private boolean sortedByServer;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        server = new GogsServerStub(request -> {
+            String repositoryName = request.getPath().split("/")[2];
+            int repository = Integer.parseInt(repositoryName.substring(1));
+            int page = Integer.parseInt(request.getParameter("page"));
+            return GogsServerStub.Reply.json(issuePage(repository, page,
+                    sortedByServer && "recentupdate".equals(request.getParameter("sort"))));
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * issues of all repositories have distinct update times, merged they count down from 1000.
+     */
+    private static String issuePage(int repository, int page, boolean recentFirst) {
+        List<String> issues = new ArrayList<>();
+        for (int i = 0; i < ISSUES; i++) {
+            long updated = 1000 - (i * REPOSITORIES + repository);
+            issues.add("{\"id\":" + (repository * 100 + i) + ",\"updated_at\":" + updated + "}");
+        }
+        if (!recentFirst) {
+            Collections.reverse(issues);
+        }
+        int from = (page - 1) * IssueService.ISSUE_PAGE_SIZE;
+        return "[" + String.join(",", issues.subList(Math.min(from, ISSUES),
+                Math.min(from + IssueService.ISSUE_PAGE_SIZE, ISSUES))) + "]";
+    }
+
+    private List<Repository> repositories() {
+        List<Repository> repositories = new ArrayList<>();
+        for (int i = 0; i < REPOSITORIES; i++) {
+            User owner = new User();
+            owner.setUsername("user");
+            Repository repository = new Repository();
+            repository.setOwner(owner);
+            repository.setName("r" + i);
+            repositories.add(repository);
+        }
+        return repositories;
+    }
+
+    private List<Long> updateTimes(IssueFeed feed, int limit) {
+        try (Stream<IssueFeed.Entry> entries = feed.repositories(repositories(), limit)) {
+            return entries.map(entry -> entry.getIssue().getUpdated().getTime()).collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> countDown(int count) {
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(1000L - i);
+        }
+        return expected;
+    }
+
+    @Test
+    public void mergeServerSortedPagesOnDemand() throws Exception {
+        sortedByServer = true;
+        IssueFeed feed = new IssueFeed(new GogsClient(server.getUri()), executor, 2, true, null);
+        Assert.assertEquals(countDown(12), updateTimes(feed, 12));
+        // four issues of every repository, all on the first page
+        Assert.assertEquals(REPOSITORIES, server.getRequests().size());
+    }
+
+    @Test
+    public void loadNextPageWhenRepositoryRunsOut() throws Exception {
+        sortedByServer = true;
+        IssueFeed feed = new IssueFeed(new GogsClient(server.getUri()), executor, 2, true, null);
+        Assert.assertEquals(countDown(40), updateTimes(feed, 40));
+        Assert.assertEquals(REPOSITORIES * 2, server.getRequests().size());
+    }
+
+    @Test
+    public void sortLocallyWithoutServerSort() throws Exception {
+        IssueFeed feed = new IssueFeed(new GogsClient(server.getUri()), executor, 2, false, null);
+        Assert.assertEquals(countDown(ISSUES * REPOSITORIES), updateTimes(feed, 100));
+        Assert.assertNull(server.getRequests().get(0).getParameter("sort"));
+    }
+
+    @Test
+    public void cancelPendingRequestsOnClose() throws Exception {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        IssueFeed feed = new IssueFeed(new GogsClient(server.getUri()), tasks::add, 1, true, null);
+
+        feed.repositories(repositories(), 10).close();
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+
+        Assert.assertTrue(server.getRequests().isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.Comment;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.TextMode;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class IssueServiceTest {
+
+    private static final String BODY = "\"body\":\"line \\\"one\\\"\\nline two \\u00e4\"";
+
+    private GogsServerStub server;
+
+    private IssueService service;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            if (request.getPath().endsWith("comments")) {
+                return GogsServerStub.Reply.json("[{\"id\":1," + BODY + ",\"created_at\":\"2017-01-01T00:00:00Z\"},"
+                        + "{\"id\":2,\"body\":null}]");
+            }
+            return GogsServerStub.Reply.json("[{\"id\":1," + BODY + ",\"index\":1,\"title\":\"first\"},"
+                    + "{\"id\":2,\"body\":42,\"index\":2,\"title\":\"second\"}]");
+        });
+        service = new IssueService(new GogsClient(server.getUri()));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void listIssuesWithBodies() throws Exception {
+        for (List<Issue> issues : Arrays.asList(service.listIssues("user", "repo"),
+                service.listIssues("user", "repo", TextMode.EAGER))) {
+            Assert.assertEquals(2, issues.size());
+            Assert.assertEquals("line \"one\"\nline two \u00e4", issues.get(0).getBody());
+            Assert.assertEquals("42", issues.get(1).getBody());
+            Assert.assertEquals("second", issues.get(1).getTitle());
+        }
+    }
+
+    @Test
+    public void listIssuesSkipBodies() throws Exception {
+        List<Issue> issues = service.listIssues("user", "repo", TextMode.SKIP);
+
+        Assert.assertEquals(2, issues.size());
+        for (Issue issue : issues) {
+            Assert.assertNull(issue.getBody());
+        }
+        Assert.assertEquals(Long.valueOf(1), issues.get(0).getIndex());
+        Assert.assertEquals("first", issues.get(0).getTitle());
+        Assert.assertEquals("second", issues.get(1).getTitle());
+
+        Assert.assertNotNull(service.listIssues("user", "repo").get(0).getBody());
+    }
+
+    @Test
+    public void listCommentsWithMode() throws Exception {
+        List<Comment> comments = service.listComments("user", "repo", "1", TextMode.EAGER);
+        Assert.assertEquals("line \"one\"\nline two \u00e4", comments.get(0).getBody());
+        Assert.assertNull(comments.get(1).getBody());
+
+        comments = service.listComments("user", "repo", "1", TextMode.SKIP);
+        Assert.assertEquals(2, comments.size());
+        Assert.assertNull(comments.get(0).getBody());
+        Assert.assertNotNull(comments.get(0).getCreated());
+        Assert.assertEquals(Long.valueOf(2), comments.get(1).getId());
+
+        Assert.assertNotNull(service.listComments("user", "repo", "1").get(0).getBody());
+    }
+}
@@ -0,0 +1,346 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Link;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class RawFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] content(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void readAll() throws Exception {
+        byte[] data = content(100 * 1024);
+        StubResponse response = new StubResponse(data, data.length);
+        RawFile rawFile = new RawFile(response, false, null);
+
+        Assert.assertEquals(data.length, rawFile.getContentLength());
+        Assert.assertEquals("\"abc\"", rawFile.getEtag());
+        Assert.assertEquals("text/plain", rawFile.getContentType());
+        Assert.assertArrayEquals(data, rawFile.readAll());
+        Assert.assertTrue(response.closed);
+
+        Assert.assertArrayEquals(data, new RawFile(new StubResponse(data, -1), false, null).readAll());
+        Assert.assertEquals(0, new RawFile(new StubResponse(new byte[0], 0), false, null).readAll().length);
+    }
+
+    @Test
+    public void transferTo() throws Exception {
+        byte[] data = content(100 * 1024);
+        StubResponse response = new StubResponse(data, data.length);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Assert.assertEquals(data.length, new RawFile(response, false, null)
+                .transferTo(Channels.newChannel(outputStream)));
+        Assert.assertArrayEquals(data, outputStream.toByteArray());
+        Assert.assertTrue(response.closed);
+        Assert.assertEquals(1, response.singleByteReads);
+
+        outputStream.reset();
+        StubResponse unknownLength = new StubResponse(data, -1);
+        Assert.assertEquals(data.length, new RawFile(unknownLength, false, null)
+                .transferTo(Channels.newChannel(outputStream)));
+        Assert.assertArrayEquals(data, outputStream.toByteArray());
+        Assert.assertEquals(0, unknownLength.singleByteReads);
+    }
+
+    @Test
+    public void transferNoMoreThanContentLength() throws Exception {
+        byte[] data = content(100 * 1024);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 1000), false, null)
+                .transferTo(Channels.newChannel(outputStream)));
+
+        Assert.assertEquals(1000, outputStream.size());
+        Assert.assertArrayEquals(Arrays.copyOf(data, 1000), outputStream.toByteArray());
+    }
+
+    @Test
+    public void saveTo() throws Exception {
+        byte[] data = content(100 * 1024);
+        Path target = folder.getRoot().toPath().resolve("README.md");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+        StubResponse response = new StubResponse(data, data.length);
+
+        Assert.assertEquals(data.length, new RawFile(response, false, null).saveTo(target));
+        Assert.assertArrayEquals(data, Files.readAllBytes(target));
+        Assert.assertTrue(response.closed);
+        Assert.assertEquals(1, response.singleByteReads);
+        Assert.assertEquals(1, files());
+
+        StubResponse unknownLength = new StubResponse(data, -1);
+        Assert.assertEquals(data.length, new RawFile(unknownLength, false, null).saveTo(target));
+        Assert.assertArrayEquals(data, Files.readAllBytes(target));
+        Assert.assertEquals(0, unknownLength.singleByteReads);
+
+        Assert.assertEquals(0, new RawFile(new StubResponse(new byte[0], 0), false, null).saveTo(target));
+        Assert.assertEquals(0, Files.size(target));
+    }
+
+    @Test
+    public void failOnWrongLength() throws Exception {
+        byte[] data = content(1000);
+        Path target = folder.getRoot().toPath().resolve("README.md");
+        Files.write(target, "old".getBytes(StandardCharsets.UTF_8));
+
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 2000), false, null).readAll());
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 2000), false, null)
+                .transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 2000), false, null).saveTo(target));
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 500), false, null).readAll());
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 500), false, null)
+                .transferTo(Channels.newChannel(new ByteArrayOutputStream())));
+        assertIncomplete(() -> new RawFile(new StubResponse(data, 500), false, null).saveTo(target));
+
+        Assert.assertEquals("old", new String(Files.readAllBytes(target), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, files());
+    }
+
+    @Test
+    public void notModified() throws Exception {
+        StubResponse response = new StubResponse(new byte[0], 0);
+        response.status = GogsClient.HTTP_NOT_MODIFIED;
+        response.headers.remove(HttpHeaders.ETAG);
+        RawFile rawFile = new RawFile(response, true, "\"known\"");
+
+        Assert.assertTrue(rawFile.isNotModified());
+        Assert.assertEquals("\"known\"", rawFile.getEtag());
+        Assert.assertEquals(-1, rawFile.getContentLength());
+        try {
+            rawFile.getInputStream();
+            Assert.fail("content of not modified raw file");
+        } catch (GogsClientException e) {
+            Assert.assertFalse(response.read);
+        }
+        rawFile.close();
+        Assert.assertTrue(response.closed);
+    }
+
+    private long files() throws Exception {
+        try (Stream<Path> stream = Files.list(folder.getRoot().toPath())) {
+            return stream.count();
+        }
+    }
+
+    private static void assertIncomplete(Runnable read) {
+        try {
+            read.run();
+            Assert.fail("wrong content length not detected");
+        } catch (GogsClientException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("raw file"));
+        }
+    }
+
+    /**
+     * response with fixed content, which may differ from its content length.
+     */
+    private static final class StubResponse extends Response {
+
+        private final byte[] data;
+
+        private final long length;
+
+        private final Map<String, String> headers = new HashMap<>();
+
+        private int status = GogsClient.HTTP_OK;
+
+        private boolean read;
+
+        private boolean closed;
+
+        private int singleByteReads;
+
+        private StubResponse(final byte[] data, final long length) {
+            this.data = data;
+            this.length = length;
+            headers.put(HttpHeaders.ETAG, "\"abc\"");
+            headers.put(HttpHeaders.CONTENT_TYPE, "text/plain");
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public StatusType getStatusInfo() {
+            return Status.fromStatusCode(status);
+        }
+
+        @Override
+        public Object getEntity() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> entityType) {
+            if (entityType != InputStream.class) {
+                throw new UnsupportedOperationException(entityType.getName());
+            }
+            read = true;
+            return entityType.cast(new ByteArrayInputStream(data) {
+                @Override
+                public synchronized int read() {
+                    singleByteReads++;
+                    return super.read();
+                }
+            });
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> entityType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> entityType, Annotation[] annotations) {
+            return readEntity(entityType);
+        }
+
+        @Override
+        public <T> T readEntity(GenericType<T> entityType, Annotation[] annotations) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasEntity() {
+            return true;
+        }
+
+        @Override
+        public boolean bufferEntity() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public MediaType getMediaType() {
+            return MediaType.TEXT_PLAIN_TYPE;
+        }
+
+        @Override
+        public Locale getLanguage() {
+            return null;
+        }
+
+        @Override
+        public int getLength() {
+            return (int) length;
+        }
+
+        @Override
+        public Set<String> getAllowedMethods() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Map<String, NewCookie> getCookies() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public EntityTag getEntityTag() {
+            return null;
+        }
+
+        @Override
+        public Date getDate() {
+            return null;
+        }
+
+        @Override
+        public Date getLastModified() {
+            return null;
+        }
+
+        @Override
+        public URI getLocation() {
+            return null;
+        }
+
+        @Override
+        public Set<Link> getLinks() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public boolean hasLink(String relation) {
+            return false;
+        }
+
+        @Override
+        public Link getLink(String relation) {
+            return null;
+        }
+
+        @Override
+        public Link.Builder getLinkBuilder(String relation) {
+            return null;
+        }
+
+        @Override
+        public MultivaluedMap<String, Object> getMetadata() {
+            MultivaluedMap<String, Object> metadata = new MultivaluedHashMap<>();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                metadata.putSingle(header.getKey(), header.getValue());
+            }
+            return metadata;
+        }
+
+        @Override
+        public MultivaluedMap<String, String> getStringHeaders() {
+            return new MultivaluedHashMap<>(headers);
+        }
+
+        @Override
+        public String getHeaderString(String name) {
+            return headers.get(name);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.ayesolutions.gogs.client.service;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsServerStub;
+import de.ayesolutions.gogs.client.model.Repository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class RepositorySearchTest {
+
+    private static final int RESULTS = 120;
+
+    private GogsServerStub server;
+
+    private RepositoryService service;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new GogsServerStub(request -> {
+            int pageSize = Integer.parseInt(request.getParameter("limit"));
+            int page = Integer.parseInt(request.getParameter("page"));
+            String data = IntStream.range((page - 1) * pageSize, Math.min(page * pageSize, RESULTS))
+                    .mapToObj(i -> "{\"id\":" + i + ",\"name\":\"repo" + i + "\"}")
+                    .collect(Collectors.joining(","));
+            return GogsServerStub.Reply.json("{\"ok\":true,\"data\":[" + data + "]}");
+        });
+        service = new RepositoryService(new GogsClient(server.getUri()), 1, TimeUnit.MINUTES);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void searchAcrossPages() throws Exception {
+        List<Repository> result = service.search("repo", 0, 75);
+        Assert.assertEquals(75, result.size());
+        Assert.assertEquals("repo74", result.get(74).getName());
+        Assert.assertEquals(2, server.getRequests().size());
+    }
+
+    @Test
+    public void cacheDefaultLimit() throws Exception {
+        Assert.assertEquals(RepositoryService.DEFAULT_SEARCH_PAGE_SIZE, service.search("repo", 0, 0).size());
+        Assert.assertEquals(RepositoryService.DEFAULT_SEARCH_PAGE_SIZE, service.search("repo", 0, 0).size());
+        Assert.assertEquals(5, service.search("repo", 0, 5).size());
+        Assert.assertEquals(1, server.getRequests().size());
+
+        Assert.assertEquals(20, service.search("repo", 0, 20).size());
+        Assert.assertEquals(2, server.getRequests().size());
+    }
+
+    @Test
+    public void cachedResultsAreCopies() throws Exception {
+        service.search("repo", 0, 10).get(0).setName("changed");
+        Assert.assertEquals("repo0", service.search("repo", 0, 10).get(0).getName());
+        Assert.assertEquals(1, server.getRequests().size());
+    }
+}
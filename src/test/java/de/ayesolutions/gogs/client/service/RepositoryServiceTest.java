@@ -8,6 +8,7 @@ import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -167,9 +168,17 @@ public class RepositoryServiceTest extends AbstractGogsTest {
     }
 
     @Test
-    @Ignore
     public void getRawFile() throws Exception {
+        Repository repository = service.createRepository(dummyCreateRepository);
+        Assert.assertNotNull(repository);
 
+        byte[] readme = service.getRawFile(USERNAME_USER, REPOSITORY_NAME, "master/README.md");
+        Assert.assertNotNull(readme);
+        Assert.assertTrue(new String(readme, StandardCharsets.UTF_8).contains(REPOSITORY_NAME));
+
+        Assert.assertNull(service.getRawFile(USERNAME_USER, REPOSITORY_NAME, "master/" + REPOSITORY_NAME));
+
+        service.deleteRepository(USERNAME_USER, REPOSITORY_NAME);
     }
 
     @Test
@@ -0,0 +1,64 @@
+package de.ayesolutions.gogs.client.snapshot;
+
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.model.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class SnapshotCodecTest {
+
+    private SnapshotCodec codec = new SnapshotCodec();
+
+    @Test
+    public void writeAndRead() throws Exception {
+        User poster = new User();
+        poster.setId(1L);
+        poster.setUsername("gogs-user");
+
+        List<Issue> issues = new ArrayList<>();
+        for (long i = 1; i <= 100; i++) {
+            Issue issue = new Issue();
+            issue.setId(i);
+            issue.setIndex(i);
+            issue.setTitle("issue " + i);
+            issue.setState("open");
+            issue.setPoster(poster);
+            issue.setUpdated(new Date(i * 1000));
+            issues.add(issue);
+        }
+
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try {
+            codec.write(path, Issue.class, issues);
+
+            List<Issue> result = codec.read(path, Issue.class);
+            Assert.assertEquals(100, result.size());
+            Assert.assertEquals("issue 42", result.get(41).getTitle());
+            Assert.assertEquals("gogs-user", result.get(99).getPoster().getUsername());
+            Assert.assertEquals(new Date(100000), result.get(99).getUpdated());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test(expected = GogsClientException.class)
+    public void readWrongType() throws Exception {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try {
+            codec.write(path, User.class, new ArrayList<>());
+            codec.read(path, Issue.class);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package de.ayesolutions.gogs.client.sync;
+
+import de.ayesolutions.gogs.client.GogsClient;
+import de.ayesolutions.gogs.client.GogsClientException;
+import de.ayesolutions.gogs.client.model.Issue;
+import de.ayesolutions.gogs.client.service.IssueService;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * @author Christian Aye - c.aye@aye-solutions.de
+ */
+public class IssueSynchronizerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Issue> openIssues = new ArrayList<>();
+
+    private final List<Issue> closedIssues = new ArrayList<>();
+
+    private final List<Long> readIssues = new ArrayList<>();
+
+    private final Map<String, SyncCursor> cursors = new HashMap<>();
+
+    private final SyncCursorStore cursorStore = new SyncCursorStore() {
+        @Override
+        public SyncCursor load(String key) {
+            return cursors.getOrDefault(key, SyncCursor.INITIAL);
+        }
+
+        @Override
+        public void save(String key, SyncCursor cursor) {
+            cursors.put(key, cursor);
+        }
+    };
+
+    /**
+     * issue service answering from the issue lists, sorted by update time if requested.
+     */
+    private final IssueService issueService = new IssueService(new GogsClient(URI.create("http://localhost"))) {
+        @Override
+        public Iterable<Issue> iterateIssues(String username, String repositoryName, Map<String, String> parameters) {
+            List<Issue> issues = new ArrayList<>("open".equals(parameters.get("state")) ? openIssues : closedIssues);
+            if ("recentupdate".equals(parameters.get("sort"))) {
+                issues.sort(Comparator.comparing(Issue::getUpdated).reversed());
+            }
+            return () -> issues.stream().peek(issue -> readIssues.add(issue.getId())).iterator();
+        }
+    };
+
+    private static Issue issue(long id, long updatedSeconds) {
+        Issue issue = new Issue();
+        issue.setId(id);
+        issue.setUpdated(new Date(updatedSeconds * 1000));
+        return issue;
+    }
+
+    private List<Long> synchronize(IssueSynchronizer synchronizer) {
+        List<Long> changed = new ArrayList<>();
+        synchronizer.synchronize("user", "repo", (username, repositoryName, issue) -> changed.add(issue.getId()));
+        return changed;
+    }
+
+    @Test
+    public void synchronizeOnlyChanges() throws Exception {
+        IssueSynchronizer synchronizer = new IssueSynchronizer(issueService, cursorStore,
+                IssueSynchronizer.Strategy.FULL_SCAN);
+        openIssues.addAll(Arrays.asList(issue(1, 100), issue(2, 90)));
+        closedIssues.add(issue(3, 95));
+        Assert.assertEquals(Arrays.asList(2L, 3L, 1L), synchronize(synchronizer));
+        Assert.assertEquals(Collections.emptyList(), synchronize(synchronizer));
+
+        openIssues.set(1, issue(2, 120));
+        Assert.assertEquals(Collections.singletonList(2L), synchronize(synchronizer));
+    }
+
+    @Test
+    public void lowerIdUpdatedInSameSecond() throws Exception {
+        IssueSynchronizer synchronizer = new IssueSynchronizer(issueService, cursorStore,
+                IssueSynchronizer.Strategy.FULL_SCAN);
+        openIssues.add(issue(5, 100));
+        Assert.assertEquals(Collections.singletonList(5L), synchronize(synchronizer));
+
+        // changed after the last run but within the same second as the cursor
+        openIssues.add(issue(3, 100));
+        Assert.assertEquals(Collections.singletonList(3L), synchronize(synchronizer));
+        Assert.assertEquals(Collections.emptyList(), synchronize(synchronizer));
+    }
+
+    @Test
+    public void olderUpdateTimeWithinOverlap() throws Exception {
+        IssueSynchronizer synchronizer = new IssueSynchronizer(issueService, cursorStore,
+                IssueSynchronizer.Strategy.FULL_SCAN);
+        openIssues.add(issue(5, 100));
+        synchronize(synchronizer);
+
+        // committed later with an update time one second before the cursor
+        openIssues.add(issue(4, 99));
+        openIssues.add(issue(2, 98));
+        Assert.assertEquals(Collections.singletonList(4L), synchronize(synchronizer));
+    }
+
+    @Test
+    public void recentlyUpdatedContinuesOnTies() throws Exception {
+        IssueSynchronizer synchronizer = new IssueSynchronizer(issueService, cursorStore,
+                IssueSynchronizer.Strategy.RECENTLY_UPDATED);
+        openIssues.addAll(Arrays.asList(issue(5, 100), issue(1, 50)));
+        Assert.assertEquals(Arrays.asList(1L, 5L), synchronize(synchronizer));
+
+        openIssues.add(issue(3, 100));
+        openIssues.add(issue(2, 40));
+        readIssues.clear();
+        Assert.assertEquals(Collections.singletonList(3L), synchronize(synchronizer));
+        // stops at the first issue older than the overlap window
+        Assert.assertEquals(Arrays.asList(5L, 3L, 1L), readIssues);
+    }
+
+    @Test
+    public void keepNewerIssueOfBothStates() throws Exception {
+        IssueSynchronizer synchronizer = new IssueSynchronizer(issueService, cursorStore,
+                IssueSynchronizer.Strategy.FULL_SCAN);
+        openIssues.add(issue(1, 100));
+        closedIssues.add(issue(1, 101));
+        List<Long> changed = synchronize(synchronizer);
+        Assert.assertEquals(Collections.singletonList(1L), changed);
+        Assert.assertEquals(Long.valueOf(101000), cursors.get("user/repo").getSeen().get(1L));
+    }
+
+    @Test
+    public void storeCursorInFile() throws Exception {
+        Path path = folder.getRoot().toPath().resolve("cursors.properties");
+        SyncCursor cursor = SyncCursor.INITIAL.advance(issue(3, 99)).advance(issue(5, 100)).advance(issue(1, 50));
+        new FileSyncCursorStore(path).save("user/repo", cursor);
+
+        SyncCursor loaded = new FileSyncCursorStore(path).load("user/repo");
+        Assert.assertEquals(100000, loaded.getUpdated());
+        Assert.assertEquals(cursor.getSeen(), loaded.getSeen());
+        Assert.assertEquals(Arrays.asList(3L, 5L), loaded.getSeen().keySet().stream().sorted()
+                .collect(Collectors.toList()));
+
+        Files.write(path, Collections.singletonList("user/old=100000\\:5"));
+        try {
+            new FileSyncCursorStore(path).load("user/old");
+            Assert.fail("cursor without updated time of issue");
+        } catch (GogsClientException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("invalid sync cursor user/old"));
+        }
+    }
+}